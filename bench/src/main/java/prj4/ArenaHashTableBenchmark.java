@@ -0,0 +1,177 @@
+package prj4;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * String-keyed ExtensibleHashTable and FlatHashTable against the byte
+ * arena of ArenaHashTable.
+ *
+ * footprint builds a table from private copies of the keys, so each table
+ * owns its keys as it would after parsing them from a command file, and
+ * reports the heap it retains, keys included, as the retainedBytesPerEntry
+ * counter. fullGc times a full collection with the table live, which grows
+ * with the number of objects the collector has to mark. searchHit and
+ * searchMiss measure lookup cost.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-XX:+UseSerialGC", "-Xmx3g" })
+public class ArenaHashTableBenchmark {
+    /** Table layout under test */
+    @Param({ "entry", "flat", "arena" })
+    public String layout;
+
+    /** Number of keys in the table */
+    @Param({ "1048576" })
+    public int tableSize;
+
+    /** Length of every key */
+    @Param({ "24" })
+    public int keyLength;
+
+    private String[] present;
+    private String[] absent;
+    private GraphNode node;
+    private ExtensibleHashTable entryTable;
+    private FlatHashTable flatTable;
+    private ArenaHashTable arenaTable;
+    private int next;
+
+    /**
+     * Builds the table under test.
+     */
+    @Setup
+    public void setUp() {
+        present = Workloads.keys(tableSize, keyLength, "hit", 1);
+        absent = Workloads.keys(tableSize, keyLength, "miss", 2);
+        node = new GraphNode("node", true);
+        build();
+    }
+
+
+    /**
+     * Looks up a key that is in the table.
+     *
+     * @return the node found
+     */
+    @Benchmark
+    public GraphNode searchHit() {
+        return search(present[advance()]);
+    }
+
+
+    /**
+     * Looks up a key that is not in the table.
+     *
+     * @return null
+     */
+    @Benchmark
+    public GraphNode searchMiss() {
+        return search(absent[advance()]);
+    }
+
+
+    /**
+     * Runs a full collection with the table live.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void fullGc() {
+        System.gc();
+    }
+
+
+    /**
+     * Rebuilds the table and records how much heap it holds on to.
+     *
+     * @param counters
+     *            where the retained size is reported
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 1)
+    public void footprint(Footprint counters) {
+        entryTable = null;
+        flatTable = null;
+        arenaTable = null;
+        long before = usedHeap();
+        build();
+        long after = usedHeap();
+        counters.retainedBytesPerEntry = (double)(after - before) / tableSize;
+    }
+
+
+    private GraphNode search(String key) {
+        if (entryTable != null) {
+            return entryTable.search(key);
+        }
+        return flatTable != null ? flatTable.search(key) : arenaTable.search(
+            key);
+    }
+
+
+    /**
+     * Fills a new table of the chosen layout with copies of the keys that
+     * share nothing with present.
+     */
+    private void build() {
+        if ("entry".equals(layout)) {
+            entryTable = new ExtensibleHashTable(tableSize * 2);
+            for (String key : present) {
+                entryTable.insert(new String(key.toCharArray()), node);
+            }
+        }
+        else if ("flat".equals(layout)) {
+            flatTable = new FlatHashTable(tableSize * 2);
+            for (String key : present) {
+                flatTable.insert(new String(key.toCharArray()), node);
+            }
+        }
+        else {
+            arenaTable = new ArenaHashTable(tableSize * 2);
+            for (String key : present) {
+                arenaTable.insert(new String(key.toCharArray()), node);
+            }
+        }
+    }
+
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+
+    private int advance() {
+        next++;
+        if (next == tableSize) {
+            next = 0;
+        }
+        return next;
+    }
+
+
+    /**
+     * Secondary results of the footprint benchmark.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        /** Heap retained by the table and its keys, per entry */
+        public double retainedBytesPerEntry;
+    }
+}
@@ -0,0 +1,106 @@
+package prj4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Ingest rate of inserts under each durability setting of the command
+ * log: no log, a force per command, group commit by batch size, and group
+ * commit by interval. Each invocation starts from an empty log file.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CommandLogBenchmark {
+    /** Inserts per invocation */
+    @Param({ "20000" })
+    public int inserts;
+
+    /**
+     * Durability setting: none, or batch size and interval in milliseconds
+     * separated by a slash
+     */
+    @Param({ "none", "1/0", "64/0", "1024/0", "100000/10" })
+    public String durability;
+
+    private String[] commands;
+    private Path file;
+    private GraphProject project;
+
+    /**
+     * Generates the inserts.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        int artists = inserts / 20;
+        String[] artistNames = Workloads.keys(artists, 24, "artist", 7);
+        String[] songNames = Workloads.keys(inserts / 2, 24, "song", 8);
+        int[] edges = Workloads.edges(Workloads.RANDOM, artists, inserts / 2,
+            9);
+        commands = new String[edges.length / 2];
+        for (int e = 0; e < edges.length; e += 2) {
+            commands[e / 2] = "insert " + artistNames[edges[e]] + "<SEP>"
+                + songNames[edges[e + 1]];
+        }
+    }
+
+
+    /**
+     * Starts an empty project on an empty log.
+     *
+     * @throws IOException
+     *             if the log cannot be created
+     */
+    @Setup(Level.Invocation)
+    public void open() throws IOException {
+        project = new GraphProject(10, OutputSink.NULL);
+        if (!durability.equals("none")) {
+            file = Files.createTempFile("commands", ".wal");
+            Files.delete(file);
+            String[] setting = durability.split("/");
+            project.openLog(file, Integer.parseInt(setting[0]), Long
+                .parseLong(setting[1]));
+        }
+    }
+
+
+    /**
+     * Deletes the log.
+     *
+     * @throws IOException
+     *             if the file cannot be deleted
+     */
+    @TearDown(Level.Invocation)
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+            file = null;
+        }
+    }
+
+
+    /**
+     * Runs every insert and commits what is left in the log.
+     *
+     * @return the project
+     * @throws IOException
+     *             if the log cannot be closed
+     */
+    @Benchmark
+    public GraphProject ingest() throws IOException {
+        for (String command : commands) {
+            project.processCommand(command);
+        }
+        project.closeLog();
+        return project;
+    }
+}
@@ -0,0 +1,97 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parse-only cost per command line: CommandParser against the split and
+ * trim steps processCommand and processInsert used before it. Nothing is
+ * executed. Nine lines in ten are inserts and the rest are removes. Run
+ * with -prof gc to read the bytes allocated per line.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParserBenchmark {
+    /** Length of artist and song names */
+    @Param({ "16", "64" })
+    public int keyLength;
+
+    private static final int LINES = 1 << 14;
+
+    private String[] lines;
+    private CommandParser parser;
+    private int next;
+
+    /**
+     * Generates the lines.
+     */
+    @Setup
+    public void setUp() {
+        String[] artists = Workloads.keys(LINES, keyLength, "artist", 7);
+        String[] songs = Workloads.keys(LINES, keyLength, "song", 8);
+        lines = new String[LINES];
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = i % 10 == 9
+                ? "remove artist " + artists[i]
+                : "insert " + artists[i] + "<SEP>" + songs[i];
+        }
+        parser = new CommandParser();
+    }
+
+
+    /**
+     * Parses a line with CommandParser.
+     *
+     * @param sink
+     *            consumes the parsed names
+     */
+    @Benchmark
+    public void parser(Blackhole sink) {
+        parser.parse(lines[advance()]);
+        sink.consume(parser.op);
+        sink.consume(parser.first.length());
+        sink.consume(parser.second.length());
+    }
+
+
+    /**
+     * Parses a line with split and trim.
+     *
+     * @param sink
+     *            consumes the parsed names
+     */
+    @Benchmark
+    public void split(Blackhole sink) {
+        String[] parts = lines[advance()].split(" ", 2);
+        String args = parts.length > 1 ? parts[1] : "";
+        if (parts[0].equals("insert")) {
+            if (args.trim().isEmpty()) {
+                return;
+            }
+            String[] names = args.split("<SEP>");
+            if (names.length == 2) {
+                sink.consume(names[0].trim());
+                sink.consume(names[1].trim());
+            }
+        }
+        else {
+            String[] remove = args.split(" ", 2);
+            sink.consume(remove[0]);
+            sink.consume(remove.length > 1 ? remove[1] : null);
+        }
+    }
+
+
+    private int advance() {
+        next = (next + 1) & (LINES - 1);
+        return next;
+    }
+}
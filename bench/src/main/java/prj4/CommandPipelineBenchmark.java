@@ -0,0 +1,94 @@
+package prj4;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Replays a command file held in memory into a fresh GraphProject, on one
+ * thread as GraphProject.main does by default, and through CommandPipeline
+ * with parsing on the calling thread and execution on a second one. Output
+ * goes to the null sink so only the command work is timed. The pipeline
+ * can only gain with a second core free.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandPipelineBenchmark {
+    /** Songs in the command file; there are a tenth as many artists */
+    @Param({ "100000" })
+    public int songs;
+
+    /** Length of artist and song names */
+    @Param({ "24", "96" })
+    public int keyLength;
+
+    /** Ring slots for the pipeline */
+    @Param({ "1024" })
+    public int capacity;
+
+    private String commands;
+
+    /**
+     * Generates the command file.
+     */
+    @Setup
+    public void setUp() {
+        int artists = songs / 10;
+        String[] artistNames = Workloads.keys(artists, keyLength, "artist",
+            7);
+        String[] songNames = Workloads.keys(songs, keyLength, "song", 8);
+        int[] edges = Workloads.edges(Workloads.RANDOM, artists, songs, 9);
+        StringBuilder file = new StringBuilder();
+        for (int e = 0; e < edges.length; e += 2) {
+            file.append("insert ").append(artistNames[edges[e]]).append(
+                "<SEP>").append(songNames[edges[e + 1]]).append('\n');
+        }
+        file.append("print graph\n");
+        commands = file.toString();
+    }
+
+
+    /**
+     * Reads, parses and executes every line on the calling thread.
+     *
+     * @return the project
+     * @throws IOException
+     *             never
+     */
+    @Benchmark
+    public GraphProject sequential() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        BufferedReader reader = new BufferedReader(new StringReader(
+            commands));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            project.processCommand(line.trim());
+        }
+        return project;
+    }
+
+
+    /**
+     * Reads and parses on the calling thread and executes on another.
+     *
+     * @return the project
+     * @throws IOException
+     *             never
+     */
+    @Benchmark
+    public GraphProject pipelined() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        new CommandPipeline(project, capacity).run(new BufferedReader(
+            new StringReader(commands)));
+        return project;
+    }
+}
@@ -0,0 +1,114 @@
+package prj4;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Reading a command file into a fresh GraphProject, with the
+ * BufferedReader loop of GraphProject.main against MappedCommandReader. The
+ * file holds two inserts per song of a random graph, so most names are
+ * already in their table when they are read; divide the file size printed
+ * at setup by the score for throughput.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandReaderBenchmark {
+    /** Songs in the command file; there are a tenth as many artists */
+    @Param({ "100000", "1000000" })
+    public int songs;
+
+    /** Length of artist and song names */
+    @Param({ "24" })
+    public int keyLength;
+
+    private Path file;
+
+    /**
+     * Writes the command file.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        int artists = songs / 10;
+        String[] artistNames = Workloads.keys(artists, keyLength, "artist",
+            7);
+        String[] songNames = Workloads.keys(songs, keyLength, "song", 8);
+        int[] edges = Workloads.edges(Workloads.RANDOM, artists, songs, 9);
+        file = Files.createTempFile("commands", ".txt");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(
+            file))) {
+            for (int e = 0; e < edges.length; e += 2) {
+                out.print("insert " + artistNames[edges[e]] + "<SEP>"
+                    + songNames[edges[e + 1]] + "\n");
+            }
+            out.print("print graph\n");
+        }
+        System.out.println("Command file: " + Files.size(file) + " bytes");
+        Workloads.silence();
+    }
+
+
+    /**
+     * Deletes the command file and puts System.out back.
+     *
+     * @throws IOException
+     *             if the file cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Workloads.restore();
+        Files.deleteIfExists(file);
+    }
+
+
+    /**
+     * Reads the file a line at a time, as GraphProject.main does by
+     * default.
+     *
+     * @return the project
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Benchmark
+    public GraphProject lineReader() throws IOException {
+        GraphProject project = new GraphProject(10);
+        try (BufferedReader br = new BufferedReader(new FileReader(file
+            .toFile()))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                project.processCommand(line.trim());
+            }
+        }
+        return project;
+    }
+
+
+    /**
+     * Maps the file and scans its bytes.
+     *
+     * @return the project
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Benchmark
+    public GraphProject mappedReader() throws IOException {
+        GraphProject project = new GraphProject(10);
+        new MappedCommandReader(project).read(file);
+        return project;
+    }
+}
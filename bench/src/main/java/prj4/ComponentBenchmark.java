@@ -0,0 +1,128 @@
+package prj4;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Full connected-component analysis from scratch: the recursive DFS over
+ * GraphNode objects with a HashSet per component that analyzeComponents
+ * used to run, against ComponentScanner's iterative and parallel scans of
+ * the adjacency arrays. convertAndScan includes building the arrays from
+ * the graph.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class ComponentBenchmark {
+    /** Shape of the graph, see Workloads.edges */
+    @Param({ Workloads.CHAIN, Workloads.RANDOM })
+    public String shape;
+
+    /** Number of songs; there are a tenth as many artists */
+    @Param({ "20000", "200000" })
+    public int songs;
+
+    private Graph graph;
+    private ComponentScanner scanner;
+    private ForkJoinPool pool;
+
+    /**
+     * Builds the graph and its adjacency arrays.
+     */
+    @Setup
+    public void setUp() {
+        int artists = songs / 10;
+        graph = new Graph();
+        Workloads.fill(graph, Workloads.keys(artists, 16, "artist", 4),
+            Workloads.keys(songs, 24, "song", 5), Workloads.edges(shape,
+                artists, songs, 6));
+        scanner = ComponentScanner.of(graph);
+        pool = ForkJoinPool.commonPool();
+    }
+
+
+    /**
+     * Runs the original recursive analysis.
+     *
+     * @return the number of components
+     */
+    @Benchmark
+    public int recursiveDfs() {
+        Set<GraphNode> visited = new HashSet<>();
+        int components = 0;
+        int largest = 0;
+        for (GraphNode node : graph.getNodes()) {
+            if (!visited.contains(node)) {
+                largest = Math.max(largest, dfsComponentSize(node, visited,
+                    new HashSet<>()));
+                components++;
+            }
+        }
+        return components + largest;
+    }
+
+
+    /**
+     * Scans prebuilt arrays on one thread.
+     *
+     * @return the number of components
+     */
+    @Benchmark
+    public int scan() {
+        return scanner.scan();
+    }
+
+
+    /**
+     * Scans prebuilt arrays in the common ForkJoin pool.
+     *
+     * @return the number of components
+     */
+    @Benchmark
+    public int scanParallel() {
+        return scanner.scanParallel(pool);
+    }
+
+
+    /**
+     * Builds the arrays from the graph and scans them on one thread.
+     *
+     * @return the number of components
+     */
+    @Benchmark
+    public int convertAndScan() {
+        return ComponentScanner.of(graph).scan();
+    }
+
+
+    /**
+     * The recursive helper analyzeComponents used before the scanner,
+     * kept here as the baseline.
+     */
+    private static int dfsComponentSize(
+        GraphNode node,
+        Set<GraphNode> visited,
+        Set<GraphNode> currentComponent) {
+        visited.add(node);
+        currentComponent.add(node);
+
+        List<GraphNode> edges = node.getEdges();
+        for (GraphNode neighbor : edges) {
+            if (!visited.contains(neighbor)) {
+                dfsComponentSize(neighbor, visited, currentComponent);
+            }
+        }
+
+        return currentComponent.size();
+    }
+}
@@ -0,0 +1,150 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Throughput of a shared table under 1, 2, 4 and 8 threads, comparing the
+ * striped ConcurrentExtensibleHashTable with one ExtensibleHashTable behind
+ * a single lock. Every thread runs the same mix: one insert (replacing an
+ * existing key, so the table size stays fixed) for every writeEvery - 1
+ * searches. Scaling only shows on a machine with that many cores.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentHashTableBenchmark {
+    /** Keys in the shared table */
+    public static final int KEY_COUNT = 1 << 16;
+
+    /** Table under test */
+    @Param({ "striped", "locked" })
+    public String table;
+
+    /** One operation in this many is an insert */
+    @Param({ "10" })
+    public int writeEvery;
+
+    private String[] keys;
+    private GraphNode node;
+    private ConcurrentExtensibleHashTable striped;
+    private ExtensibleHashTable locked;
+
+    /**
+     * Fills the shared table.
+     */
+    @Setup
+    public void setUp() {
+        Workloads.silence();
+        keys = Workloads.keys(KEY_COUNT, 24, "artist", 11);
+        node = new GraphNode("node", true);
+        striped = new ConcurrentExtensibleHashTable(KEY_COUNT * 2, 64);
+        locked = new ExtensibleHashTable(KEY_COUNT * 2);
+        for (String key : keys) {
+            striped.insert(key, node);
+            locked.insert(key, node);
+        }
+    }
+
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+
+    /**
+     * Runs the mix on one thread.
+     *
+     * @param cursor
+     *            this thread's position in the key set
+     * @return the node read or replaced
+     */
+    @Benchmark
+    @Threads(1)
+    public GraphNode threads1(Cursor cursor) {
+        return operate(cursor);
+    }
+
+
+    /**
+     * Runs the mix on 2 threads.
+     *
+     * @param cursor
+     *            this thread's position in the key set
+     * @return the node read or replaced
+     */
+    @Benchmark
+    @Threads(2)
+    public GraphNode threads2(Cursor cursor) {
+        return operate(cursor);
+    }
+
+
+    /**
+     * Runs the mix on 4 threads.
+     *
+     * @param cursor
+     *            this thread's position in the key set
+     * @return the node read or replaced
+     */
+    @Benchmark
+    @Threads(4)
+    public GraphNode threads4(Cursor cursor) {
+        return operate(cursor);
+    }
+
+
+    /**
+     * Runs the mix on 8 threads.
+     *
+     * @param cursor
+     *            this thread's position in the key set
+     * @return the node read or replaced
+     */
+    @Benchmark
+    @Threads(8)
+    public GraphNode threads8(Cursor cursor) {
+        return operate(cursor);
+    }
+
+
+    private GraphNode operate(Cursor cursor) {
+        int op = cursor.next++;
+        String key = keys[(op * 7919 + cursor.offset) & (KEY_COUNT - 1)];
+        boolean write = op % writeEvery == 0;
+        if ("striped".equals(table)) {
+            return write ? striped.insert(key, node) : striped.search(key);
+        }
+        synchronized (locked) {
+            return write ? locked.insert(key, node) : locked.search(key);
+        }
+    }
+
+
+    /**
+     * Per-thread position, so threads walk the keys in different orders.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        int offset;
+
+        /**
+         * Starts each thread at a different point in the key set.
+         */
+        @Setup
+        public void setUp() {
+            offset = (int)(Thread.currentThread().getId() * 104729);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Single-operation costs of ExtensibleHashTable on a table that already
+ * holds tableSize keys: search hits, search misses, replacing the value of
+ * an existing key, and inserting then removing a fresh key. Each runs with
+ * the Bloom filter off (0 bits per key) and on.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtensibleHashTableBenchmark {
+    /** Length of every key */
+    @Param({ "16", "64" })
+    public int keyLength;
+
+    /** Number of keys in the table before measuring */
+    @Param({ "1024", "65536" })
+    public int tableSize;
+
+    /** Bloom filter bits per key, 0 to leave the filter off */
+    @Param({ "0", "10" })
+    public int bloomBitsPerKey;
+
+    private ExtensibleHashTable table;
+    private String[] present;
+    private String[] absent;
+    private GraphNode node;
+    private int next;
+
+    /**
+     * Fills the table and prepares keys that are and are not in it.
+     */
+    @Setup
+    public void setUp() {
+        Workloads.silence();
+        present = Workloads.keys(tableSize, keyLength, "hit", 1);
+        absent = Workloads.keys(tableSize, keyLength, "miss", 2);
+        node = new GraphNode("node", true);
+        table = new ExtensibleHashTable(10);
+        if (bloomBitsPerKey > 0) {
+            table.enableBloomFilter(bloomBitsPerKey);
+        }
+        for (String key : present) {
+            table.insert(key, node);
+        }
+    }
+
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+
+    /**
+     * Looks up a key that is in the table.
+     *
+     * @return the node found
+     */
+    @Benchmark
+    public GraphNode searchHit() {
+        return table.search(present[advance()]);
+    }
+
+
+    /**
+     * Looks up a key that is not in the table.
+     *
+     * @return null
+     */
+    @Benchmark
+    public GraphNode searchMiss() {
+        return table.search(absent[advance()]);
+    }
+
+
+    /**
+     * Inserts a key that is already present, replacing its value.
+     *
+     * @return the previous node
+     */
+    @Benchmark
+    public GraphNode insertExisting() {
+        return table.insert(present[advance()], node);
+    }
+
+
+    /**
+     * Inserts a key that is not present and removes it again, so the table
+     * size stays at tableSize.
+     *
+     * @return the removed node
+     */
+    @Benchmark
+    public GraphNode insertRemove() {
+        String key = absent[advance()];
+        table.insert(key, node);
+        return table.remove(key);
+    }
+
+
+    private int advance() {
+        next++;
+        if (next == tableSize) {
+            next = 0;
+        }
+        return next;
+    }
+}
@@ -0,0 +1,159 @@
+package prj4;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * HashEntry-per-slot ExtensibleHashTable against the parallel-array
+ * FlatHashTable.
+ *
+ * searchHit and searchMiss measure probe cost on tables large enough to
+ * spill out of cache; run them with -prof perfnorm to read the L1/LLC miss
+ * counts per lookup. footprint builds a table and reports the heap it
+ * retains (keys and nodes are shared and not counted) as the
+ * retainedBytesPerEntry counter. JMH sums event counters over iterations,
+ * so footprint measures a single iteration.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseSerialGC")
+public class FlatHashTableBenchmark {
+    /** Table layout under test */
+    @Param({ "entry", "flat" })
+    public String layout;
+
+    /** Number of keys in the table */
+    @Param({ "65536", "1048576" })
+    public int tableSize;
+
+    /** Length of every key */
+    @Param({ "16" })
+    public int keyLength;
+
+    private String[] present;
+    private String[] absent;
+    private GraphNode node;
+    private ExtensibleHashTable entryTable;
+    private FlatHashTable flatTable;
+    private int next;
+
+    /**
+     * Builds the table under test.
+     */
+    @Setup
+    public void setUp() {
+        Workloads.silence();
+        present = Workloads.keys(tableSize, keyLength, "hit", 1);
+        absent = Workloads.keys(tableSize, keyLength, "miss", 2);
+        node = new GraphNode("node", true);
+        build();
+    }
+
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+
+    /**
+     * Looks up a key that is in the table.
+     *
+     * @return the node found
+     */
+    @Benchmark
+    public GraphNode searchHit() {
+        String key = present[advance()];
+        return entryTable != null ? entryTable.search(key) : flatTable.search(
+            key);
+    }
+
+
+    /**
+     * Looks up a key that is not in the table.
+     *
+     * @return null
+     */
+    @Benchmark
+    public GraphNode searchMiss() {
+        String key = absent[advance()];
+        return entryTable != null ? entryTable.search(key) : flatTable.search(
+            key);
+    }
+
+
+    /**
+     * Rebuilds the table and records how much heap it holds on to.
+     *
+     * @param counters
+     *            where the retained size is reported
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 1)
+    public void footprint(Footprint counters) {
+        entryTable = null;
+        flatTable = null;
+        long before = usedHeap();
+        build();
+        long after = usedHeap();
+        counters.retainedBytesPerEntry = (double)(after - before) / tableSize;
+    }
+
+
+    private void build() {
+        if ("entry".equals(layout)) {
+            entryTable = new ExtensibleHashTable(tableSize * 2);
+            for (String key : present) {
+                entryTable.insert(key, node);
+            }
+        }
+        else {
+            flatTable = new FlatHashTable(tableSize * 2);
+            for (String key : present) {
+                flatTable.insert(key, node);
+            }
+        }
+    }
+
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+
+    private int advance() {
+        next++;
+        if (next == tableSize) {
+            next = 0;
+        }
+        return next;
+    }
+
+
+    /**
+     * Secondary results of the footprint benchmark.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        /** Heap retained by the table structure, per entry */
+        public double retainedBytesPerEntry;
+    }
+}
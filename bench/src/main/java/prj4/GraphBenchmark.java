@@ -0,0 +1,169 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Graph mutation and analysis on artist/song graphs of different shapes
+ * and sizes. Every score is per invocation: addEdges adds all edges of the
+ * shape, removeArtists removes all artists, analyzeComponents reads the
+ * tracked components once and removeThenAnalyze removes one artist and
+ * reads them, paying for rebuilding the component it split.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+    /** Artists in every generated graph */
+    public static final int ARTISTS = 1000;
+
+    /** Shape of the graph, see Workloads.edges */
+    @Param({ Workloads.STAR, Workloads.CHAIN, Workloads.RANDOM })
+    public String shape;
+
+    /** Number of songs, which fixes the number of edges */
+    @Param({ "2000", "20000" })
+    public int songs;
+
+    private String[] artistNames;
+    private String[] songNames;
+    private int[] edges;
+    private Graph graph;
+
+    /**
+     * Generates names and edges and builds one graph to analyze.
+     */
+    @Setup
+    public void setUp() {
+        Workloads.silence();
+        artistNames = Workloads.keys(ARTISTS, 16, "artist", 4);
+        songNames = Workloads.keys(songs, 24, "song", 5);
+        edges = Workloads.edges(shape, ARTISTS, songs, 6);
+        graph = new Graph();
+        Workloads.fill(graph, artistNames, songNames, edges);
+    }
+
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+
+    /**
+     * Adds every edge to a graph that already has its nodes.
+     *
+     * @param fresh
+     *            a graph with nodes and no edges
+     * @return the graph
+     */
+    @Benchmark
+    public Graph addEdges(NodesOnly fresh) {
+        GraphNode[] n = fresh.nodes;
+        for (int e = 0; e < edges.length; e += 2) {
+            fresh.graph.addEdge(n[edges[e]], n[ARTISTS + edges[e + 1]]);
+        }
+        return fresh.graph;
+    }
+
+
+    /**
+     * Removes every artist from a fully built graph.
+     *
+     * @param fresh
+     *            a graph with every edge
+     * @return the graph
+     */
+    @Benchmark
+    public Graph removeArtists(Complete fresh) {
+        for (int i = 0; i < ARTISTS; i++) {
+            fresh.graph.removeNode(fresh.nodes[i]);
+        }
+        return fresh.graph;
+    }
+
+
+    /**
+     * Runs the connected component analysis behind "print graph".
+     *
+     * @return the graph
+     */
+    @Benchmark
+    public Graph analyzeComponents() {
+        graph.analyzeComponents();
+        return graph;
+    }
+
+
+    /**
+     * Removes one artist from a fully built graph and runs the analysis,
+     * which rebuilds the component the artist belonged to.
+     *
+     * @param fresh
+     *            a graph with every edge
+     * @return the graph
+     */
+    @Benchmark
+    public Graph removeThenAnalyze(Complete fresh) {
+        fresh.graph.removeNode(fresh.nodes[0]);
+        fresh.graph.analyzeComponents();
+        return fresh.graph;
+    }
+
+
+    /**
+     * A graph with all nodes but no edges, rebuilt before every invocation.
+     * Building it is not measured.
+     */
+    @State(Scope.Thread)
+    public static class NodesOnly {
+        Graph graph;
+        GraphNode[] nodes;
+
+        /**
+         * Rebuilds the graph.
+         *
+         * @param b
+         *            the benchmark state holding the names
+         */
+        @Setup(Level.Invocation)
+        public void setUp(GraphBenchmark b) {
+            graph = new Graph();
+            nodes = Workloads.fill(graph, b.artistNames, b.songNames,
+                new int[0]);
+        }
+    }
+
+
+    /**
+     * A graph with all nodes and edges, rebuilt before every invocation.
+     * Building it is not measured.
+     */
+    @State(Scope.Thread)
+    public static class Complete {
+        Graph graph;
+        GraphNode[] nodes;
+
+        /**
+         * Rebuilds the graph.
+         *
+         * @param b
+         *            the benchmark state holding names and edges
+         */
+        @Setup(Level.Invocation)
+        public void setUp(GraphBenchmark b) {
+            graph = new Graph();
+            nodes = Workloads.fill(graph, b.artistNames, b.songNames,
+                b.edges);
+        }
+    }
+}
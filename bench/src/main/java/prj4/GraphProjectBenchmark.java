@@ -0,0 +1,92 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * End-to-end command throughput: replays a generated command file through
+ * GraphProject.processCommand on a fresh project. Inserts follow the graph
+ * shape, every tenth artist is removed at the end and the run finishes with
+ * the three print commands.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphProjectBenchmark {
+    /** Artists named in the command file */
+    public static final int ARTISTS = 1000;
+
+    /** Shape of the inserted graph, see Workloads.edges */
+    @Param({ Workloads.STAR, Workloads.RANDOM })
+    public String shape;
+
+    /** Songs named in the command file */
+    @Param({ "5000" })
+    public int songs;
+
+    /** Length of artist and song names */
+    @Param({ "16", "64" })
+    public int keyLength;
+
+    /** Initial hash table size passed to GraphProject */
+    @Param({ "10", "65536" })
+    public int initHashSize;
+
+    private String[] commands;
+
+    /**
+     * Generates the command file.
+     */
+    @Setup
+    public void setUp() {
+        Workloads.silence();
+        String[] artists = Workloads.keys(ARTISTS, keyLength, "artist", 7);
+        String[] songNames = Workloads.keys(songs, keyLength, "song", 8);
+        int[] edges = Workloads.edges(shape, ARTISTS, songs, 9);
+        int removes = ARTISTS / 10;
+        commands = new String[edges.length / 2 + removes + 3];
+        int c = 0;
+        for (int e = 0; e < edges.length; e += 2) {
+            commands[c++] = "insert " + artists[edges[e]] + "<SEP>"
+                + songNames[edges[e + 1]];
+        }
+        for (int i = 0; i < removes; i++) {
+            commands[c++] = "remove artist " + artists[i * 10];
+        }
+        commands[c++] = "print artist";
+        commands[c++] = "print song";
+        commands[c++] = "print graph";
+    }
+
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+
+    /**
+     * Replays one command file. The score is whole replays per second; the
+     * file holds one insert per edge of the shape (songs for star, twice
+     * that for random) plus ARTISTS / 10 removes and three prints.
+     *
+     * @return the project
+     */
+    @Benchmark
+    public GraphProject replay() {
+        GraphProject project = new GraphProject(initHashSize);
+        for (String command : commands) {
+            project.processCommand(command);
+        }
+        return project;
+    }
+}
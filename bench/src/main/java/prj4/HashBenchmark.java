@@ -0,0 +1,106 @@
+package prj4;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the allocating substring-based sfold that Hash.h used to run with
+ * the in-place version, on keys the length of long artist and song names.
+ * Run with -prof gc to see the allocation rate of each.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+    /** Number of distinct keys cycled through by each benchmark */
+    private static final int KEY_COUNT = 1024;
+
+    /** Length of every generated key */
+    @Param({ "8", "32", "128" })
+    public int keyLength;
+
+    /** Length of the table the keys are reduced to */
+    @Param({ "10007" })
+    public int tableLength;
+
+    private String[] keys;
+    private int next;
+
+    /**
+     * Builds printable ASCII keys of the requested length.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            StringBuilder sb = new StringBuilder(keyLength);
+            for (int j = 0; j < keyLength; j++) {
+                sb.append((char)(' ' + random.nextInt(95)));
+            }
+            keys[i] = sb.toString();
+        }
+    }
+
+
+    /**
+     * Hashes the next key with the current Hash.h.
+     *
+     * @return the home slot
+     */
+    @Benchmark
+    public int inPlace() {
+        return Hash.h(nextKey(), tableLength);
+    }
+
+
+    /**
+     * Hashes the next key with the original substring-based sfold.
+     *
+     * @return the home slot
+     */
+    @Benchmark
+    public int substring() {
+        return legacyH(nextKey(), tableLength);
+    }
+
+
+    private String nextKey() {
+        next = (next + 1) & (KEY_COUNT - 1);
+        return keys[next];
+    }
+
+
+    /**
+     * The sfold implementation Hash.h used before it read characters in
+     * place, kept here as the baseline.
+     */
+    private static int legacyH(String s, int length) {
+        int intLength = s.length() / 4;
+        long sum = 0;
+        for (int j = 0; j < intLength; j++) {
+            char[] c = s.substring(j * 4, (j * 4) + 4).toCharArray();
+            long mult = 1;
+            for (int k = 0; k < c.length; k++) {
+                sum += c[k] * mult;
+                mult *= 256;
+            }
+        }
+
+        char[] c = s.substring(intLength * 4).toCharArray();
+        long mult = 1;
+        for (int k = 0; k < c.length; k++) {
+            sum += c[k] * mult;
+            mult *= 256;
+        }
+
+        return (int)(Math.abs(sum) % length);
+    }
+}
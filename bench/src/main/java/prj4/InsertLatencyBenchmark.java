@@ -0,0 +1,69 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Per-insert latency distribution during a bulk load, with eager and
+ * incremental resizing. Each invocation inserts one new key; when the key
+ * set runs out the table starts over from empty. Compare the p0.99 and
+ * p0.9999 rows of the two modes: eager resizes show up as the tail.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertLatencyBenchmark {
+    /** Keys loaded before the table starts over */
+    @Param({ "1000000" })
+    public int keyCount;
+
+    /** Whether the table resizes incrementally */
+    @Param({ "false", "true" })
+    public boolean incremental;
+
+    private String[] keys;
+    private GraphNode node;
+    private ExtensibleHashTable table;
+    private int next;
+
+    /**
+     * Generates the keys.
+     */
+    @Setup
+    public void setUp() {
+        Workloads.silence();
+        keys = Workloads.keys(keyCount, 24, "artist", 10);
+        node = new GraphNode("node", true);
+        table = new ExtensibleHashTable(10, incremental);
+    }
+
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+
+    /**
+     * Inserts the next key.
+     *
+     * @return null, since every key is new
+     */
+    @Benchmark
+    public GraphNode insert() {
+        if (next == keyCount) {
+            next = 0;
+            table = new ExtensibleHashTable(10, incremental);
+        }
+        return table.insert(keys[next++], node);
+    }
+}
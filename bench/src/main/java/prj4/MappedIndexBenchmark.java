@@ -0,0 +1,148 @@
+package prj4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Read-only serving from a MappedIndex against a project loaded from a
+ * ProjectSnapshot of the same data: time to become ready, and time for a
+ * batch of song lookups. Both file sizes are printed at setup.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MappedIndexBenchmark {
+    /** Songs in the catalog; there are a tenth as many artists */
+    @Param({ "1000000" })
+    public int songs;
+
+    /** Lookups per lookup invocation, half of them misses */
+    private static final int LOOKUPS = 1 << 20;
+
+    private Path snapshot;
+    private Path indexFile;
+    private GraphProject loaded;
+    private MappedIndex index;
+    private String[] keys;
+
+    /**
+     * Builds the catalog, writes both files and opens each once for the
+     * lookup benchmarks.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        int artists = songs / 10;
+        String[] artistNames = Workloads.keys(artists, 24, "artist", 7);
+        String[] songNames = Workloads.keys(songs, 24, "song", 8);
+        String[] missing = Workloads.keys(LOOKUPS / 2, 24, "miss", 10);
+        int[] edges = Workloads.edges(Workloads.RANDOM, artists, songs, 9);
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        for (int e = 0; e < edges.length; e += 2) {
+            project.insertPair(artistNames[edges[e]], songNames[edges[e
+                + 1]]);
+        }
+        keys = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i += 2) {
+            keys[i] = songNames[(int)(i * 7919L % songs)];
+            keys[i + 1] = missing[i / 2];
+        }
+
+        snapshot = Files.createTempFile("catalog", ".bin");
+        indexFile = Files.createTempFile("catalog", ".idx");
+        ProjectSnapshot.save(project, snapshot);
+        MappedIndex.write(project, indexFile);
+        System.out.println("Snapshot: " + Files.size(snapshot)
+            + " bytes, index: " + Files.size(indexFile) + " bytes");
+        loaded = loadSnapshot();
+        index = openIndex();
+    }
+
+
+    /**
+     * Deletes both files.
+     *
+     * @throws IOException
+     *             if the files cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(indexFile);
+    }
+
+
+    /**
+     * Becomes ready by loading the snapshot onto the heap.
+     *
+     * @return the project
+     * @throws IOException
+     *             if the snapshot cannot be read
+     */
+    @Benchmark
+    public GraphProject loadSnapshot() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        ProjectSnapshot.load(project, snapshot);
+        return project;
+    }
+
+
+    /**
+     * Becomes ready by mapping the index.
+     *
+     * @return the index
+     * @throws IOException
+     *             if the index cannot be mapped
+     */
+    @Benchmark
+    public MappedIndex openIndex() throws IOException {
+        return MappedIndex.open(indexFile);
+    }
+
+
+    /**
+     * Looks up the keys in the loaded song table.
+     *
+     * @return the number of hits
+     */
+    @Benchmark
+    public int searchTable() {
+        ExtensibleHashTable table = loaded.songTable();
+        int hits = 0;
+        for (String key : keys) {
+            if (table.search(key) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+
+    /**
+     * Looks up the keys in the mapped song table.
+     *
+     * @return the number of hits
+     */
+    @Benchmark
+    public int searchIndex() {
+        MappedIndex.Table table = index.songs();
+        int hits = 0;
+        for (String key : keys) {
+            if (table.search(key) >= 0) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,100 @@
+package prj4;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Replays a command file of inserts and prints into a fresh GraphProject
+ * with each OutputSink. System.out is replaced by an autoflushing
+ * PrintStream on /dev/null, set up like the real console, so console pays
+ * println's lock, encoder and write call on every line while buffered pays
+ * them once per block.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputSinkBenchmark {
+    /** The sink GraphProject prints to */
+    @Param({ "console", "buffered", "count", "null" })
+    public String sink;
+
+    /** Songs in the command file; there are a tenth as many artists */
+    @Param({ "20000" })
+    public int songs;
+
+    private String[] commands;
+
+    /**
+     * Generates the commands and points System.out at /dev/null.
+     *
+     * @throws IOException
+     *             if /dev/null cannot be opened
+     */
+    @Setup
+    public void setUp() throws IOException {
+        System.setOut(new PrintStream(new BufferedOutputStream(
+            new FileOutputStream("/dev/null")), true));
+        int artists = songs / 10;
+        String[] artistNames = Workloads.keys(artists, 24, "artist", 7);
+        String[] songNames = Workloads.keys(songs, 24, "song", 8);
+        int[] edges = Workloads.edges(Workloads.RANDOM, artists, songs, 9);
+        commands = new String[edges.length / 2 + 3];
+        int c = 0;
+        for (int e = 0; e < edges.length; e += 2) {
+            commands[c++] = "insert " + artistNames[edges[e]] + "<SEP>"
+                + songNames[edges[e + 1]];
+        }
+        commands[c++] = "print artist";
+        commands[c++] = "print song";
+        commands[c++] = "print graph";
+    }
+
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+
+    /**
+     * Runs every command and flushes the sink.
+     *
+     * @return the project
+     */
+    @Benchmark
+    public GraphProject replay() {
+        GraphProject project = new GraphProject(10, newSink());
+        for (String command : commands) {
+            project.processCommand(command);
+        }
+        project.flush();
+        return project;
+    }
+
+
+    private OutputSink newSink() {
+        switch (sink) {
+            case "console":
+                return OutputSink.CONSOLE;
+            case "buffered":
+                return new BufferedOutputSink(System.out);
+            case "count":
+                return new CountingOutputSink();
+            default:
+                return OutputSink.NULL;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Allocation and time of the graph statistics behind "print graph". The
+ * baseline counts edges the way printGraph used to, through a stream and a
+ * getEdges() copy per node; the current version reads degree(). Run with
+ * -prof gc and compare gc.alloc.rate.norm.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrintGraphBenchmark {
+    /** Shape of the graph, see Workloads.edges */
+    @Param({ Workloads.STAR, Workloads.RANDOM })
+    public String shape;
+
+    /** Number of songs; there are a tenth as many artists */
+    @Param({ "20000" })
+    public int songs;
+
+    private Graph graph;
+
+    /**
+     * Builds the graph.
+     */
+    @Setup
+    public void setUp() {
+        Workloads.silence();
+        int artists = songs / 10;
+        graph = new Graph();
+        Workloads.fill(graph, Workloads.keys(artists, 16, "artist", 4),
+            Workloads.keys(songs, 24, "song", 5), Workloads.edges(shape,
+                artists, songs, 6));
+    }
+
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+
+    /**
+     * Prints node and edge counts with the current printGraph.
+     *
+     * @return the graph
+     */
+    @Benchmark
+    public Graph printGraph() {
+        graph.printGraph();
+        return graph;
+    }
+
+
+    /**
+     * Prints node and edge counts the way printGraph used to.
+     *
+     * @return the edge count
+     */
+    @Benchmark
+    public int legacyPrintGraph() {
+        int edgeCount = graph.getNodes().stream().mapToInt(n -> n.getEdges()
+            .size()).sum() / 2;
+        System.out.println("Total nodes: " + graph.getNodes().size());
+        System.out.println("Total edges: " + edgeCount);
+        return edgeCount;
+    }
+
+
+    /**
+     * Prints the component statistics, as the print graph command does.
+     *
+     * @return the graph
+     */
+    @Benchmark
+    public Graph analyzeComponents() {
+        graph.analyzeComponents();
+        return graph;
+    }
+}
@@ -0,0 +1,99 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the arithmetic of a quadratic probe sequence on its own: reducing
+ * an sfold sum to a home slot and walking the first few probes from it. The
+ * baseline divides for the home slot and again for every probe, as the
+ * tables did before; the current code reduces with a cached reciprocal and
+ * steps between probes by adding odd numbers.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProbeBenchmark {
+    /** Number of hashes cycled through by each benchmark */
+    private static final int HASH_COUNT = 1024;
+
+    /** Table length, a capacity on the prime ladder */
+    @Param({ "6421", "823117" })
+    public int tableLength;
+
+    /** Probe positions computed per hash */
+    @Param({ "1", "4" })
+    public int probes;
+
+    private long[] hashes;
+    private long reciprocal;
+    private int next;
+
+    /**
+     * Takes the sfold sums of song-length keys.
+     */
+    @Setup
+    public void setUp() {
+        String[] keys = Workloads.keys(HASH_COUNT, 24, "song", 42);
+        hashes = new long[HASH_COUNT];
+        for (int i = 0; i < HASH_COUNT; i++) {
+            hashes[i] = Hash.sfold(keys[i]);
+        }
+        reciprocal = Hash.reciprocal(tableLength);
+    }
+
+
+    /**
+     * Walks the probe sequence with a division per position.
+     *
+     * @return the sum of the probed slots
+     */
+    @Benchmark
+    public int divide() {
+        long hash = nextHash();
+        int home = Hash.reduce(hash, tableLength);
+        int sum = 0;
+        for (int i = 0; i < probes; i++) {
+            sum += (int)((home + (long)i * i) % tableLength);
+        }
+        return sum;
+    }
+
+
+    /**
+     * Walks the probe sequence the way the tables now do.
+     *
+     * @return the sum of the probed slots
+     */
+    @Benchmark
+    public int fastmod() {
+        long hash = nextHash();
+        int index = Hash.reduce(hash, tableLength, reciprocal);
+        int step = 1;
+        int sum = 0;
+        for (int i = 0; i < probes; i++) {
+            sum += index;
+            index += step;
+            if (index >= tableLength) {
+                index -= tableLength;
+            }
+            step += 2;
+            if (step >= tableLength) {
+                step -= tableLength;
+            }
+        }
+        return sum;
+    }
+
+
+    private long nextHash() {
+        next = (next + 1) & (HASH_COUNT - 1);
+        return hashes[next];
+    }
+}
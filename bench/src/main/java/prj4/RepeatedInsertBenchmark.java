@@ -0,0 +1,66 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Inserts of names that are already in the tables, the common case in a
+ * large command file, through GraphProject.processCommand with output
+ * discarded. Run with -prof gc to read the bytes allocated per insert.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepeatedInsertBenchmark {
+    /** Songs named in the command file; there are a tenth as many artists */
+    @Param({ "100000" })
+    public int songs;
+
+    /** Length of artist and song names */
+    @Param({ "24" })
+    public int keyLength;
+
+    private String[] commands;
+    private GraphProject project;
+    private int next;
+
+    /**
+     * Generates the inserts and runs them once, so that every name exists.
+     */
+    @Setup
+    public void setUp() {
+        int artists = songs / 10;
+        String[] artistNames = Workloads.keys(artists, keyLength, "artist",
+            7);
+        String[] songNames = Workloads.keys(songs, keyLength, "song", 8);
+        int[] edges = Workloads.edges(Workloads.RANDOM, artists, songs, 9);
+        commands = new String[edges.length / 2];
+        for (int e = 0; e < edges.length; e += 2) {
+            commands[e / 2] = "insert " + artistNames[edges[e]] + "<SEP>"
+                + songNames[edges[e + 1]];
+        }
+        project = new GraphProject(10, OutputSink.NULL);
+        for (String command : commands) {
+            project.processCommand(command);
+        }
+    }
+
+
+    /**
+     * Inserts the next pair again.
+     */
+    @Benchmark
+    public void insertExisting() {
+        project.processCommand(commands[next]);
+        next++;
+        if (next == commands.length) {
+            next = 0;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Resize storms: fills an ExtensibleHashTable that starts at
+ * initialCapacity with keyCount keys, so every doubling and rehash on the
+ * way up is part of the measurement. The score is per inserted key.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResizeBenchmark {
+    /** Number of keys inserted per invocation */
+    public static final int KEY_COUNT = 100000;
+
+    /** Length of every key */
+    @Param({ "16", "64" })
+    public int keyLength;
+
+    /**
+     * Capacity the table starts at. 1 resizes all the way up; the large
+     * value never resizes and is the baseline.
+     */
+    @Param({ "1", "400000" })
+    public int initialCapacity;
+
+    private String[] keys;
+    private GraphNode node;
+
+    /**
+     * Generates the keys.
+     */
+    @Setup
+    public void setUp() {
+        Workloads.silence();
+        keys = Workloads.keys(KEY_COUNT, keyLength, "k", 3);
+        node = new GraphNode("node", true);
+    }
+
+
+    /**
+     * Puts System.out back.
+     */
+    @TearDown
+    public void tearDown() {
+        Workloads.restore();
+    }
+
+
+    /**
+     * Builds a table from empty.
+     *
+     * @return the filled table
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEY_COUNT)
+    public ExtensibleHashTable fill() {
+        ExtensibleHashTable table = new ExtensibleHashTable(initialCapacity);
+        for (String key : keys) {
+            table.insert(key, node);
+        }
+        return table;
+    }
+}
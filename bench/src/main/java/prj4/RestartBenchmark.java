@@ -0,0 +1,94 @@
+package prj4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Restart time: rebuilding a GraphProject by replaying its inserts against
+ * loading a ProjectSnapshot saved from the same project. The file size of
+ * the snapshot is printed at setup.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RestartBenchmark {
+    /** Songs in the command file; there are a tenth as many artists */
+    @Param({ "100000", "1000000" })
+    public int songs;
+
+    private String[] commands;
+    private Path file;
+
+    /**
+     * Generates the inserts and saves the project they build.
+     *
+     * @throws IOException
+     *             if the snapshot cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        int artists = songs / 10;
+        String[] artistNames = Workloads.keys(artists, 24, "artist", 7);
+        String[] songNames = Workloads.keys(songs, 24, "song", 8);
+        int[] edges = Workloads.edges(Workloads.RANDOM, artists, songs, 9);
+        commands = new String[edges.length / 2];
+        for (int e = 0; e < edges.length; e += 2) {
+            commands[e / 2] = "insert " + artistNames[edges[e]] + "<SEP>"
+                + songNames[edges[e + 1]];
+        }
+        file = Files.createTempFile("restart", ".bin");
+        ProjectSnapshot.save(replay(), file);
+        System.out.println("Snapshot: " + Files.size(file) + " bytes");
+    }
+
+
+    /**
+     * Deletes the snapshot.
+     *
+     * @throws IOException
+     *             if the file cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+
+    /**
+     * Rebuilds the project by running every insert.
+     *
+     * @return the project
+     */
+    @Benchmark
+    public GraphProject replay() {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        for (String command : commands) {
+            project.processCommand(command);
+        }
+        return project;
+    }
+
+
+    /**
+     * Rebuilds the project from the snapshot.
+     *
+     * @return the project
+     * @throws IOException
+     *             if the snapshot cannot be read
+     */
+    @Benchmark
+    public GraphProject load() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        ProjectSnapshot.load(project, file);
+        return project;
+    }
+}
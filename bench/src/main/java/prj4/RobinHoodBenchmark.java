@@ -0,0 +1,102 @@
+package prj4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Quadratic probing at 50% load (ExtensibleHashTable) against Robin Hood
+ * probing at several load factors. Sample mode reports the latency
+ * percentiles of hits and of the misses that processInsert runs before
+ * every new artist or song. The capacity each table ends up with is printed
+ * once per trial for the memory comparison.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RobinHoodBenchmark {
+    /** quadratic, or robinhood-LF for Robin Hood at load factor LF */
+    @Param({ "quadratic", "robinhood-0.5", "robinhood-0.75",
+        "robinhood-0.9" })
+    public String table;
+
+    /** Number of keys in the table */
+    @Param({ "262144" })
+    public int tableSize;
+
+    private String[] present;
+    private String[] absent;
+    private ExtensibleHashTable quadratic;
+    private RobinHoodHashTable robinHood;
+    private int next;
+
+    /**
+     * Fills the table under test.
+     */
+    @Setup
+    public void setUp() {
+        Workloads.silence();
+        present = Workloads.keys(tableSize, 24, "hit", 12);
+        absent = Workloads.keys(tableSize, 24, "miss", 13);
+        GraphNode node = new GraphNode("node", true);
+        int capacity;
+        if ("quadratic".equals(table)) {
+            quadratic = new ExtensibleHashTable(10);
+            for (String key : present) {
+                quadratic.insert(key, node);
+            }
+            capacity = quadratic.capacity();
+        }
+        else {
+            double loadFactor = Double.parseDouble(table.substring(table
+                .indexOf('-') + 1));
+            robinHood = new RobinHoodHashTable(10, loadFactor);
+            for (String key : present) {
+                robinHood.insert(key, node);
+            }
+            capacity = robinHood.capacity();
+        }
+        Workloads.restore();
+        System.out.println("\n" + table + " capacity: " + capacity);
+    }
+
+
+    /**
+     * Looks up a key that is in the table.
+     *
+     * @return the node found
+     */
+    @Benchmark
+    public GraphNode searchHit() {
+        String key = present[advance()];
+        return quadratic != null ? quadratic.search(key) : robinHood.search(
+            key);
+    }
+
+
+    /**
+     * Looks up a key that is not in the table.
+     *
+     * @return null
+     */
+    @Benchmark
+    public GraphNode searchMiss() {
+        String key = absent[advance()];
+        return quadratic != null ? quadratic.search(key) : robinHood.search(
+            key);
+    }
+
+
+    private int advance() {
+        next++;
+        if (next == tableSize) {
+            next = 0;
+        }
+        return next;
+    }
+}
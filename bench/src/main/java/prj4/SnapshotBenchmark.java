@@ -0,0 +1,111 @@
+package prj4;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Traversals of a large artist-song graph, over GraphNode references against
+ * the compressed sparse row snapshot. At five million songs the random shape
+ * has ten million edges. buildSnapshot is the cost paid once after each
+ * change to the graph.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SnapshotBenchmark {
+    /** Number of songs; there are a tenth as many artists */
+    @Param({ "1000000", "5000000" })
+    public int songs;
+
+    private Graph graph;
+    private GraphSnapshot snapshot;
+
+    /**
+     * Builds a random graph with two artists per song and its snapshot.
+     */
+    @Setup
+    public void setUp() {
+        int artists = songs / 10;
+        graph = new Graph();
+        Workloads.fill(graph, Workloads.keys(artists, 8, "a", 4), Workloads
+            .keys(songs, 8, "s", 5), Workloads.edges(Workloads.RANDOM,
+                artists, songs, 6));
+        snapshot = graph.snapshot();
+    }
+
+
+    /**
+     * Copies the graph into offsets and targets arrays.
+     *
+     * @return the snapshot
+     */
+    @Benchmark
+    public GraphSnapshot buildSnapshot() {
+        return new GraphSnapshot(graph);
+    }
+
+
+    /**
+     * Labels the components of the snapshot.
+     *
+     * @return the number of components
+     */
+    @Benchmark
+    public int scanSnapshot() {
+        return snapshot.scanner().scan();
+    }
+
+
+    /**
+     * Breadth-first search from node 0 following GraphNode references.
+     *
+     * @return the number of nodes reached
+     */
+    @Benchmark
+    public int bfsNodes() {
+        int[] distance = new int[graph.nodeCount()];
+        Arrays.fill(distance, -1);
+        ArrayDeque<GraphNode> queue = new ArrayDeque<>();
+        GraphNode source = graph.getNode(0);
+        distance[source.getId()] = 0;
+        queue.add(source);
+        int reached = 1;
+        while (!queue.isEmpty()) {
+            GraphNode node = queue.poll();
+            for (int i = 0; i < node.degree(); i++) {
+                GraphNode neighbor = node.neighborAt(i);
+                if (distance[neighbor.getId()] < 0) {
+                    distance[neighbor.getId()] = distance[node.getId()] + 1;
+                    queue.add(neighbor);
+                    reached++;
+                }
+            }
+        }
+        return reached;
+    }
+
+
+    /**
+     * Breadth-first search from node 0 over the snapshot.
+     *
+     * @return the number of nodes reached
+     */
+    @Benchmark
+    public int bfsSnapshot() {
+        int reached = 0;
+        for (int d : snapshot.distancesFrom(0)) {
+            if (d >= 0) {
+                reached++;
+            }
+        }
+        return reached;
+    }
+}
@@ -0,0 +1,162 @@
+package prj4;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * Shared input generators for the benchmarks: distinct keys of a fixed
+ * length, artist/song edge lists in a few graph shapes, and a way to keep
+ * the project's console output from being part of the measurement.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+final class Workloads {
+    /** Shapes of artist/song graphs the graph benchmarks can build */
+    static final String STAR = "star";
+    static final String CHAIN = "chain";
+    static final String RANDOM = "random";
+
+    private static final PrintStream CONSOLE = System.out;
+    private static final PrintStream DISCARD = new PrintStream(
+        OutputStream.nullOutputStream());
+
+    private Workloads() {
+    }
+
+
+    /**
+     * Generates distinct printable keys. Each key starts with its index so
+     * no two collide as strings, and is padded with random characters up to
+     * the requested length.
+     *
+     * @param count
+     *            number of keys
+     * @param length
+     *            length of every key (at least enough to hold the index)
+     * @param prefix
+     *            text that starts every key, so hit and miss sets differ
+     * @param seed
+     *            random seed
+     * @return the keys
+     */
+    static String[] keys(int count, int length, String prefix, long seed) {
+        Random random = new Random(seed);
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder(length);
+            sb.append(prefix).append(i).append(' ');
+            while (sb.length() < length) {
+                sb.append((char)('a' + random.nextInt(26)));
+            }
+            keys[i] = sb.toString();
+        }
+        return keys;
+    }
+
+
+    /**
+     * Generates artist/song edges as pairs of indexes into an artist array
+     * and a song array. Every song gets exactly one edge from the shape and
+     * random graphs add a second edge per song.
+     *
+     * star: one artist performs every song.
+     * chain: artist i performs songs i and i+1, one long component.
+     * random: each song has two random performers.
+     *
+     * @param shape
+     *            one of STAR, CHAIN or RANDOM
+     * @param artists
+     *            number of artists
+     * @param songs
+     *            number of songs
+     * @param seed
+     *            random seed
+     * @return pairs {artist, song} flattened into one array
+     */
+    static int[] edges(String shape, int artists, int songs, long seed) {
+        Random random = new Random(seed);
+        int perSong = RANDOM.equals(shape) ? 2 : 1;
+        if (CHAIN.equals(shape)) {
+            perSong = 2;
+        }
+        int[] edges = new int[songs * perSong * 2];
+        int e = 0;
+        for (int s = 0; s < songs; s++) {
+            switch (shape) {
+                case STAR:
+                    edges[e++] = 0;
+                    edges[e++] = s;
+                    break;
+                case CHAIN:
+                    edges[e++] = s % artists;
+                    edges[e++] = s;
+                    edges[e++] = (s + 1) % artists;
+                    edges[e++] = s;
+                    break;
+                case RANDOM:
+                    edges[e++] = random.nextInt(artists);
+                    edges[e++] = s;
+                    edges[e++] = random.nextInt(artists);
+                    edges[e++] = s;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown shape: "
+                        + shape);
+            }
+        }
+        return edges;
+    }
+
+
+    /**
+     * Builds a graph from generated names and edges.
+     *
+     * @param graph
+     *            the graph to fill
+     * @param artistNames
+     *            artist names
+     * @param songNames
+     *            song names
+     * @param edges
+     *            pairs from edges()
+     * @return the artist nodes followed by the song nodes
+     */
+    static GraphNode[] fill(
+        Graph graph,
+        String[] artistNames,
+        String[] songNames,
+        int[] edges) {
+        GraphNode[] nodes = new GraphNode[artistNames.length
+            + songNames.length];
+        for (int i = 0; i < artistNames.length; i++) {
+            nodes[i] = graph.addNode(artistNames[i], true);
+        }
+        for (int i = 0; i < songNames.length; i++) {
+            nodes[artistNames.length + i] = graph.addNode(songNames[i], false);
+        }
+        for (int e = 0; e < edges.length; e += 2) {
+            graph.addEdge(nodes[edges[e]], nodes[artistNames.length + edges[e
+                + 1]]);
+        }
+        return nodes;
+    }
+
+
+    /**
+     * Redirects System.out to a stream that drops everything, so the
+     * diagnostic printing in the project does not dominate the numbers.
+     */
+    static void silence() {
+        System.setOut(DISCARD);
+    }
+
+
+    /**
+     * Restores the console captured when this class was loaded.
+     */
+    static void restore() {
+        System.setOut(CONSOLE);
+    }
+}
@@ -0,0 +1,589 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A hash table with the same interface and probing as FlatHashTable that
+ * keeps its keys as UTF-8 bytes in one growing byte array, the arena,
+ * instead of as String objects. A slot holds its cached hash, a reference
+ * to its key bytes and its node. The table is then four arrays however
+ * many keys it holds, with no per-key objects for the garbage collector to
+ * mark.
+ *
+ * Slot state is encoded in the hash array as in FlatHashTable. The key
+ * array holds each key's arena offset, where the key is stored as its byte
+ * length in seven-bit groups, low group first with the top bit set on all
+ * but the last, followed by the bytes. Lookups compare keys byte by byte in
+ * the arena; an ASCII key is compared without being encoded, any other key
+ * is encoded once. Keys are compared by their UTF-8 encoding, so two keys
+ * that differ only in unpaired surrogates, which the encoder replaces, are
+ * the same key.
+ *
+ * Removal leaves the key's bytes in the arena. Every rebuild, whether it
+ * grows the table or compacts its tombstones, copies the live keys into a
+ * fresh arena, so dead bytes are reclaimed at the same time as tombstones.
+ * The arena is a single array that grows by half when full, and holds at
+ * most 2 GB of keys.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class ArenaHashTable {
+    /** Hash array value of a slot that has never held an entry */
+    static final long EMPTY = 0;
+
+    /** Hash array value of a slot whose entry was removed */
+    static final long TOMBSTONE = -1;
+
+    /** Largest arena the JVM will allocate */
+    private static final int MAX_ARENA = Integer.MAX_VALUE - 8;
+
+    /** Largest arena this table may grow to */
+    private final int maxArena;
+
+    /** Slot states and cached hashes, see the class comment */
+    private long[] hashes;
+
+    /** Arena offsets of the keys of live slots */
+    private int[] keys;
+
+    /** Values of live slots, null otherwise */
+    private GraphNode[] nodes;
+
+    /** UTF-8 bytes of the keys, back to back */
+    private byte[] arena;
+
+    /** Bytes of the arena in use, live and dead */
+    private int arenaUsed;
+
+    /** Hash.reciprocal of the table length */
+    private long reciprocal;
+
+    /** The number of live entries in the table */
+    private int size;
+
+    /** The number of tombstones in the table */
+    private int tombstones;
+
+    /** The load factor threshold that triggers resizing (0.5 = 50%) */
+    private static final double LOAD_FACTOR_THRESHOLD = 0.5;
+
+    /** Fraction of the slots that may be tombstones before compacting */
+    private static final double TOMBSTONE_THRESHOLD = 0.25;
+
+    /** Arena bytes allocated per slot of a new table */
+    private static final int INITIAL_BYTES_PER_SLOT = 4;
+
+    /**
+     * Constructs a new, empty hash table with the specified initial capacity.
+     *
+     * @param capacity
+     *            the initial capacity of the hash table
+     * @throws IllegalArgumentException
+     *             if the initial capacity is not positive
+     */
+    public ArenaHashTable(int capacity) {
+        this(capacity, MAX_ARENA);
+    }
+
+
+    /**
+     * Constructs a table whose arena may not grow past a given size, for
+     * testing.
+     *
+     * @param capacity
+     *            the initial capacity of the hash table
+     * @param maxArena
+     *            the most bytes of keys the arena may hold
+     */
+    ArenaHashTable(int capacity, int maxArena) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                "Initial capacity must be positive");
+        }
+        this.maxArena = maxArena;
+        int length = Primes.atLeast(capacity);
+        allocate(length, (int)Math.min(maxArena, (long)length
+            * INITIAL_BYTES_PER_SLOT));
+    }
+
+
+    /**
+     * Inserts the specified key-value pair into the hash table. If the key
+     * already exists, replaces the existing value and returns the previous
+     * value.
+     *
+     * @param key
+     *            the key to be inserted
+     * @param node
+     *            the value to be associated with the key
+     * @return the previous value associated with the key, or null if the key
+     *         was not present
+     * @throws IllegalArgumentException
+     *             if either key or node is null
+     * @throws IllegalStateException
+     *             if the arena cannot hold the key
+     */
+    public GraphNode insert(String key, GraphNode node) {
+        if (key == null || node == null) {
+            throw new IllegalArgumentException(
+                "Neither key nor value can be null");
+        }
+
+        if ((double)(size + tombstones + 1)
+            / hashes.length >= LOAD_FACTOR_THRESHOLD) {
+            rebuild(Primes.after(hashes.length));
+        }
+
+        long hash = Hash.sfold(key);
+        int index = findSlotForInsert(key, hash);
+        if (hashes[index] > EMPTY) {
+            GraphNode oldNode = nodes[index];
+            nodes[index] = node;
+            return oldNode;
+        }
+
+        // Store the key before touching the slot, so a full arena leaves
+        // the table as it was
+        int at = append(key);
+        if (hashes[index] == TOMBSTONE) {
+            tombstones--;
+        }
+        hashes[index] = hash + 1;
+        keys[index] = at;
+        nodes[index] = node;
+        size++;
+        return null;
+    }
+
+
+    /**
+     * Returns the value associated with the specified key.
+     *
+     * @param key
+     *            the key whose associated value is to be returned
+     * @return the value associated with the key, or null if the key is not
+     *         present
+     */
+    public GraphNode search(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        int index = findSlotForSearch(key, Hash.sfold(key));
+        return index < 0 ? null : nodes[index];
+    }
+
+
+    /**
+     * Removes the key-value pair associated with the specified key. The slot
+     * becomes a tombstone so probe sequences through it stay intact.
+     *
+     * @param key
+     *            the key whose mapping is to be removed
+     * @return the value previously associated with the key, or null if the key
+     *         was not present
+     */
+    public GraphNode remove(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        int index = findSlotForSearch(key, Hash.sfold(key));
+        if (index < 0) {
+            return null;
+        }
+
+        GraphNode removedNode = nodes[index];
+        hashes[index] = TOMBSTONE;
+        keys[index] = 0;
+        nodes[index] = null;
+        size--;
+        tombstones++;
+
+        if (tombstones >= TOMBSTONE_THRESHOLD * hashes.length) {
+            rebuild(hashes.length);
+        }
+        return removedNode;
+    }
+
+
+    /**
+     * Returns the number of live entries in the hash table.
+     *
+     * @return the number of live entries
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the current capacity of the hash table.
+     *
+     * @return the current table capacity
+     */
+    public int capacity() {
+        return hashes.length;
+    }
+
+
+    /**
+     * Prints the contents of the hash table for debugging purposes. Each key
+     * is decoded from the arena as it is printed.
+     *
+     * @param type
+     *            a label describing the type of contents being printed
+     */
+    public void printContents(String type) {
+        printContents(type, OutputSink.CONSOLE);
+    }
+
+
+    /**
+     * Prints the contents of the hash table to the given sink.
+     *
+     * @param type
+     *            a label describing the type of contents being printed
+     * @param out
+     *            where the lines go
+     */
+    public void printContents(String type, OutputSink out) {
+        out.println("Total " + type + " nodes: " + size);
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] > EMPTY) {
+                out.println(i + ": " + key(keys[i]));
+            }
+        }
+    }
+
+
+    /**
+     * Finds the appropriate slot for insertion using quadratic probing.
+     *
+     * @param key
+     *            the key to locate a slot for
+     * @return the index of the slot for the key
+     * @throws IllegalStateException
+     *             if no free slot is reachable
+     */
+    public int findSlotForInsert(String key) {
+        return findSlotForInsert(key, Hash.sfold(key));
+    }
+
+
+    /**
+     * Finds the slot holding a key using quadratic probing.
+     *
+     * @param key
+     *            the key to look for
+     * @return the index of the slot holding the key, or -1 if it is absent
+     */
+    public int findSlotForSearch(String key) {
+        return findSlotForSearch(key, Hash.sfold(key));
+    }
+
+
+    /**
+     * Returns the number of tombstones, for testing purposes.
+     *
+     * @return the number of removed slots not yet reclaimed
+     */
+    int tombstones() {
+        return tombstones;
+    }
+
+
+    /**
+     * Returns the arena bytes in use, for testing purposes.
+     *
+     * @return the bytes of live and removed keys not yet reclaimed
+     */
+    int arenaUsed() {
+        return arenaUsed;
+    }
+
+
+    /**
+     * Probes for the slot holding the key, or else the first tombstone or
+     * empty slot on its probe sequence.
+     */
+    private int findSlotForInsert(String key, long hash) {
+        int tableLength = hashes.length;
+        long stored = hash + 1;
+        int index = Hash.reduce(hash, tableLength, reciprocal);
+        int step = 1;
+        int firstTombstone = -1;
+
+        for (int i = 0; i < tableLength; i++) {
+            long h = hashes[index];
+
+            if (h == EMPTY) {
+                return (firstTombstone != -1) ? firstTombstone : index;
+            }
+            else if (h == TOMBSTONE) {
+                if (firstTombstone == -1) {
+                    firstTombstone = index;
+                }
+            }
+            else if (h == stored && keyEquals(keys[index], key)) {
+                return index;
+            }
+
+            // Step from home + i*i to home + (i+1)*(i+1)
+            index += step;
+            if (index >= tableLength) {
+                index -= tableLength;
+            }
+            step += 2;
+            if (step >= tableLength) {
+                step -= tableLength;
+            }
+        }
+
+        if (firstTombstone != -1) {
+            return firstTombstone;
+        }
+
+        throw new IllegalStateException("Table is full, cannot insert key: "
+            + key);
+    }
+
+
+    /**
+     * Probes for the slot holding the key, stopping at the first empty slot.
+     */
+    private int findSlotForSearch(String key, long hash) {
+        int tableLength = hashes.length;
+        long stored = hash + 1;
+        int index = Hash.reduce(hash, tableLength, reciprocal);
+        int step = 1;
+
+        for (int i = 0; i < tableLength; i++) {
+            long h = hashes[index];
+
+            if (h == EMPTY) {
+                return -1;
+            }
+            if (h == stored && keyEquals(keys[index], key)) {
+                return index;
+            }
+
+            index += step;
+            if (index >= tableLength) {
+                index -= tableLength;
+            }
+            step += 2;
+            if (step >= tableLength) {
+                step -= tableLength;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Compares the arena bytes of the key at an offset with a key.
+     */
+    private boolean keyEquals(int at, String key) {
+        int length = storedLength(at);
+        int offset = at + prefixSize(length);
+        int keyLength = key.length();
+        if (keyLength > length) {
+            // Every char encodes to at least one byte
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                return Arrays.equals(arena, offset, offset + length, bytes, 0,
+                    bytes.length);
+            }
+            if (arena[offset + i] != c) {
+                return false;
+            }
+        }
+        return keyLength == length;
+    }
+
+
+    /**
+     * Copies a key's length and UTF-8 bytes to the end of the arena.
+     *
+     * @return the key's offset
+     */
+    private int append(String key) {
+        int length = key.length();
+        byte[] bytes = null;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) >= 0x80) {
+                bytes = key.getBytes(StandardCharsets.UTF_8);
+                length = bytes.length;
+                break;
+            }
+        }
+
+        int at = arenaUsed;
+        reserve(prefixSize(length) + length);
+        int offset = putLength(at, length);
+        if (bytes != null) {
+            System.arraycopy(bytes, 0, arena, offset, length);
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                arena[offset + i] = (byte)key.charAt(i);
+            }
+        }
+        arenaUsed = offset + length;
+        return at;
+    }
+
+
+    /**
+     * Grows the arena, if needed, to fit the given number of further bytes.
+     */
+    private void reserve(int bytes) {
+        long needed = (long)arenaUsed + bytes;
+        if (needed <= arena.length) {
+            return;
+        }
+        if (needed > maxArena) {
+            throw new IllegalStateException("Key arena is full");
+        }
+        long grown = Math.max(needed, Math.min(arena.length + (arena.length
+            >> 1), maxArena));
+        arena = Arrays.copyOf(arena, (int)grown);
+    }
+
+
+    /**
+     * Decodes the key at an offset.
+     */
+    private String key(int at) {
+        int length = storedLength(at);
+        return new String(arena, at + prefixSize(length), length,
+            StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Reads the length prefix of the key at an offset.
+     */
+    private int storedLength(int at) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = arena[at++];
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        }
+        while (b < 0);
+        return length;
+    }
+
+
+    /**
+     * Writes a length prefix at an offset.
+     *
+     * @return the offset just past the prefix
+     */
+    private int putLength(int at, int length) {
+        while (length >= 0x80) {
+            arena[at++] = (byte)(length | 0x80);
+            length >>>= 7;
+        }
+        arena[at++] = (byte)length;
+        return at;
+    }
+
+
+    /**
+     * Returns the number of bytes in the length prefix of a key.
+     */
+    private static int prefixSize(int length) {
+        int size = 1;
+        while (length >= 0x80) {
+            length >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+
+    /**
+     * Moves the live entries into new arrays of the given length using their
+     * cached hashes, and their keys into a new arena sized for them.
+     * Tombstones and dead key bytes are dropped. Used both to grow the table
+     * and to compact it at the same capacity.
+     */
+    private void rebuild(int length) {
+        long[] oldHashes = hashes;
+        int[] oldKeys = keys;
+        GraphNode[] oldNodes = nodes;
+        byte[] oldArena = arena;
+        int[] sizes = new int[oldHashes.length];
+        long live = 0;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] > EMPTY) {
+                int keyLength = storedLength(oldKeys[i]);
+                sizes[i] = prefixSize(keyLength) + keyLength;
+                live += sizes[i];
+            }
+        }
+        allocate(length, (int)Math.min(maxArena, Math.max(live + (live
+            >> 1), (long)length * INITIAL_BYTES_PER_SLOT)));
+
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] > EMPTY) {
+                int index = emptySlot(oldHashes[i] - 1);
+                System.arraycopy(oldArena, oldKeys[i], arena, arenaUsed,
+                    sizes[i]);
+                hashes[index] = oldHashes[i];
+                keys[index] = arenaUsed;
+                nodes[index] = oldNodes[i];
+                arenaUsed += sizes[i];
+                size++;
+            }
+        }
+    }
+
+
+    /**
+     * Probes for the first empty slot of a hash, for rebuild, where every
+     * key is known to be distinct and there are no tombstones.
+     */
+    private int emptySlot(long hash) {
+        int tableLength = hashes.length;
+        int index = Hash.reduce(hash, tableLength, reciprocal);
+        int step = 1;
+        while (hashes[index] != EMPTY) {
+            index += step;
+            if (index >= tableLength) {
+                index -= tableLength;
+            }
+            step += 2;
+            if (step >= tableLength) {
+                step -= tableLength;
+            }
+        }
+        return index;
+    }
+
+
+    /**
+     * Replaces the arrays with empty ones of the given length and the arena
+     * with an empty one of the given size.
+     */
+    private void allocate(int length, int arenaSize) {
+        hashes = new long[length];
+        keys = new int[length];
+        nodes = new GraphNode[length];
+        arena = new byte[arenaSize];
+        arenaUsed = 0;
+        reciprocal = Hash.reciprocal(length);
+        size = 0;
+        tombstones = 0;
+    }
+}
@@ -0,0 +1,218 @@
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for ArenaHashTable.
+ * Covers the shared hash table behaviour and the key arena.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class ArenaHashTableTest {
+    private ArenaHashTable table;
+    private GraphNode node1;
+    private GraphNode node2;
+    private GraphNode node3;
+
+    /**
+     * Sets up test fixtures before each test method.
+     */
+    @Before
+    public void setUp() {
+        table = new ArenaHashTable(10);
+        node1 = new GraphNode("Artist1", true);
+        node2 = new GraphNode("Artist2", true);
+        node3 = new GraphNode("Artist3", true);
+    }
+
+
+    /**
+     * Tests basic insertion, replacement and retrieval.
+     */
+    @Test
+    public void testInsertAndSearch() {
+        assertNull("Should return null for new key", table.insert("key1",
+            node1));
+        assertEquals("Should find inserted node", node1, table.search("key1"));
+        assertEquals("Should return old node", node1, table.insert("key1",
+            node2));
+        assertEquals("Should store new node", node2, table.search("key1"));
+        assertEquals("Replacing should not change size", 1, table.size());
+        assertEquals("Replacing should not copy the key again", 1 + 4, table
+            .arenaUsed());
+        assertNull("Should not find missing key", table.search("key2"));
+        assertNull("Should not find a prefix", table.search("key"));
+        assertNull("Should not find a longer key", table.search("key12"));
+        assertNull("Should not find null key", table.search(null));
+    }
+
+
+    /**
+     * Tests that keys outside ASCII are stored and compared as UTF-8.
+     */
+    @Test
+    public void testNonAsciiKeys() {
+        String bjork = "Bj\u00f6rk";
+        String emoji = "\ud83c\udfb5 Song";
+        table.insert(bjork, node1);
+        table.insert(emoji, node2);
+        assertEquals(1 + 6 + 1 + 9, table.arenaUsed());
+        assertEquals(node1, table.search(bjork));
+        assertEquals(node2, table.search(emoji));
+        assertNull(table.search("Bj\u00f6rn"));
+        assertNull(table.search("Bj\u00f6"));
+        assertNull(table.search("Bjork"));
+    }
+
+
+    /**
+     * Tests that null keys and values are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertNull() {
+        table.insert("key1", null);
+    }
+
+
+    /**
+     * Tests that colliding keys probe to the same slots as
+     * ExtensibleHashTable.
+     */
+    @Test
+    public void testCollisionMatchesExtensibleHashTable() {
+        ArenaHashTable arena = new ArenaHashTable(5);
+        ExtensibleHashTable boxed = new ExtensibleHashTable(5);
+        arena.insert("a", node1);
+        boxed.insert("a", node1);
+
+        assertEquals("Colliding key should get the same slot", boxed
+            .findSlotForInsert("k"), arena.findSlotForInsert("k"));
+        arena.insert("k", node2);
+        assertEquals(node1, arena.search("a"));
+        assertEquals(node2, arena.search("k"));
+    }
+
+
+    /**
+     * Tests that removal leaves a tombstone that keeps later entries on the
+     * probe path reachable and is reused by the next insert.
+     */
+    @Test
+    public void testRemoveLeavesTombstone() {
+        table.insert("a", node1);
+        table.insert("k", node2); // collides with "a"
+        int slot = table.findSlotForSearch("a");
+
+        assertEquals("Should return removed node", node1, table.remove("a"));
+        assertEquals(1, table.tombstones());
+        assertEquals("Should still find collided node", node2, table.search(
+            "k"));
+        assertNull("Removed key should be gone", table.search("a"));
+        assertNull("Second remove should find nothing", table.remove("a"));
+
+        assertEquals("Insert should reuse the tombstone", slot, table
+            .findSlotForInsert("a"));
+        table.insert("a", node3);
+        assertEquals(0, table.tombstones());
+        assertEquals(2, table.size());
+    }
+
+
+    /**
+     * Tests that resizing keeps every entry and drops tombstones and their
+     * key bytes.
+     */
+    @Test
+    public void testResize() {
+        table.insert("gone", node1);
+        table.remove("gone");
+        for (int i = 0; i < 50; i++) {
+            table.insert("key" + i, new GraphNode("Artist" + i, true));
+        }
+
+        assertTrue("Table should have grown", table.capacity() > 100);
+        assertEquals(50, table.size());
+        assertEquals("Resize should drop tombstones", 0, table.tombstones());
+        assertEquals("Resize should drop dead keys", 10 * 5 + 40 * 6, table
+            .arenaUsed());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("Artist" + i, table.search("key" + i).getName());
+        }
+    }
+
+
+    /**
+     * Tests that insert/remove churn compacts the table and the arena in
+     * place instead of growing them.
+     */
+    @Test
+    public void testChurnCompactsWithoutGrowing() {
+        table.insert("live", node1);
+        int capacity = table.capacity();
+        for (int i = 0; i < 1000; i++) {
+            table.insert("temp" + i, node2);
+            assertEquals(node2, table.remove("temp" + i));
+        }
+
+        assertEquals("Churn should not grow the table", capacity, table
+            .capacity());
+        assertTrue(table.tombstones() <= capacity / 4);
+        assertTrue(table.arenaUsed() <= 5 + capacity / 4 * 8);
+        assertEquals(1, table.size());
+        assertEquals(node1, table.search("live"));
+    }
+
+
+    /**
+     * Tests that long keys grow the arena past its initial size and take
+     * two-byte length prefixes from 128 bytes on.
+     */
+    @Test
+    public void testLongKeys() {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            key.append("0123456789012345678901234567890123456789");
+            table.insert(key.toString(), node1);
+        }
+        assertEquals(40 * 15 + 3 + 2 * 2, table.arenaUsed());
+        assertEquals(node1, table.search(key.toString()));
+        assertNull(table.search(key.substring(1)));
+    }
+
+
+    /**
+     * Tests that an insert the arena cannot hold leaves the table as it
+     * was.
+     */
+    @Test
+    public void testFullArenaLeavesTableIntact() {
+        ArenaHashTable small = new ArenaHashTable(10, 64);
+        String[] keys = { "nineteen-byte-key-0", "nineteen-byte-key-1",
+            "nineteen-byte-key-2" };
+        for (String key : keys) {
+            small.insert(key, node1);
+        }
+        try {
+            small.insert("nineteen-byte-key-3", node2);
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Key arena is full", e.getMessage());
+        }
+
+        assertEquals(3, small.size());
+        assertEquals(60, small.arenaUsed());
+        assertNull(small.search("nineteen-byte-key-3"));
+        List<String> lines = new ArrayList<>();
+        small.printContents("key", lines::add);
+        assertEquals(4, lines.size());
+        for (String key : keys) {
+            assertEquals(node1, small.search(key));
+        }
+        assertNull(small.insert("abc", node2));
+        assertEquals(node2, small.search("abc"));
+    }
+}
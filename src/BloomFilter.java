@@ -0,0 +1,119 @@
+/**
+ * A blocked Bloom filter over sfold sums. It answers whether a key might
+ * have been added; a "no" is always right, a "yes" is wrong with a small
+ * probability that falls as bitsPerKey grows.
+ *
+ * All the bits of one key lie in a single 512-bit block, the size of a
+ * cache line, so a lookup touches one line of memory no matter how many
+ * bits it tests. That costs a little accuracy against a plain Bloom filter
+ * of the same size. Bits are never cleared, so keys cannot be removed; an
+ * owner that removes keys rebuilds the filter from its live keys instead.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public final class BloomFilter {
+    /** Words per block; 8 longs make one 64-byte cache line */
+    private static final int BLOCK_WORDS = 8;
+
+    /** Mask that turns a hash into a bit position within a block */
+    private static final int BLOCK_MASK = BLOCK_WORDS * 64 - 1;
+
+    /** Most bits set per key; more only helps at very large bitsPerKey */
+    private static final int MAX_BITS_PER_KEY_SET = 16;
+
+    /** The blocks, back to back */
+    private final long[] words;
+
+    /** Number of blocks */
+    private final int blocks;
+
+    /** Bits set and tested for each key */
+    private final int probes;
+
+    /**
+     * Constructs an empty filter.
+     *
+     * @param expectedKeys
+     *            the number of keys the filter is sized for
+     * @param bitsPerKey
+     *            bits of filter per expected key
+     * @throws IllegalArgumentException
+     *             if bitsPerKey is not positive
+     */
+    public BloomFilter(int expectedKeys, int bitsPerKey) {
+        if (bitsPerKey <= 0) {
+            throw new IllegalArgumentException("Bits per key must be positive");
+        }
+        long bits = (long)Math.max(expectedKeys, 1) * bitsPerKey;
+        blocks = (int)Math.min((bits + BLOCK_MASK) / (BLOCK_MASK + 1),
+            Integer.MAX_VALUE / BLOCK_WORDS);
+        words = new long[blocks * BLOCK_WORDS];
+        // k = bitsPerKey * ln 2 minimizes the false positive rate
+        probes = Math.max(1, Math.min(MAX_BITS_PER_KEY_SET, (int)Math.round(
+            bitsPerKey * Math.log(2))));
+    }
+
+
+    /**
+     * Adds a key.
+     *
+     * @param hash
+     *            Hash.sfold of the key
+     */
+    public void add(long hash) {
+        long mixed = Hash.mix(hash);
+        int base = block(mixed);
+        int position = (int)mixed;
+        int step = (int)(mixed >>> 32) | 1;
+        for (int i = 0; i < probes; i++) {
+            int bit = position & BLOCK_MASK;
+            // The shift only uses the low six bits of bit
+            words[base + (bit >>> 6)] |= 1L << bit;
+            position += step;
+        }
+    }
+
+
+    /**
+     * Tests whether a key might have been added.
+     *
+     * @param hash
+     *            Hash.sfold of the key
+     * @return false if the key was definitely never added
+     */
+    public boolean mightContain(long hash) {
+        long mixed = Hash.mix(hash);
+        int base = block(mixed);
+        int position = (int)mixed;
+        int step = (int)(mixed >>> 32) | 1;
+        for (int i = 0; i < probes; i++) {
+            int bit = position & BLOCK_MASK;
+            if ((words[base + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+            position += step;
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the size of the filter in bits.
+     *
+     * @return the number of bits
+     */
+    public long bits() {
+        return (long)words.length * 64;
+    }
+
+
+    /**
+     * Picks a key's block from bits of the mixed hash that the in-block
+     * positions do not use, by multiply-shift rather than division.
+     */
+    private int block(long mixed) {
+        long high = Hash.mix(mixed) >>> 32;
+        return (int)((high * blocks) >>> 32) * BLOCK_WORDS;
+    }
+}
@@ -0,0 +1,65 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Test class for BloomFilter.
+ * Covers the no-false-negatives guarantee and the false positive rate at a
+ * typical size.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class BloomFilterTest {
+
+    /**
+     * Tests that every added key is reported as possibly present.
+     */
+    @Test
+    public void testNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000, 8);
+        for (int i = 0; i < 1000; i++) {
+            filter.add(Hash.sfold("artist" + i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain(Hash.sfold("artist" + i)));
+        }
+    }
+
+
+    /**
+     * Tests that with 10 bits per key only a few percent of absent keys
+     * get through, even though sfold sums of the keys are close together.
+     */
+    @Test
+    public void testFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10000, 10);
+        for (int i = 0; i < 10000; i++) {
+            filter.add(Hash.sfold("song" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain(Hash.sfold("missing" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue("False positive rate too high: " + falsePositives,
+            falsePositives < 300);
+    }
+
+
+    /**
+     * Tests sizing and argument checking.
+     */
+    @Test
+    public void testSize() {
+        assertEquals(512, new BloomFilter(0, 10).bits());
+        assertEquals(10240, new BloomFilter(1000, 10).bits());
+        try {
+            new BloomFilter(100, 0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * One pre-parsed line of a command file, as passed from the reading thread
+ * to the executing thread by CommandPipeline. Records are reused: each
+ * ring slot holds one, and parse overwrites every field.
+ *
+ * Only well-formed inserts are taken apart, with the names trimmed and
+ * their sfold sums computed in advance, since they are nearly all of a
+ * large command file. Anything else keeps its trimmed line for
+ * GraphProject.processCommand, which prints the same messages it always
+ * has.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+final class Command {
+    /** What the executor does with a record */
+    enum Op {
+        /** Insert artist and song, both validated */
+        INSERT,
+        /** Run line through processCommand */
+        LINE,
+        /** No more commands follow */
+        END
+    }
+
+    /** The operation */
+    Op op;
+
+    /** The trimmed line, for LINE */
+    String line;
+
+    /** The trimmed artist name, for INSERT */
+    String artist;
+
+    /** Hash.sfold(artist), for INSERT */
+    long artistHash;
+
+    /** The trimmed song name, for INSERT */
+    String song;
+
+    /** Hash.sfold(song), for INSERT */
+    long songHash;
+
+    /** Splits the lines this record is parsed from */
+    private final CommandParser parser = new CommandParser();
+
+    /**
+     * Parses a line read from a command file, the way processCommand and
+     * processInsert split it.
+     *
+     * @param text
+     *            the line, untrimmed
+     */
+    void parse(String text) {
+        String trimmed = text.trim();
+        artist = null;
+        song = null;
+        line = trimmed;
+        op = Op.LINE;
+        parser.parse(trimmed);
+        if (parser.op != CommandParser.Op.INSERT) {
+            return;
+        }
+        op = Op.INSERT;
+        line = null;
+        artist = parser.first.toString();
+        artistHash = Hash.sfold(artist);
+        song = parser.second.toString();
+        songHash = Hash.sfold(song);
+    }
+
+
+    /**
+     * Marks the end of the command stream.
+     */
+    void end() {
+        op = Op.END;
+        line = null;
+        artist = null;
+        song = null;
+    }
+
+
+    /**
+     * Applies an INSERT or LINE record to a project.
+     *
+     * @param project
+     *            the project to update
+     */
+    void execute(GraphProject project) {
+        if (op == Op.INSERT) {
+            project.insertPair(artist, artistHash, song, songHash);
+        }
+        else {
+            project.processCommand(line);
+        }
+    }
+}
@@ -0,0 +1,541 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead log of the commands that change a GraphProject, so that
+ * inserts and removes accepted since the last snapshot survive a crash.
+ *
+ * The file starts with MAGIC and VERSION. Each record is an int payload
+ * length, the int CRC-32 of the payload, and the payload: an op byte and
+ * its names, each an int length and UTF-8 bytes. A LOAD record names a
+ * snapshot file, by its absolute path, whose contents replace the
+ * project's state; checkpoint starts a fresh log with one, so a log on its
+ * own always rebuilds the state it describes, from any working directory.
+ *
+ * Records are group-committed. They collect in memory until batchSize of
+ * them are waiting, or a record arrives syncInterval milliseconds after
+ * the oldest waiting one; then the batch is written and forced to disk in
+ * one call. A batch size of 1 makes every command durable before it is
+ * applied. Larger batches and intervals amortize the force over many
+ * commands, at the cost of losing up to one batch if the machine fails;
+ * sync() and close() commit whatever is waiting.
+ *
+ * A crash can leave a partly written record at the end of the file. open
+ * replays the records up to the first one that is short or fails its
+ * checksum, cuts the file there and appends after it.
+ *
+ * A batch is only dropped from memory once it has been written and forced.
+ * If that fails, the file is cut back to where the batch started and the
+ * batch is kept for the next sync, so no record is lost or left torn in
+ * the middle of the log. The record whose append failed is taken back out
+ * of the batch, because its command is not applied. If the file cannot be
+ * cut back either, the log is marked failed and every later append or
+ * sync throws.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public final class CommandLog implements AutoCloseable {
+    /** First four bytes of a log, "PJ4L" */
+    static final int MAGIC = 0x504A344C;
+
+    /** Format version written by this class */
+    static final int VERSION = 1;
+
+    /** Batch size used by main unless --wal-batch is given */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /** Sync interval used by main unless --wal-interval is given */
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+
+    private static final byte INSERT = 1;
+    private static final byte REMOVE_ARTIST = 2;
+    private static final byte REMOVE_SONG = 3;
+    private static final byte LOAD = 4;
+
+    /** Bytes of header before the first record */
+    private static final int HEADER_SIZE = 8;
+
+    /** Bytes of length and checksum before each payload */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final Path file;
+    private FileChannel channel;
+    private final int batchSize;
+    private final long syncIntervalNanos;
+    private final CRC32 crc = new CRC32();
+
+    /** Records waiting to be committed, in write mode */
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+
+    /** Number of records in pending */
+    private int pendingRecords;
+
+    /** System.nanoTime() when the oldest pending record was added */
+    private long oldestPending;
+
+    /** Records replayed by open */
+    private int replayed;
+
+    /** Number of batches forced to disk */
+    private long syncs;
+
+    /** The error that left the file in an unknown state, or null */
+    private IOException failure;
+
+    private CommandLog(
+        Path file,
+        FileChannel channel,
+        int batchSize,
+        long syncInterval) {
+        this.file = file;
+        this.channel = channel;
+        this.batchSize = batchSize;
+        this.syncIntervalNanos = syncInterval * 1_000_000;
+    }
+
+
+    /**
+     * Opens a log, creating it if needed, and applies its records to a
+     * project. The caller must keep the project from printing or logging
+     * while this runs; GraphProject.openLog does.
+     *
+     * @param file
+     *            the log file
+     * @param batchSize
+     *            records committed together, at least 1
+     * @param syncInterval
+     *            milliseconds a record may wait for its batch to fill, 0
+     *            to wait only for the batch size
+     * @param project
+     *            the project to replay into
+     * @return the log, positioned after its last whole record
+     * @throws IOException
+     *             if the file cannot be read or written, is not a log, or
+     *             a record cannot be applied
+     * @throws IllegalArgumentException
+     *             if batchSize is below 1 or syncInterval is negative
+     */
+    static CommandLog open(
+        Path file,
+        int batchSize,
+        long syncInterval,
+        GraphProject project)
+        throws IOException {
+        if (batchSize < 1 || syncInterval < 0) {
+            throw new IllegalArgumentException(
+                "Batch size must be positive and interval not negative");
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        CommandLog log = new CommandLog(file, channel, batchSize,
+            syncInterval);
+        try {
+            if (channel.size() == 0) {
+                writeHeader(channel);
+            }
+            else {
+                long end = log.replay(project);
+                channel.truncate(end);
+                channel.position(end);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return log;
+    }
+
+
+    /**
+     * Logs an insert.
+     *
+     * @param artist
+     *            the artist name
+     * @param song
+     *            the song name
+     * @throws IOException
+     *             if committing the batch fails
+     */
+    void appendInsert(CharSequence artist, CharSequence song)
+        throws IOException {
+        append(INSERT, artist.toString(), song.toString());
+    }
+
+
+    /**
+     * Logs a remove.
+     *
+     * @param artist
+     *            true to remove an artist, false for a song
+     * @param name
+     *            the name to remove
+     * @throws IOException
+     *             if committing the batch fails
+     */
+    void appendRemove(boolean artist, CharSequence name) throws IOException {
+        append(artist ? REMOVE_ARTIST : REMOVE_SONG, name.toString(), null);
+    }
+
+
+    /**
+     * Logs that the project was replaced by a snapshot.
+     *
+     * @param snapshot
+     *            the snapshot file, as it was given to load; the log keeps
+     *            its absolute path
+     * @throws IOException
+     *             if committing the batch fails
+     */
+    void appendLoad(String snapshot) throws IOException {
+        append(LOAD, absolute(snapshot), null);
+    }
+
+
+    /**
+     * Starts the log over after the project was saved to a snapshot. The
+     * records waiting are committed to this log first, because a crash
+     * before the new log is in place replays this one. A new log holding
+     * only a LOAD record of the snapshot is then written and forced next to
+     * this one and renamed over it, so a crash leaves either the old log or
+     * the new one. If any step fails, this log stays open and in use.
+     *
+     * @param snapshot
+     *            the snapshot file, as it was given to save; the log keeps
+     *            its absolute path
+     * @throws IOException
+     *             if the log cannot be rewritten
+     */
+    void checkpoint(String snapshot) throws IOException {
+        sync();
+        Path next = file.resolveSibling(file.getFileName() + ".next");
+        FileChannel fresh = FileChannel.open(next, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeHeader(fresh);
+            record(LOAD, absolute(snapshot), null);
+            write(fresh);
+            Files.move(next, file, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException | RuntimeException e) {
+            // The LOAD record belongs to the new log only
+            pending.clear();
+            pendingRecords = 0;
+            fresh.close();
+            Files.deleteIfExists(next);
+            throw e;
+        }
+        FileChannel old = channel;
+        channel = fresh;
+        old.close();
+    }
+
+
+    /**
+     * Writes and forces every waiting record.
+     *
+     * @throws IOException
+     *             if the write or force fails
+     */
+    public void sync() throws IOException {
+        checkUsable();
+        if (pendingRecords == 0) {
+            return;
+        }
+        long committed = channel.position();
+        try {
+            write(channel);
+        }
+        catch (IOException e) {
+            // Cut off any part of the batch that reached the file, so the
+            // next sync writes the whole batch again from the same place
+            try {
+                channel.truncate(committed);
+                channel.position(committed);
+            }
+            catch (IOException cut) {
+                e.addSuppressed(cut);
+                failure = e;
+            }
+            throw e;
+        }
+        syncs++;
+    }
+
+
+    /**
+     * Wraps the channel records are written to, for testing failures.
+     *
+     * @param wrapper
+     *            returns a channel that delegates to the one it is given
+     */
+    void wrapChannel(UnaryOperator<FileChannel> wrapper) {
+        channel = wrapper.apply(channel);
+    }
+
+
+    /**
+     * Returns the number of records applied when the log was opened.
+     *
+     * @return the replayed record count
+     */
+    public int replayed() {
+        return replayed;
+    }
+
+
+    /**
+     * Returns the number of batches forced to disk so far.
+     *
+     * @return the sync count
+     */
+    public long syncs() {
+        return syncs;
+    }
+
+
+    /**
+     * Commits the waiting records and closes the file.
+     *
+     * @throws IOException
+     *             if the commit fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+
+    /**
+     * Adds a record to the batch and commits the batch if it is full or
+     * its oldest record has waited long enough.
+     */
+    private void append(byte op, String first, String second)
+        throws IOException {
+        checkUsable();
+        int start = pending.position();
+        record(op, first, second);
+        long now = System.nanoTime();
+        if (pendingRecords++ == 0) {
+            oldestPending = now;
+        }
+        if (pendingRecords >= batchSize || syncIntervalNanos > 0
+            && now - oldestPending >= syncIntervalNanos) {
+            try {
+                sync();
+            }
+            catch (IOException e) {
+                // The caller does not apply a command it could not log
+                pending.position(start);
+                pendingRecords--;
+                throw e;
+            }
+        }
+    }
+
+
+    /**
+     * Throws if an earlier failure left the file in an unknown state.
+     */
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Command log failed earlier: " + failure
+                .getMessage(), failure);
+        }
+    }
+
+
+    /**
+     * Encodes a record at the end of the batch buffer, without counting
+     * it.
+     */
+    private void record(byte op, String first, String second) {
+        byte[] one = first.getBytes(StandardCharsets.UTF_8);
+        byte[] two = second == null
+            ? null
+            : second.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + one.length + (two == null ? 0 : 4 + two.length);
+        ensure(RECORD_HEADER_SIZE + length);
+
+        int start = pending.position();
+        pending.putInt(length);
+        pending.putInt(0);
+        pending.put(op);
+        pending.putInt(one.length);
+        pending.put(one);
+        if (two != null) {
+            pending.putInt(two.length);
+            pending.put(two);
+        }
+        crc.reset();
+        crc.update(pending.array(), start + RECORD_HEADER_SIZE, length);
+        pending.putInt(start + 4, (int)crc.getValue());
+    }
+
+
+    /**
+     * Writes the batch buffer to a channel and forces it, then empties the
+     * batch. If either step fails the batch is left as it was.
+     */
+    private void write(FileChannel target) throws IOException {
+        ByteBuffer batch = pending.duplicate();
+        batch.flip();
+        while (batch.hasRemaining()) {
+            target.write(batch);
+        }
+        target.force(false);
+        pending.clear();
+        pendingRecords = 0;
+    }
+
+
+    /**
+     * Makes room in the batch buffer for a record of the given size.
+     */
+    private void ensure(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending
+                .capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+
+    private static void writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            target.write(header);
+        }
+        target.force(false);
+    }
+
+
+    /**
+     * Resolves a snapshot file against the working directory, so that
+     * replaying from another one finds the same file.
+     */
+    private static String absolute(String snapshot) {
+        return Paths.get(snapshot).toAbsolutePath().toString();
+    }
+
+
+    /**
+     * Applies every whole record to a project.
+     *
+     * @return the file offset just past the last whole record
+     */
+    private long replay(GraphProject project) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = read(0, HEADER_SIZE, size);
+        if (header == null || header.getInt() != MAGIC) {
+            throw new IOException("Not a command log");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported command log version "
+                + version);
+        }
+
+        long position = HEADER_SIZE;
+        while (true) {
+            ByteBuffer recordHeader = read(position, RECORD_HEADER_SIZE, size);
+            if (recordHeader == null) {
+                return position;
+            }
+            int length = recordHeader.getInt();
+            int checksum = recordHeader.getInt();
+            if (length < 5 || length > size - position - RECORD_HEADER_SIZE) {
+                return position;
+            }
+            ByteBuffer payload = read(position + RECORD_HEADER_SIZE, length,
+                size);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if ((int)crc.getValue() != checksum) {
+                return position;
+            }
+            apply(payload, project);
+            replayed++;
+            position += RECORD_HEADER_SIZE + length;
+        }
+    }
+
+
+    /**
+     * Reads bytes at an offset.
+     *
+     * @return the bytes, ready to get, or null if the file ends first
+     */
+    private ByteBuffer read(long offset, int length, long size)
+        throws IOException {
+        if (size - offset < length) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Command log changed while reading");
+            }
+        }
+        return buffer.flip();
+    }
+
+
+    /**
+     * Applies one checked payload.
+     */
+    private static void apply(ByteBuffer payload, GraphProject project)
+        throws IOException {
+        byte op = payload.get();
+        String first = string(payload);
+        switch (op) {
+            case INSERT:
+                project.insertPair(first, string(payload));
+                break;
+            case REMOVE_ARTIST:
+                project.removeEntry(true, first);
+                break;
+            case REMOVE_SONG:
+                project.removeEntry(false, first);
+                break;
+            case LOAD:
+                ProjectSnapshot.load(project, Paths.get(first));
+                break;
+            default:
+                throw new IOException("Unknown command log record " + op);
+        }
+    }
+
+
+    private static String string(ByteBuffer payload) throws IOException {
+        int length = payload.getInt();
+        if (length < 0 || length > payload.remaining()) {
+            throw new IOException("Corrupt command log record");
+        }
+        String value = new String(payload.array(), payload.position(), length,
+            StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+}
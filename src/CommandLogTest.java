@@ -0,0 +1,620 @@
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for CommandLog and the command log support in GraphProject.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class CommandLogTest {
+    private static final String[] COMMANDS = { "insert A<SEP>S1",
+        "insert A<SEP>S2", "insert B<SEP>S2", "insert J\u00f6rg<SEP>S3",
+        "remove song S1", "remove artist Nobody", "insert broken",
+        "remove album A", "insert C<SEP>S1" };
+
+    private static final String[] PRINTS = { "print artist", "print song",
+        "print graph" };
+
+    private Path file;
+    private Path snapshot;
+
+    /**
+     * Picks the log and snapshot files.
+     *
+     * @throws IOException
+     *             if the files cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("commands", ".wal");
+        Files.delete(file);
+        snapshot = Files.createTempFile("snapshot", ".bin");
+    }
+
+
+    /**
+     * Deletes the log and snapshot files.
+     *
+     * @throws IOException
+     *             if the files cannot be deleted
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(snapshot);
+    }
+
+
+    /**
+     * Tests that replaying the log rebuilds the project.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     */
+    @Test
+    public void testReplay() throws IOException {
+        GraphProject original = new GraphProject(10, OutputSink.NULL);
+        assertEquals(0, original.openLog(file, 1, 0));
+        run(original, COMMANDS);
+        original.closeLog();
+
+        StringBuilder printed = new StringBuilder();
+        GraphProject restarted = new GraphProject(10, line -> printed.append(
+            line).append('\n'));
+        // Accepted inserts and removes only: 5 inserts and 2 removes
+        assertEquals(7, restarted.openLog(file, 1, 0));
+        assertEquals("", printed.toString());
+        assertEquals(output(original, PRINTS), output(restarted, PRINTS));
+
+        run(restarted, new String[] { "insert D<SEP>S4" });
+        restarted.closeLog();
+        GraphProject again = new GraphProject(10, OutputSink.NULL);
+        assertEquals(8, again.openLog(file, 1, 0));
+        again.closeLog();
+    }
+
+
+    /**
+     * Tests that records are committed in batches.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     */
+    @Test
+    public void testGroupCommit() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.openLog(file, 4, 0);
+        long header = Files.size(file);
+        run(project, Arrays.copyOf(COMMANDS, 3));
+        assertEquals(0, project.log().syncs());
+        assertEquals(header, Files.size(file));
+
+        run(project, new String[] { COMMANDS[3] });
+        assertEquals(1, project.log().syncs());
+        long batch = Files.size(file);
+        assertTrue(batch > header);
+
+        run(project, new String[] { COMMANDS[4] });
+        assertEquals(batch, Files.size(file));
+        project.closeLog();
+        assertTrue(Files.size(file) > batch);
+    }
+
+
+    /**
+     * Tests that a record waiting past the interval commits its batch.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     * @throws InterruptedException
+     *             if interrupted while sleeping
+     */
+    @Test
+    public void testSyncInterval() throws IOException, InterruptedException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.openLog(file, 1000, 5);
+        run(project, new String[] { COMMANDS[0] });
+        assertEquals(0, project.log().syncs());
+        Thread.sleep(10);
+        run(project, new String[] { COMMANDS[1] });
+        assertEquals(1, project.log().syncs());
+        project.closeLog();
+    }
+
+
+    /**
+     * Tests that a torn or corrupt tail is cut off and appended after.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     */
+    @Test
+    public void testTornTail() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.openLog(file, 1, 0);
+        run(project, Arrays.copyOf(COMMANDS, 2));
+        long twoRecords = Files.size(file);
+        run(project, new String[] { COMMANDS[2] });
+        project.closeLog();
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        GraphProject torn = new GraphProject(10, OutputSink.NULL);
+        assertEquals(2, torn.openLog(file, 1, 0));
+        assertEquals(twoRecords, Files.size(file));
+        run(torn, new String[] { "insert B<SEP>S2" });
+        torn.closeLog();
+        assertArrayEquals(bytes, Files.readAllBytes(file));
+
+        // Flip a payload byte of the second record
+        bytes[(int)twoRecords - 1] ^= 1;
+        Files.write(file, bytes);
+        GraphProject corrupt = new GraphProject(10, OutputSink.NULL);
+        assertEquals(1, corrupt.openLog(file, 1, 0));
+        corrupt.closeLog();
+    }
+
+
+    /**
+     * Tests that saving a snapshot starts the log over from it.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     */
+    @Test
+    public void testCheckpoint() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.openLog(file, 1, 0);
+        run(project, COMMANDS);
+        long full = Files.size(file);
+        run(project, new String[] { "save " + snapshot, "insert E<SEP>S9",
+            "remove artist A" });
+        assertTrue(Files.size(file) < full);
+        project.closeLog();
+
+        GraphProject restarted = new GraphProject(10, OutputSink.NULL);
+        assertEquals(3, restarted.openLog(file, 1, 0));
+        assertEquals(output(project, PRINTS), output(restarted, PRINTS));
+        restarted.closeLog();
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName()
+            + ".next")));
+    }
+
+
+    /**
+     * Tests that a checkpoint that fails keeps the records waiting in the
+     * old log, and that the old log stays usable.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     */
+    @Test
+    public void testFailedCheckpointKeepsLog() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.openLog(file, 100, 0);
+        run(project, COMMANDS);
+        Path next = file.resolveSibling(file.getFileName() + ".next");
+        Files.createDirectory(next);
+        try {
+            run(project, new String[] { "save " + snapshot,
+                "insert E<SEP>S9" });
+        }
+        finally {
+            Files.delete(next);
+        }
+        project.closeLog();
+
+        GraphProject restarted = new GraphProject(10, OutputSink.NULL);
+        restarted.openLog(file, 1, 0);
+        assertEquals(output(project, PRINTS), output(restarted, PRINTS));
+        restarted.closeLog();
+    }
+
+
+    /**
+     * Tests that the log names a snapshot by its absolute path, so it can
+     * be replayed from another working directory.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     */
+    @Test
+    public void testSnapshotPathIsAbsolute() throws IOException {
+        Path relative = Paths.get("").toAbsolutePath().relativize(snapshot
+            .toAbsolutePath());
+        assertFalse(relative.isAbsolute());
+        Path absolute = relative.toAbsolutePath();
+
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.openLog(file, 1, 0);
+        run(project, new String[] { "insert A<SEP>S1", "save " + relative });
+        project.closeLog();
+        String logged = new String(Files.readAllBytes(file),
+            StandardCharsets.UTF_8);
+        assertTrue(logged.contains(absolute.toString()));
+
+        project.openLog(file, 1, 0);
+        run(project, new String[] { "load " + relative });
+        project.closeLog();
+        logged = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        int checkpoint = logged.indexOf(absolute.toString());
+        assertTrue(logged.indexOf(absolute.toString(), checkpoint + 1) > 0);
+    }
+
+
+    /**
+     * Tests that a sync that fails partway cuts the file back and keeps the
+     * batch for the next sync, without the record whose append failed.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     */
+    @Test
+    public void testFailedSyncIsRetried() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.openLog(file, 4, 0);
+        run(project, new String[] { "insert A<SEP>S1", "insert A<SEP>S2",
+            "insert B<SEP>S2" });
+        FailingChannel[] failing = new FailingChannel[1];
+        project.log().wrapChannel(channel -> failing[0] = new FailingChannel(
+            channel, false));
+
+        run(project, new String[] { "insert C<SEP>S3" });
+        assertNull(project.artistTable().search("C"));
+        assertEquals(0, project.log().syncs());
+        run(project, new String[] { "insert D<SEP>S4" });
+        assertEquals(1, project.log().syncs());
+        project.closeLog();
+        assertTrue(failing[0].failed);
+
+        GraphProject restarted = new GraphProject(10, OutputSink.NULL);
+        assertEquals(4, restarted.openLog(file, 1, 0));
+        assertEquals(output(project, PRINTS), output(restarted, PRINTS));
+        restarted.closeLog();
+    }
+
+
+    /**
+     * Tests that an insert whose record cannot be written reports the log
+     * error and is not applied.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     */
+    @Test
+    public void testFailedInsertAppend() throws IOException {
+        StringBuilder printed = new StringBuilder();
+        GraphProject project = new GraphProject(10, line -> printed.append(
+            line).append('\n'));
+        project.openLog(file, 1, 0);
+        project.log().wrapChannel(channel -> new FailingChannel(channel,
+            false));
+
+        run(project, new String[] { "insert A<SEP>S1" });
+        assertEquals("Error writing command log: Injected write failure\n",
+            printed.toString());
+        assertNull(project.artistTable().search("A"));
+        assertNull(project.songTable().search("S1"));
+        run(project, new String[] { "insert B<SEP>S2" });
+        assertNotNull(project.artistTable().search("B"));
+        project.closeLog();
+
+        GraphProject restarted = new GraphProject(10, OutputSink.NULL);
+        assertEquals(1, restarted.openLog(file, 1, 0));
+        assertEquals(output(project, PRINTS), output(restarted, PRINTS));
+        restarted.closeLog();
+    }
+
+
+    /**
+     * Tests that a sync whose partial write cannot be cut back stops the
+     * log, so nothing is appended after the torn record.
+     *
+     * @throws IOException
+     *             if the log cannot be used
+     */
+    @Test
+    public void testUnrecoverableSyncStopsLog() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.openLog(file, 2, 0);
+        run(project, new String[] { "insert A<SEP>S1", "insert A<SEP>S2",
+            "insert B<SEP>S2" });
+        project.log().wrapChannel(channel -> new FailingChannel(channel,
+            true));
+
+        CommandLog log = project.log();
+        try {
+            log.appendInsert("C", "S3");
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals("Injected write failure", e.getMessage());
+        }
+        try {
+            log.sync();
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals("Command log failed earlier: Injected write failure",
+                e.getMessage());
+        }
+        run(project, new String[] { "insert D<SEP>S4" });
+        assertNull(project.artistTable().search("D"));
+        try {
+            project.closeLog();
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            // expected
+        }
+
+        // Replay keeps whatever whole records reached the file and stops at
+        // the torn one
+        GraphProject restarted = new GraphProject(10, OutputSink.NULL);
+        restarted.openLog(file, 1, 0);
+        assertNotNull(restarted.artistTable().search("A"));
+        assertNull(restarted.artistTable().search("C"));
+        assertNull(restarted.artistTable().search("D"));
+        restarted.closeLog();
+    }
+
+
+    /**
+     * Tests that a file that is not a log is rejected.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Test
+    public void testNotALog() throws IOException {
+        Files.write(file, "insert A<SEP>B\n".getBytes());
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        try {
+            project.openLog(file, 1, 0);
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals("Not a command log", e.getMessage());
+        }
+        assertNull(project.log());
+        try {
+            project.openLog(file, 0, 0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+
+    /**
+     * Tests the --wal options of main across a restart.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void testMainOptions() throws IOException {
+        Path first = Files.createTempFile("first", ".txt");
+        Path second = Files.createTempFile("second", ".txt");
+        try {
+            Files.write(first, "insert A<SEP>B\ninsert C<SEP>B\n".getBytes());
+            Files.write(second, "insert A<SEP>D\nprint graph\n".getBytes());
+            captureMain("--wal=" + file, "--wal-batch=2", "10", first
+                .toString());
+            String restarted = captureMain("--wal=" + file,
+                "--wal-interval=0", "10", second.toString());
+            String line = System.lineSeparator();
+            assertEquals("Replayed 2 logged commands from " + file + line
+                + "Successfully inserted A and D into the database" + line
+                + "Number of connected components: 1" + line
+                + "Largest component size: 4" + line, restarted);
+            assertTrue(captureMain("--wal-batch=0", "10", first.toString())
+                .startsWith("Usage"));
+        }
+        finally {
+            Files.delete(first);
+            Files.delete(second);
+        }
+    }
+
+
+    private static void run(GraphProject project, String[] commands) {
+        for (String command : commands) {
+            project.processCommand(command);
+        }
+    }
+
+
+    /**
+     * Runs commands against a project's state with output captured, and
+     * returns what they printed.
+     */
+    private static String output(GraphProject project, String[] commands) {
+        StringBuilder printed = new StringBuilder();
+        GraphProject printing = new GraphProject(10, line -> printed.append(
+            line).append('\n'));
+        printing.restore(project.artistTable(), project.songTable(), project
+            .graph());
+        run(printing, commands);
+        return printed.toString();
+    }
+
+
+    /**
+     * Runs main and returns what it printed.
+     */
+    private static String captureMain(String... args) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(bytes));
+            GraphProject.main(args);
+        }
+        finally {
+            System.setOut(console);
+        }
+        return bytes.toString();
+    }
+
+
+    /**
+     * A channel that passes everything to another one, except that its
+     * first write sends only part of the bytes and then fails. If cutFails
+     * is set, truncating fails as well.
+     */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel channel;
+        private final boolean cutFails;
+        private boolean failed;
+
+        FailingChannel(FileChannel channel, boolean cutFails) {
+            this.channel = channel;
+            this.cutFails = cutFails;
+        }
+
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failed) {
+                return channel.write(src);
+            }
+            failed = true;
+            ByteBuffer part = src.duplicate();
+            part.limit(part.position() + part.remaining() / 2);
+            channel.write(part);
+            throw new IOException("Injected write failure");
+        }
+
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (cutFails) {
+                throw new IOException("Injected truncate failure");
+            }
+            channel.truncate(size);
+            return this;
+        }
+
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length)
+            throws IOException {
+            return channel.read(dsts, offset, length);
+        }
+
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length)
+            throws IOException {
+            return channel.write(srcs, offset, length);
+        }
+
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            channel.force(metaData);
+        }
+
+
+        @Override
+        public long transferTo(
+            long position,
+            long count,
+            WritableByteChannel target)
+            throws IOException {
+            return channel.transferTo(position, count, target);
+        }
+
+
+        @Override
+        public long transferFrom(
+            ReadableByteChannel src,
+            long position,
+            long count)
+            throws IOException {
+            return channel.transferFrom(src, position, count);
+        }
+
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return channel.write(src, position);
+        }
+
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size)
+            throws IOException {
+            return channel.map(mode, position, size);
+        }
+
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared)
+            throws IOException {
+            return channel.lock(position, size, shared);
+        }
+
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared)
+            throws IOException {
+            return channel.tryLock(position, size, shared);
+        }
+
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            channel.close();
+        }
+    }
+}
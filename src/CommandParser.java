@@ -0,0 +1,248 @@
+/**
+ * A hand-written parser of command lines that fills one reusable record
+ * instead of splitting the line into new Strings. The record is an opcode
+ * and up to two views into the line: the artist and song of an insert, the
+ * name of a remove, the file of a save or load, or the text an error
+ * message quotes. Parsing allocates nothing, and a view is valid until the
+ * next parse.
+ *
+ * The rules are the ones processCommand always applied with String.split
+ * and String.trim, so every line gets the same result and message as
+ * before:
+ *
+ * <ul>
+ * <li>The command is the text before the first space, the arguments all
+ * of the text after it.</li>
+ * <li>An insert's arguments are split on &lt;SEP&gt;, where empty fields
+ * after the song are dropped, and must leave exactly two fields. Both
+ * names are trimmed and must not be empty.</li>
+ * <li>A remove's arguments are split at their first space into a type,
+ * artist or song, and a name, which may be empty.</li>
+ * <li>A print's arguments must be exactly artist, song or graph.</li>
+ * <li>A save or load takes all of its arguments, untrimmed, as the file,
+ * which must not be empty.</li>
+ * </ul>
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+final class CommandParser {
+    /** What a parsed line asks for, or what is wrong with it */
+    enum Op {
+        /** Insert first as artist and second as song */
+        INSERT,
+        /** Remove the artist named first */
+        REMOVE_ARTIST,
+        /** Remove the song named first */
+        REMOVE_SONG,
+        /** Print the artist table */
+        PRINT_ARTIST,
+        /** Print the song table */
+        PRINT_SONG,
+        /** Print the connected components */
+        PRINT_GRAPH,
+        /** Save a snapshot to the file first */
+        SAVE,
+        /** Load a snapshot from the file first */
+        LOAD,
+        /** The command first is not known */
+        UNKNOWN_COMMAND,
+        /** An insert with blank arguments */
+        EMPTY_INSERT,
+        /** An insert that does not split into two fields */
+        BAD_INSERT,
+        /** An insert whose artist is blank */
+        EMPTY_ARTIST,
+        /** An insert whose song is blank */
+        EMPTY_SONG,
+        /** A remove without a space in its arguments */
+        BAD_REMOVE,
+        /** A remove whose type first is not artist or song */
+        BAD_REMOVE_TYPE,
+        /** A print whose arguments first are not a known option */
+        BAD_PRINT,
+        /** A save without a file */
+        BAD_SAVE,
+        /** A load without a file */
+        BAD_LOAD
+    }
+
+    private static final String SEP = "<SEP>";
+
+    /** The result of the last parse */
+    Op op;
+
+    /** The artist, name, file or quoted text, as given by op */
+    final NameSlice first = new NameSlice();
+
+    /** The song of an insert */
+    final NameSlice second = new NameSlice();
+
+    /**
+     * Parses a whole command line.
+     *
+     * @param line
+     *            the line, already trimmed by the reader
+     */
+    void parse(String line) {
+        int end = line.length();
+        int space = line.indexOf(' ');
+        int commandEnd = space < 0 ? end : space;
+        int args = space < 0 ? end : space + 1;
+
+        if (matches(line, 0, commandEnd, "insert")) {
+            parseInsert(line, args);
+        }
+        else if (matches(line, 0, commandEnd, "remove")) {
+            parseRemove(line, args, end);
+        }
+        else if (matches(line, 0, commandEnd, "print")) {
+            parsePrint(line, args, end);
+        }
+        else if (matches(line, 0, commandEnd, "save")) {
+            parseFile(line, args, end, Op.SAVE, Op.BAD_SAVE);
+        }
+        else if (matches(line, 0, commandEnd, "load")) {
+            parseFile(line, args, end, Op.LOAD, Op.BAD_LOAD);
+        }
+        else {
+            op = Op.UNKNOWN_COMMAND;
+            first.set(line, 0, commandEnd);
+        }
+    }
+
+
+    /**
+     * Parses the arguments of an insert, which start at position from of
+     * text and run to its end.
+     *
+     * @param text
+     *            the text holding the arguments
+     * @param from
+     *            where the arguments start
+     */
+    void parseInsert(String text, int from) {
+        int end = text.length();
+        if (skipSpace(text, from, end) == end) {
+            op = Op.EMPTY_INSERT;
+            return;
+        }
+
+        int sep = text.indexOf(SEP, from);
+        int songFrom = sep + SEP.length();
+        int songTo = sep < 0 ? -1 : text.indexOf(SEP, songFrom);
+        if (songTo < 0) {
+            songTo = end;
+        }
+        if (sep < 0 || songTo == songFrom || !onlySeparators(text, songTo,
+            end)) {
+            op = Op.BAD_INSERT;
+            return;
+        }
+
+        int artistFrom = skipSpace(text, from, sep);
+        int artistTo = trimEnd(text, artistFrom, sep);
+        songFrom = skipSpace(text, songFrom, songTo);
+        songTo = trimEnd(text, songFrom, songTo);
+        if (artistFrom == artistTo) {
+            op = Op.EMPTY_ARTIST;
+            return;
+        }
+        if (songFrom == songTo) {
+            op = Op.EMPTY_SONG;
+            return;
+        }
+
+        op = Op.INSERT;
+        first.set(text, artistFrom, artistTo);
+        second.set(text, songFrom, songTo);
+    }
+
+
+    private void parseRemove(String line, int from, int end) {
+        int space = line.indexOf(' ', from);
+        if (space < 0) {
+            op = Op.BAD_REMOVE;
+            return;
+        }
+        if (matches(line, from, space, "artist")) {
+            op = Op.REMOVE_ARTIST;
+            first.set(line, space + 1, end);
+        }
+        else if (matches(line, from, space, "song")) {
+            op = Op.REMOVE_SONG;
+            first.set(line, space + 1, end);
+        }
+        else {
+            op = Op.BAD_REMOVE_TYPE;
+            first.set(line, from, space);
+        }
+    }
+
+
+    private void parsePrint(String line, int from, int end) {
+        if (matches(line, from, end, "artist")) {
+            op = Op.PRINT_ARTIST;
+        }
+        else if (matches(line, from, end, "song")) {
+            op = Op.PRINT_SONG;
+        }
+        else if (matches(line, from, end, "graph")) {
+            op = Op.PRINT_GRAPH;
+        }
+        else {
+            op = Op.BAD_PRINT;
+            first.set(line, from, end);
+        }
+    }
+
+
+    private void parseFile(String line, int from, int end, Op ok, Op bad) {
+        op = from == end ? bad : ok;
+        first.set(line, from, end);
+    }
+
+
+    /**
+     * Checks whether text from position from up to to is exactly word.
+     */
+    private static boolean matches(String text, int from, int to, String word) {
+        return to - from == word.length() && text.startsWith(word, from);
+    }
+
+
+    /**
+     * Skips the leading characters String.trim would remove.
+     */
+    private static int skipSpace(String text, int from, int to) {
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+
+    /**
+     * Drops the trailing characters String.trim would remove.
+     */
+    private static int trimEnd(String text, int from, int to) {
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+
+    /**
+     * Checks that text from position from to the end is nothing but
+     * separators, the empty fields split drops.
+     */
+    private static boolean onlySeparators(String text, int from, int end) {
+        for (int i = from; i < end; i += SEP.length()) {
+            if (!text.startsWith(SEP, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
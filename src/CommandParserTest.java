@@ -0,0 +1,182 @@
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for CommandParser.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class CommandParserTest {
+    private CommandParser parser;
+
+    /**
+     * Creates the parser.
+     */
+    @Before
+    public void setUp() {
+        parser = new CommandParser();
+    }
+
+
+    /**
+     * Tests that each command is recognised with its arguments.
+     */
+    @Test
+    public void testCommands() {
+        assertParsed("insert Artist<SEP>Song", "INSERT Artist|Song");
+        assertParsed("insert  A b <SEP> S t ", "INSERT A b|S t");
+        assertParsed("remove artist Some One", "REMOVE_ARTIST Some One");
+        assertParsed("remove song ", "REMOVE_SONG ");
+        assertParsed("print artist", "PRINT_ARTIST");
+        assertParsed("print song", "PRINT_SONG");
+        assertParsed("print graph", "PRINT_GRAPH");
+        assertParsed("save /tmp/a b", "SAVE /tmp/a b");
+        assertParsed("load x", "LOAD x");
+    }
+
+
+    /**
+     * Tests that bad lines are classified with the text their message
+     * quotes.
+     */
+    @Test
+    public void testErrors() {
+        assertParsed("", "UNKNOWN_COMMAND ");
+        assertParsed("inserts A<SEP>B", "UNKNOWN_COMMAND inserts");
+        assertParsed("Insert A<SEP>B", "UNKNOWN_COMMAND Insert");
+        assertParsed("insert", "EMPTY_INSERT");
+        assertParsed("insert A<SEP><SEP>B", "BAD_INSERT");
+        assertParsed("insert <SEP>B", "EMPTY_ARTIST");
+        assertParsed("insert A<SEP> <SEP>", "EMPTY_SONG");
+        assertParsed("remove artist", "BAD_REMOVE");
+        assertParsed("remove album X", "BAD_REMOVE_TYPE album");
+        assertParsed("remove  artist X", "BAD_REMOVE_TYPE ");
+        assertParsed("print graph ", "BAD_PRINT graph ");
+        assertParsed("print", "BAD_PRINT ");
+        assertParsed("save", "BAD_SAVE");
+        assertParsed("load ", "BAD_LOAD");
+    }
+
+
+    /**
+     * Tests that every line parses the way String.split and String.trim
+     * took it apart before.
+     */
+    @Test
+    public void testMatchesSplit() {
+        String[] args = { "", " ", "A", "A<SEP>B", " A <SEP> B ",
+            "A<SEP>B<SEP>", "A<SEP>B<SEP><SEP>", "A<SEP>B<SEP>C", "<SEP>",
+            "A<SEP>", "<SEP>B", "A<SEP><SEP>", "artist", "artist ",
+            "artist A", "song  B", " artist A", "graph", "x y z" };
+        String[] commands = { "insert", "remove", "print", "save", "load",
+            "other", "" };
+        for (String command : commands) {
+            for (String arg : args) {
+                String line = command + " " + arg;
+                assertEquals(line, split(line), parsed(line));
+            }
+            assertEquals(command, split(command), parsed(command));
+        }
+    }
+
+
+    /**
+     * Tests that a parse reuses the same views.
+     */
+    @Test
+    public void testViewsReused() {
+        parser.parse("insert A<SEP>B");
+        CharSequence first = parser.first;
+        parser.parse("insert Long Artist<SEP>Long Song");
+        assertSame(first, parser.first);
+        assertEquals("Long Artist", first.toString());
+        assertEquals('S', parser.second.charAt(5));
+        assertEquals("Art", first.subSequence(5, 8));
+    }
+
+
+    private void assertParsed(String line, String expected) {
+        assertEquals(line, expected, parsed(line));
+    }
+
+
+    /**
+     * Describes the parse of a line as its op and the views it sets.
+     */
+    private String parsed(String line) {
+        parser.parse(line);
+        switch (parser.op) {
+            case INSERT:
+                return "INSERT " + parser.first + "|" + parser.second;
+            case REMOVE_ARTIST:
+            case REMOVE_SONG:
+            case SAVE:
+            case LOAD:
+            case UNKNOWN_COMMAND:
+            case BAD_REMOVE_TYPE:
+            case BAD_PRINT:
+                return parser.op + " " + parser.first;
+            default:
+                return parser.op.toString();
+        }
+    }
+
+
+    /**
+     * Describes a line the way processCommand used to take it apart with
+     * split and trim.
+     */
+    private static String split(String line) {
+        String[] parts = line.split(" ", 2);
+        String cmd = parts[0];
+        String args = parts.length > 1 ? parts[1] : "";
+        switch (cmd) {
+            case "insert":
+                if (args.trim().isEmpty()) {
+                    return "EMPTY_INSERT";
+                }
+                String[] names = args.split("<SEP>");
+                if (names.length != 2) {
+                    return "BAD_INSERT";
+                }
+                if (names[0].trim().isEmpty()) {
+                    return "EMPTY_ARTIST";
+                }
+                if (names[1].trim().isEmpty()) {
+                    return "EMPTY_SONG";
+                }
+                return "INSERT " + names[0].trim() + "|" + names[1].trim();
+            case "remove":
+                String[] remove = args.split(" ", 2);
+                if (remove.length != 2) {
+                    return "BAD_REMOVE";
+                }
+                if (remove[0].equals("artist")) {
+                    return "REMOVE_ARTIST " + remove[1];
+                }
+                if (remove[0].equals("song")) {
+                    return "REMOVE_SONG " + remove[1];
+                }
+                return "BAD_REMOVE_TYPE " + remove[0];
+            case "print":
+                switch (args) {
+                    case "artist":
+                        return "PRINT_ARTIST";
+                    case "song":
+                        return "PRINT_SONG";
+                    case "graph":
+                        return "PRINT_GRAPH";
+                    default:
+                        return "BAD_PRINT " + args;
+                }
+            case "save":
+                return args.isEmpty() ? "BAD_SAVE" : "SAVE " + args;
+            case "load":
+                return args.isEmpty() ? "BAD_LOAD" : "LOAD " + args;
+            default:
+                return "UNKNOWN_COMMAND " + cmd;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Runs a command file on two threads: the calling thread reads and parses
+ * lines into a CommandRing, and an executor thread applies them to the
+ * project in order. Reading, trimming, splitting and hashing the names
+ * then overlap with the table and graph updates.
+ *
+ * Every command is executed on the one executor thread in file order, and
+ * nothing else prints while it runs, so the output is the same as reading
+ * the file sequentially.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public final class CommandPipeline {
+    /** Ring slots used by the single-argument constructor */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final GraphProject project;
+    private final int capacity;
+
+    /**
+     * Constructs a pipeline with the default ring size.
+     *
+     * @param project
+     *            the project that runs the commands
+     */
+    public CommandPipeline(GraphProject project) {
+        this(project, DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Constructs a pipeline.
+     *
+     * @param project
+     *            the project that runs the commands
+     * @param capacity
+     *            the number of parsed commands that may wait for the
+     *            executor
+     */
+    public CommandPipeline(GraphProject project, int capacity) {
+        this.project = project;
+        this.capacity = capacity;
+    }
+
+
+    /**
+     * Runs every command the reader supplies and returns once all of them
+     * have been executed.
+     *
+     * @param reader
+     *            the command file
+     * @throws IOException
+     *             if reading fails; the commands read before the failure
+     *             have been executed
+     */
+    public void run(BufferedReader reader) throws IOException {
+        CommandRing ring = new CommandRing(capacity);
+        Executor executor = new Executor(ring);
+        executor.start();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ring.claim().parse(line);
+                ring.publish();
+            }
+        }
+        finally {
+            finish(ring, executor);
+        }
+    }
+
+
+    /**
+     * Tells the executor to stop after the commands already published,
+     * waits for it and rethrows anything it threw.
+     */
+    private static void finish(CommandRing ring, Executor executor) {
+        try {
+            ring.claim().end();
+            ring.publish();
+        }
+        catch (IllegalStateException e) {
+            // The executor has already stopped
+        }
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                executor.join();
+                break;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable failure = executor.failure;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error)failure;
+        }
+    }
+
+
+    /**
+     * The consumer: executes records until it takes END.
+     */
+    private final class Executor extends Thread {
+        private final CommandRing ring;
+
+        /** What stopped the executor early, read after join */
+        private Throwable failure;
+
+        Executor(CommandRing ring) {
+            super("command-executor");
+            this.ring = ring;
+        }
+
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Command command = ring.take();
+                    if (command.op == Command.Op.END) {
+                        ring.release();
+                        return;
+                    }
+                    command.execute(project);
+                    ring.release();
+                }
+            }
+            catch (Throwable t) {
+                failure = t;
+                ring.abort();
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+import static org.junit.Assert.*;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import org.junit.Test;
+
+/**
+ * Test class for CommandPipeline, CommandRing and Command.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class CommandPipelineTest {
+    private static final String COMMANDS = "insert Artist1<SEP>Song1\n"
+        + "  insert   Artist1 <SEP>  Song2  \n" + "insert Artist2<SEP>Song1\n"
+        + "\n" + "insert Artist1Song1\n" + "insert <SEP>Song1\n"
+        + "insert A<SEP>B<SEP>\n" + "insert A<SEP>B<SEP>C\n" + "dance\n"
+        + "remove song Song1\n" + "remove artist Nobody\n" + "print artist\n"
+        + "print song\n" + "print graph\n";
+
+    /**
+     * Tests how lines are parsed into records.
+     */
+    @Test
+    public void testParse() {
+        Command command = new Command();
+        command.parse("  insert  Artist <SEP> Song ");
+        assertEquals(Command.Op.INSERT, command.op);
+        assertEquals("Artist", command.artist);
+        assertEquals(Hash.sfold("Artist"), command.artistHash);
+        assertEquals("Song", command.song);
+        assertEquals(Hash.sfold("Song"), command.songHash);
+        assertNull(command.line);
+
+        command.parse(" insert <SEP>Song ");
+        assertEquals(Command.Op.LINE, command.op);
+        assertEquals("insert <SEP>Song", command.line);
+        assertNull(command.artist);
+
+        command.parse("print graph");
+        assertEquals(Command.Op.LINE, command.op);
+        assertEquals("print graph", command.line);
+
+        command.end();
+        assertEquals(Command.Op.END, command.op);
+    }
+
+
+    /**
+     * Tests that the pipeline prints what sequential processing prints,
+     * with rings of several sizes.
+     *
+     * @throws IOException
+     *             never
+     */
+    @Test
+    public void testSameOutputAsSequential() throws IOException {
+        StringBuilder many = new StringBuilder(COMMANDS);
+        for (int i = 0; i < 3000; i++) {
+            many.append("insert Artist").append(i % 37).append("<SEP>Song")
+                .append(i % 1001).append('\n');
+            if (i % 100 == 0) {
+                many.append("remove artist Artist").append(i % 37).append(
+                    '\n');
+            }
+        }
+        many.append("print graph\n");
+
+        for (String commands : new String[] { COMMANDS, many.toString() }) {
+            String expected = capture(() -> {
+                GraphProject project = new GraphProject(10);
+                try (BufferedReader lines = reader(commands)) {
+                    String line;
+                    while ((line = lines.readLine()) != null) {
+                        project.processCommand(line.trim());
+                    }
+                }
+                catch (IOException e) {
+                    fail(e.getMessage());
+                }
+            });
+            for (int capacity : new int[] { 1, 2, 16, 1024 }) {
+                String actual = capture(() -> {
+                    try {
+                        new CommandPipeline(new GraphProject(10), capacity)
+                            .run(reader(commands));
+                    }
+                    catch (IOException e) {
+                        fail(e.getMessage());
+                    }
+                });
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+
+    /**
+     * Tests that a failed read is reported after the lines before it have
+     * been executed.
+     */
+    @Test
+    public void testReadFailure() {
+        CountingOutputSink counter = new CountingOutputSink();
+        GraphProject project = new GraphProject(10, counter);
+        Reader failing = new Reader() {
+            private final StringReader lines = new StringReader(
+                "insert A<SEP>B\ninsert C<SEP>D\n");
+
+            @Override
+            public int read(char[] buffer, int offset, int length)
+                throws IOException {
+                int read = lines.read(buffer, offset, length);
+                if (read < 0) {
+                    throw new IOException("disk gone");
+                }
+                return read;
+            }
+
+
+            @Override
+            public void close() {
+                // nothing to close
+            }
+        };
+        try {
+            new CommandPipeline(project, 4).run(new BufferedReader(failing));
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals("disk gone", e.getMessage());
+        }
+        assertEquals(2, counter.lines());
+    }
+
+
+    /**
+     * Tests that an exception on the executor thread reaches the caller
+     * even when the reader is blocked on a full ring.
+     *
+     * @throws IOException
+     *             never
+     */
+    @Test
+    public void testExecutorFailure() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL) {
+            @Override
+            public void processCommand(String command) {
+                throw new UnsupportedOperationException(command);
+            }
+        };
+        StringBuilder commands = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            commands.append("print graph\n");
+        }
+        try {
+            new CommandPipeline(project, 2).run(reader(commands.toString()));
+            fail("Expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e) {
+            assertEquals("print graph", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Tests that records come out of the ring in the order they went in.
+     *
+     * @throws InterruptedException
+     *             if interrupted while joining the producer
+     */
+    @Test
+    public void testRingOrder() throws InterruptedException {
+        CommandRing ring = new CommandRing(5);
+        assertEquals(8, ring.capacity());
+        int count = 20000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                ring.claim().parse("line " + i);
+                ring.publish();
+            }
+        });
+        producer.start();
+        for (int i = 0; i < count; i++) {
+            assertEquals("line " + i, ring.take().line);
+            ring.release();
+        }
+        producer.join();
+
+        try {
+            new CommandRing(0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+
+    /**
+     * Tests that waiting on an aborted ring throws.
+     */
+    @Test
+    public void testRingAbort() {
+        CommandRing ring = new CommandRing(1);
+        ring.claim();
+        ring.publish();
+        ring.abort();
+        assertTrue(ring.isAborted());
+        try {
+            ring.claim();
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Command ring aborted", e.getMessage());
+        }
+    }
+
+
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+
+
+    /**
+     * Runs an action and returns what it printed.
+     */
+    private static String capture(Runnable action) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(out));
+            action.run();
+        }
+        finally {
+            System.setOut(console);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded ring of reusable Command records between exactly one producer
+ * thread and one consumer thread.
+ *
+ * The producer claims the next free slot, fills its record and publishes
+ * it; the consumer takes the oldest published record and releases it once
+ * done. Each side owns one counter and only reads the other's, so the
+ * counters need no compare-and-set: a release store after writing a record
+ * and an acquire load before reading it are enough. Each side also caches
+ * the last value it read of the other's counter and only reloads it when
+ * the ring looks full or empty. A side that has to wait spins briefly,
+ * then yields, then parks for short intervals.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+final class CommandRing {
+    /** Waits that spin before yielding */
+    private static final int SPINS = 100;
+
+    /** Waits that yield before parking */
+    private static final int YIELDS = 1000;
+
+    /** Time parked per wait once yielding has not helped */
+    private static final long PARK_NANOS = 50_000;
+
+    private final Command[] slots;
+    private final int mask;
+
+    /** Records taken by the consumer; written only by the consumer */
+    private final AtomicLong head = new AtomicLong();
+
+    /** Records published by the producer; written only by the producer */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** The producer's last read of head */
+    private long cachedHead;
+
+    /** The consumer's last read of tail */
+    private long cachedTail;
+
+    /** Set when either side gives up, so the other stops waiting */
+    private volatile boolean aborted;
+
+    /**
+     * Constructs a ring with the given number of slots.
+     *
+     * @param capacity
+     *            the number of slots, rounded up to a power of two
+     * @throws IllegalArgumentException
+     *             if capacity is not positive or above 2^30
+     */
+    CommandRing(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException(
+                "Capacity must be between 1 and 2^30");
+        }
+        int length = Integer.highestOneBit(capacity);
+        if (length < capacity) {
+            length <<= 1;
+        }
+        slots = new Command[length];
+        for (int i = 0; i < length; i++) {
+            slots[i] = new Command();
+        }
+        mask = length - 1;
+    }
+
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the capacity after rounding
+     */
+    int capacity() {
+        return slots.length;
+    }
+
+
+    /**
+     * Waits for a free slot and returns its record for the producer to
+     * fill. Producer only.
+     *
+     * @return the record to overwrite
+     * @throws IllegalStateException
+     *             if the ring has been aborted
+     */
+    Command claim() {
+        long next = tail.getPlain();
+        int waits = 0;
+        while (next - cachedHead == slots.length) {
+            cachedHead = head.getAcquire();
+            if (next - cachedHead == slots.length) {
+                idle(waits++);
+            }
+        }
+        return slots[(int)next & mask];
+    }
+
+
+    /**
+     * Hands the claimed record to the consumer. Producer only.
+     */
+    void publish() {
+        tail.setRelease(tail.getPlain() + 1);
+    }
+
+
+    /**
+     * Waits for a published record and returns it. Consumer only.
+     *
+     * @return the oldest record not yet released
+     * @throws IllegalStateException
+     *             if the ring has been aborted
+     */
+    Command take() {
+        long next = head.getPlain();
+        int waits = 0;
+        while (next == cachedTail) {
+            cachedTail = tail.getAcquire();
+            if (next == cachedTail) {
+                idle(waits++);
+            }
+        }
+        return slots[(int)next & mask];
+    }
+
+
+    /**
+     * Returns the taken record's slot to the producer. Consumer only.
+     */
+    void release() {
+        head.setRelease(head.getPlain() + 1);
+    }
+
+
+    /**
+     * Makes every current and future wait on the ring throw.
+     */
+    void abort() {
+        aborted = true;
+    }
+
+
+    /**
+     * Checks whether the ring has been aborted.
+     *
+     * @return true after abort
+     */
+    boolean isAborted() {
+        return aborted;
+    }
+
+
+    /**
+     * Backs off for one unsuccessful wait.
+     */
+    private void idle(int waits) {
+        if (aborted) {
+            throw new IllegalStateException("Command ring aborted");
+        }
+        if (waits < SPINS) {
+            Thread.onSpinWait();
+        }
+        else if (waits < SPINS + YIELDS) {
+            Thread.yield();
+        }
+        else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
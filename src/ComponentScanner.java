@@ -0,0 +1,282 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Finds the connected components of a graph stored as adjacency arrays:
+ * nodes are dense ids 0..n-1 and the neighbors of node v are
+ * targets[offsets[v]] to targets[offsets[v + 1] - 1]. Every edge must be
+ * listed from both ends.
+ *
+ * scan() walks the graph with an explicit int stack and a bitset of
+ * visited nodes, so a long chain cannot overflow the thread stack and
+ * nothing is allocated per node. scanParallel() splits the nodes among
+ * ForkJoin tasks that merge components by hooking, as in Shiloach-Vishkin:
+ * each edge links the larger of its two roots under the smaller with a
+ * compare-and-set, and finds halve their paths as they go.
+ *
+ * Both label every node with the smallest id in its component, so their
+ * results are identical.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public final class ComponentScanner {
+    /** Nodes handled by one task before it stops splitting */
+    private static final int PARALLEL_GRAIN = 1 << 12;
+
+    /** Start of each node's neighbors in targets; one entry per node + 1 */
+    private final int[] offsets;
+
+    /** Neighbor ids of all nodes, back to back */
+    private final int[] targets;
+
+    /** Component label of each node after a scan */
+    private final int[] labels;
+
+    /** Number of components found by the last scan */
+    private int componentCount;
+
+    /** Size of the largest component found by the last scan */
+    private int largestComponent;
+
+    /**
+     * Constructs a scanner over adjacency arrays. The arrays are used, not
+     * copied.
+     *
+     * @param offsets
+     *            neighbor start of each node, followed by targets.length
+     * @param targets
+     *            neighbor ids of all nodes
+     */
+    public ComponentScanner(int[] offsets, int[] targets) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.labels = new int[offsets.length - 1];
+    }
+
+
+    /**
+     * Builds a scanner for the current nodes and edges of a graph, using
+     * the graph's node ids.
+     *
+     * @param graph
+     *            the graph to convert
+     * @return a scanner over the graph's current snapshot
+     */
+    public static ComponentScanner of(Graph graph) {
+        return graph.snapshot().scanner();
+    }
+
+
+    /**
+     * Labels the components with an iterative depth-first search.
+     *
+     * @return the number of components
+     */
+    public int scan() {
+        int n = labels.length;
+        long[] visited = new long[(n + 63) >>> 6];
+        int[] stack = new int[Math.max(n, 1)];
+        componentCount = 0;
+        largestComponent = 0;
+
+        for (int start = 0; start < n; start++) {
+            if ((visited[start >>> 6] & (1L << start)) != 0) {
+                continue;
+            }
+            visited[start >>> 6] |= 1L << start;
+            stack[0] = start;
+            int top = 1;
+            int size = 0;
+            while (top > 0) {
+                int v = stack[--top];
+                labels[v] = start;
+                size++;
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int w = targets[e];
+                    if ((visited[w >>> 6] & (1L << w)) == 0) {
+                        visited[w >>> 6] |= 1L << w;
+                        stack[top++] = w;
+                    }
+                }
+            }
+            componentCount++;
+            largestComponent = Math.max(largestComponent, size);
+        }
+        return componentCount;
+    }
+
+
+    /**
+     * Labels the components with concurrent hooking in the given pool.
+     *
+     * @param pool
+     *            the pool that runs the tasks
+     * @return the number of components
+     */
+    public int scanParallel(ForkJoinPool pool) {
+        int n = labels.length;
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) {
+            parent.setPlain(v, v);
+        }
+        pool.invoke(new HookTask(parent, 0, n));
+        pool.invoke(new FlattenTask(parent, 0, n));
+
+        int[] sizes = new int[n];
+        componentCount = 0;
+        largestComponent = 0;
+        for (int v = 0; v < n; v++) {
+            int label = labels[v];
+            if (label == v) {
+                componentCount++;
+            }
+            largestComponent = Math.max(largestComponent, ++sizes[label]);
+        }
+        return componentCount;
+    }
+
+
+    /**
+     * Returns the number of components found by the last scan.
+     *
+     * @return the component count
+     */
+    public int componentCount() {
+        return componentCount;
+    }
+
+
+    /**
+     * Returns the size of the largest component found by the last scan.
+     *
+     * @return the node count of the largest component, 0 for no nodes
+     */
+    public int largestComponentSize() {
+        return largestComponent;
+    }
+
+
+    /**
+     * Returns a node's component label from the last scan.
+     *
+     * @param node
+     *            the node id
+     * @return the smallest node id in the node's component
+     */
+    public int label(int node) {
+        return labels[node];
+    }
+
+
+    /**
+     * Follows parent links to a root, pointing each node passed at its
+     * grandparent. Any ancestor is a valid parent, so the halving writes
+     * need no compare-and-set.
+     */
+    private static int find(AtomicIntegerArray parent, int v) {
+        while (true) {
+            int p = parent.get(v);
+            if (p == v) {
+                return v;
+            }
+            int grandparent = parent.get(p);
+            if (grandparent != p) {
+                parent.setPlain(v, grandparent);
+            }
+            v = grandparent;
+        }
+    }
+
+
+    /**
+     * Hooks together the endpoints of every edge leaving a range of nodes.
+     */
+    private final class HookTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicIntegerArray parent;
+        private final int from;
+        private final int to;
+
+        HookTask(AtomicIntegerArray parent, int from, int to) {
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_GRAIN) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new HookTask(parent, from, mid), new HookTask(
+                    parent, mid, to));
+                return;
+            }
+            for (int v = from; v < to; v++) {
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int w = targets[e];
+                    // Each edge is listed twice; hooking one copy is enough
+                    if (w < v) {
+                        hook(v, w);
+                    }
+                }
+            }
+        }
+
+
+        /**
+         * Links the roots of two nodes, the larger under the smaller, and
+         * retries if another task moved the larger root first.
+         */
+        private void hook(int v, int w) {
+            while (true) {
+                int rootV = find(parent, v);
+                int rootW = find(parent, w);
+                if (rootV == rootW) {
+                    return;
+                }
+                int high = Math.max(rootV, rootW);
+                int low = Math.min(rootV, rootW);
+                if (parent.compareAndSet(high, high, low)) {
+                    return;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Writes the root of every node in a range to labels once hooking is
+     * done.
+     */
+    private final class FlattenTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicIntegerArray parent;
+        private final int from;
+        private final int to;
+
+        FlattenTask(AtomicIntegerArray parent, int from, int to) {
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_GRAIN) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new FlattenTask(parent, from, mid), new FlattenTask(
+                    parent, mid, to));
+                return;
+            }
+            for (int v = from; v < to; v++) {
+                labels[v] = find(parent, v);
+            }
+        }
+    }
+}
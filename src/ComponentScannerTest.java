@@ -0,0 +1,121 @@
+import static org.junit.Assert.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/**
+ * Test class for ComponentScanner.
+ * Covers both scan modes on small graphs, a chain too long for recursion
+ * and a random graph large enough to split across tasks.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class ComponentScannerTest {
+
+    /**
+     * Tests labels, count and largest size on a small graph.
+     */
+    @Test
+    public void testSmallGraph() {
+        Graph graph = new Graph();
+        GraphNode a1 = graph.addNode("Artist1", true);
+        GraphNode s1 = graph.addNode("Song1", false);
+        GraphNode a2 = graph.addNode("Artist2", true);
+        GraphNode s2 = graph.addNode("Song2", false);
+        graph.addNode("Song3", false);
+        graph.addEdge(a1, s2);
+        graph.addEdge(a2, s2);
+        graph.addEdge(a2, s1);
+
+        ComponentScanner scanner = ComponentScanner.of(graph);
+        assertEquals(2, scanner.scan());
+        assertEquals(4, scanner.largestComponentSize());
+        assertEquals(0, scanner.label(3));
+        assertEquals(4, scanner.label(4));
+
+        assertEquals(2, scanner.scanParallel(ForkJoinPool.commonPool()));
+        assertEquals(4, scanner.largestComponentSize());
+        assertEquals(0, scanner.label(1));
+    }
+
+
+    /**
+     * Tests that an empty graph has no components.
+     */
+    @Test
+    public void testEmpty() {
+        ComponentScanner scanner = ComponentScanner.of(new Graph());
+        assertEquals(0, scanner.scan());
+        assertEquals(0, scanner.largestComponentSize());
+        assertEquals(0, scanner.scanParallel(ForkJoinPool.commonPool()));
+    }
+
+
+    /**
+     * Tests a chain of a million nodes, deep enough to overflow a
+     * recursive search.
+     */
+    @Test
+    public void testLongChain() {
+        int n = 1000000;
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[2 * (n - 1)];
+        int next = 0;
+        for (int v = 0; v < n; v++) {
+            offsets[v] = next;
+            if (v > 0) {
+                targets[next++] = v - 1;
+            }
+            if (v < n - 1) {
+                targets[next++] = v + 1;
+            }
+        }
+        offsets[n] = next;
+
+        ComponentScanner scanner = new ComponentScanner(offsets, targets);
+        assertEquals(1, scanner.scan());
+        assertEquals(n, scanner.largestComponentSize());
+        assertEquals(1, scanner.scanParallel(new ForkJoinPool(4)));
+        assertEquals(n, scanner.largestComponentSize());
+    }
+
+
+    /**
+     * Tests that both modes agree with the graph's own tracking on a
+     * random graph.
+     */
+    @Test
+    public void testModesAgree() {
+        Random random = new Random(11);
+        Graph graph = new Graph();
+        GraphNode[] nodes = new GraphNode[20000];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graph.addNode("n" + i, i % 2 == 0);
+        }
+        for (int e = 0; e < 15000; e++) {
+            GraphNode a = nodes[random.nextInt(nodes.length)];
+            GraphNode b = nodes[random.nextInt(nodes.length)];
+            if (a != b) {
+                graph.addEdge(a, b);
+            }
+        }
+
+        ComponentScanner scanner = ComponentScanner.of(graph);
+        int count = scanner.scan();
+        int[] labels = new int[nodes.length];
+        for (int v = 0; v < labels.length; v++) {
+            labels[v] = scanner.label(v);
+        }
+        assertEquals(graph.componentCount(), count);
+        assertEquals(graph.largestComponentSize(), scanner
+            .largestComponentSize());
+
+        assertEquals(count, scanner.scanParallel(new ForkJoinPool(4)));
+        assertEquals(graph.largestComponentSize(), scanner
+            .largestComponentSize());
+        for (int v = 0; v < labels.length; v++) {
+            assertEquals(labels[v], scanner.label(v));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe hash table built from independently locked segments. The
+ * key space is split by hash, and each segment is an ExtensibleHashTable
+ * with its own quadratic probing and resizing, so writers to different
+ * segments never wait for each other.
+ *
+ * Writes take the segment's write lock. Reads take no lock: they probe the
+ * segment under an optimistic StampedLock stamp and keep the result only if
+ * no write started in that segment meanwhile. Otherwise they retry under
+ * the read lock. A read racing a writer can see a half-updated table, so
+ * any exception thrown while probing optimistically is also treated as a
+ * failed validation.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class ConcurrentExtensibleHashTable {
+    /** Segment count used by the single-argument constructor */
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    /** The segments, a power of two of them */
+    private final Segment[] segments;
+
+    /** Right shift that turns a spread hash into a segment index */
+    private final int segmentShift;
+
+    /**
+     * Constructs a new, empty table with the default number of segments.
+     *
+     * @param capacity
+     *            the initial capacity, shared between the segments
+     * @throws IllegalArgumentException
+     *             if the initial capacity is not positive
+     */
+    public ConcurrentExtensibleHashTable(int capacity) {
+        this(capacity, DEFAULT_SEGMENTS);
+    }
+
+
+    /**
+     * Constructs a new, empty table.
+     *
+     * @param capacity
+     *            the initial capacity, shared between the segments
+     * @param concurrencyLevel
+     *            the expected number of concurrent writers; rounded up to a
+     *            power of two to give the number of segments
+     * @throws IllegalArgumentException
+     *             if either argument is not positive
+     */
+    public ConcurrentExtensibleHashTable(int capacity, int concurrencyLevel) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                "Initial capacity must be positive");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException(
+                "Concurrency level must be positive");
+        }
+
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.min(
+            concurrencyLevel, 1 << 16) - 1);
+        segments = new Segment[1 << bits];
+        segmentShift = 32 - bits;
+        int perSegment = Math.max(1, capacity / segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+
+    /**
+     * Inserts the specified key-value pair. If the key already exists,
+     * replaces the existing value and returns the previous value.
+     *
+     * @param key
+     *            the key to be inserted
+     * @param node
+     *            the value to be associated with the key
+     * @return the previous value associated with the key, or null if the key
+     *         was not present
+     * @throws IllegalArgumentException
+     *             if either key or node is null
+     */
+    public GraphNode insert(String key, GraphNode node) {
+        if (key == null || node == null) {
+            throw new IllegalArgumentException(
+                "Neither key nor value can be null");
+        }
+
+        long hash = Hash.sfold(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.table.insert(key, node, hash);
+        }
+        finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+
+    /**
+     * Returns the value associated with the specified key, without locking
+     * unless a write to the same segment overlaps the lookup.
+     *
+     * @param key
+     *            the key whose associated value is to be returned
+     * @return the value associated with the key, or null if the key is not
+     *         present
+     */
+    public GraphNode search(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        long hash = Hash.sfold(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                GraphNode node = segment.table.search(key, hash);
+                if (segment.lock.validate(stamp)) {
+                    return node;
+                }
+            }
+            catch (RuntimeException e) {
+                // Saw a write in progress; fall through to the read lock
+            }
+        }
+
+        stamp = segment.lock.readLock();
+        try {
+            return segment.table.search(key, hash);
+        }
+        finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+
+    /**
+     * Removes the key-value pair associated with the specified key.
+     *
+     * @param key
+     *            the key whose mapping is to be removed
+     * @return the value previously associated with the key, or null if the key
+     *         was not present
+     */
+    public GraphNode remove(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        long hash = Hash.sfold(key);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.table.remove(key, hash);
+        }
+        finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+
+    /**
+     * Returns the number of entries. Segments are counted one at a time, so
+     * the total may be out of date while other threads are writing.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        int total = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                total += segment.table.size();
+            }
+            finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return total;
+    }
+
+
+    /**
+     * Returns the combined capacity of all segments.
+     *
+     * @return the total number of slots
+     */
+    public int capacity() {
+        int total = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                total += segment.table.capacity();
+            }
+            finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return total;
+    }
+
+
+    /**
+     * Returns the number of segments, for testing purposes.
+     *
+     * @return the segment count
+     */
+    int segmentCount() {
+        return segments.length;
+    }
+
+
+    /**
+     * Picks the segment for a hash. sfold sums of similar keys differ mostly
+     * in their low bits, so the hash is mixed before taking the top bits.
+     */
+    private Segment segmentFor(long hash) {
+        if (segmentShift == 32) {
+            return segments[0];
+        }
+        int h = (int)(hash ^ (hash >>> 32)) * 0x9E3779B9;
+        return segments[h >>> segmentShift];
+    }
+
+
+    /**
+     * One independently locked part of the table.
+     */
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        final ExtensibleHashTable table;
+
+        Segment(int capacity) {
+            table = new ExtensibleHashTable(capacity);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import static org.junit.Assert.*;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for ConcurrentExtensibleHashTable.
+ * Covers single-threaded behaviour, segment sizing and concurrent writers
+ * and readers.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class ConcurrentExtensibleHashTableTest {
+    private ConcurrentExtensibleHashTable table;
+    private GraphNode node1;
+    private GraphNode node2;
+
+    /**
+     * Sets up test fixtures before each test method.
+     */
+    @Before
+    public void setUp() {
+        table = new ConcurrentExtensibleHashTable(16, 4);
+        node1 = new GraphNode("Artist1", true);
+        node2 = new GraphNode("Artist2", true);
+    }
+
+
+    /**
+     * Tests insert, replace, search and remove on one thread.
+     */
+    @Test
+    public void testBasicOperations() {
+        assertNull(table.insert("key1", node1));
+        assertEquals(node1, table.search("key1"));
+        assertEquals(node1, table.insert("key1", node2));
+        assertEquals(node2, table.search("key1"));
+        assertEquals(1, table.size());
+        assertEquals(node2, table.remove("key1"));
+        assertNull(table.search("key1"));
+        assertNull(table.remove("key1"));
+        assertNull(table.search(null));
+        assertNull(table.remove(null));
+        assertEquals(0, table.size());
+    }
+
+
+    /**
+     * Tests that null keys are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertNullKey() {
+        table.insert(null, node1);
+    }
+
+
+    /**
+     * Tests that the concurrency level is rounded up to a power of two.
+     */
+    @Test
+    public void testSegmentCount() {
+        assertEquals(4, table.segmentCount());
+        assertEquals(1, new ConcurrentExtensibleHashTable(10, 1)
+            .segmentCount());
+        assertEquals(8, new ConcurrentExtensibleHashTable(10, 5)
+            .segmentCount());
+    }
+
+
+    /**
+     * Tests that writers on several threads lose no entries while readers
+     * look up keys that are already present.
+     *
+     * @throws InterruptedException
+     *             if interrupted while joining
+     */
+    @Test(timeout = 20000)
+    public void testConcurrentWritersAndReaders()
+        throws InterruptedException {
+        int threads = 4;
+        int perThread = 2000;
+        table.insert("stable", node1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread[] workers = new Thread[threads * 2];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    table.insert("t" + id + "k" + i, node2);
+                }
+            });
+            workers[threads + t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    if (table.search("stable") != node1) {
+                        failure.set(new AssertionError("Lost stable key"));
+                    }
+                }
+            });
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(threads * perThread + 1, table.size());
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                assertEquals(node2, table.search("t" + t + "k" + i));
+            }
+        }
+    }
+}
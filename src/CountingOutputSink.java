@@ -0,0 +1,39 @@
+/**
+ * An OutputSink that prints nothing and counts the lines and characters it
+ * is given, for benchmark runs that should still show how much output a
+ * workload produces.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class CountingOutputSink implements OutputSink {
+    private long lines;
+    private long chars;
+
+    @Override
+    public void println(String line) {
+        lines++;
+        chars += line.length();
+    }
+
+
+    /**
+     * Returns the number of lines output so far.
+     *
+     * @return the line count
+     */
+    public long lines() {
+        return lines;
+    }
+
+
+    /**
+     * Returns the number of characters output so far, not counting line
+     * separators.
+     *
+     * @return the character count
+     */
+    public long chars() {
+        return chars;
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.Arrays;
+import java.util.function.Function;
 
 /**
  * An extensible hash table implementation that uses quadratic probing for
@@ -9,6 +10,27 @@ import java.util.Arrays;
  * operations
  * with average-case O(1) time complexity.
  *
+ * Removal marks the entry inactive, leaving a tombstone that keeps probe
+ * sequences through the slot intact and that a later insert on the same
+ * probe sequence reuses. Tombstones count towards the load factor. Once
+ * they fill a quarter of the table, the removal that got there compacts it:
+ * the live entries are rehashed into a fresh array of the same capacity.
+ * Delete-heavy churn therefore never grows the table, and each compaction
+ * is paid for by the quarter-table of removals before it.
+ *
+ * In incremental resize mode a resize only allocates the larger array. The
+ * old array is kept alongside it and each insert or remove migrates a few
+ * of its slots, so no single insert pays for rehashing the whole table.
+ * Until migration finishes, lookups that miss the new array fall back to
+ * the old one.
+ *
+ * An optional Bloom filter over the keys lets search and remove turn away
+ * most absent keys before probing. Filter bits cannot be cleared, so the
+ * filter is rebuilt from the live entries whenever the table is, on
+ * resize and compaction; between rebuilds, removed keys only cost false
+ * positives. Counters of rejected lookups and false positives show how
+ * well the chosen filter size works.
+ *
  * @author Yash Atal
  * @version 2.0
  */
@@ -16,9 +38,15 @@ public class ExtensibleHashTable {
     /** The underlying array of hash entries */
     private HashEntry[] table;
 
+    /** Hash.reciprocal of the table length */
+    private long reciprocal;
+
     /** The number of active entries in the table */
     private int size;
 
+    /** The number of inactive entries (tombstones) in table */
+    private int tombstones;
+
     /** The initial capacity specified during construction */
     private final int initialCapacity;
 
@@ -28,6 +56,49 @@ public class ExtensibleHashTable {
     /** Maximum number of probing attempts before giving up */
     private static final int MAX_PROBE_ATTEMPTS = 1000;
 
+    /** Fraction of the slots that may be tombstones before compacting */
+    private static final double TOMBSTONE_THRESHOLD = 0.25;
+
+    /** Old-array slots migrated by each insert or remove */
+    private static final int MIGRATION_STEP = 4;
+
+    /**
+     * Left in old-array slots whose entry has been migrated. It is inactive,
+     * so it keeps probe chains in the old array intact without matching.
+     */
+    private static final HashEntry MOVED = new HashEntry("", null, 0);
+
+    static {
+        MOVED.setActive(false);
+    }
+
+    /** Whether resizes migrate entries a few slots at a time */
+    private final boolean incrementalResize;
+
+    /** The array being migrated into table, or null when not resizing */
+    private HashEntry[] oldTable;
+
+    /** Hash.reciprocal of the oldTable length */
+    private long oldReciprocal;
+
+    /** The next slot of oldTable to migrate */
+    private int migrateIndex;
+
+    /** Filter bits per key, or 0 when the Bloom filter is disabled */
+    private int bloomBitsPerKey;
+
+    /** Filter over every key in table and oldTable, or null if disabled */
+    private BloomFilter bloom;
+
+    /** Filter over the keys in table, built while oldTable is migrated */
+    private BloomFilter pendingBloom;
+
+    /** Lookups the filter answered without probing */
+    private long bloomRejections;
+
+    /** Lookups that passed the filter but found no key */
+    private long bloomFalsePositives;
+
     /**
      * Constructs a new, empty hash table with the specified initial capacity.
      *
@@ -37,12 +108,31 @@ public class ExtensibleHashTable {
      *             if the initial capacity is not positive
      */
     public ExtensibleHashTable(int capacity) {
+        this(capacity, false);
+    }
+
+
+    /**
+     * Constructs a new, empty hash table with the specified initial capacity
+     * and resize mode.
+     *
+     * @param capacity
+     *            the initial capacity of the hash table
+     * @param incrementalResize
+     *            true to migrate entries a few slots per operation after a
+     *            resize, false to rehash everything at once
+     * @throws IllegalArgumentException
+     *             if the initial capacity is not positive
+     */
+    public ExtensibleHashTable(int capacity, boolean incrementalResize) {
         if (capacity <= 0) {
             throw new IllegalArgumentException(
                 "Initial capacity must be positive");
         }
-        this.table = new HashEntry[nextPrime(capacity)];
+        this.table = new HashEntry[Primes.atLeast(capacity)];
+        this.reciprocal = Hash.reciprocal(table.length);
         this.initialCapacity = capacity;
+        this.incrementalResize = incrementalResize;
         this.size = 0;
     }
 
@@ -66,21 +156,58 @@ public class ExtensibleHashTable {
             throw new IllegalArgumentException(
                 "Neither key nor value can be null");
         }
+        return insert(key, node, Hash.sfold(key));
+    }
 
-        // Check if we need to resize BEFORE inserting
-        if ((double)(size + 1) / table.length >= LOAD_FACTOR_THRESHOLD) {
+
+    /**
+     * Inserts a key whose sfold sum the caller has already computed.
+     *
+     * @param key
+     *            the key to be inserted, not null
+     * @param node
+     *            the value to be associated with the key, not null
+     * @param hash
+     *            Hash.sfold(key)
+     * @return the previous value associated with the key, or null
+     */
+    GraphNode insert(String key, GraphNode node, long hash) {
+        migrate(MIGRATION_STEP);
+
+        // Check if we need to resize BEFORE inserting. Tombstones take up
+        // probe slots too, but remove keeps them under a quarter of the
+        // table, so reaching the threshold means the live load is real
+        if ((double)(size + tombstones + 1)
+            / table.length >= LOAD_FACTOR_THRESHOLD) {
             resize();
         }
 
-        int index = findSlotForInsert(key);
+        GraphNode oldNode = null;
+        if (oldTable != null) {
+            // A key lives in only one array, so take it out of the old one
+            // and let the insert below add it to the new one
+            int oldIndex = findActiveSlot(oldTable, oldReciprocal, key,
+                hash);
+            if (oldIndex >= 0) {
+                oldNode = oldTable[oldIndex].getNode();
+                oldTable[oldIndex].setActive(false);
+                size--;
+            }
+        }
+
+        int index = findSlotForInsert(key, hash);
         if (table[index] == null || !table[index].isActive()) {
-            table[index] = new HashEntry(key, node);
+            if (table[index] != null) {
+                tombstones--;
+            }
+            table[index] = new HashEntry(key, node, hash);
             size++;
-            return null;
+            addToBloom(hash);
+            return oldNode;
         }
         else {
-            GraphNode oldNode = table[index].getNode();
-            table[index] = new HashEntry(key, node);
+            oldNode = table[index].getNode();
+            table[index] = new HashEntry(key, node, hash);
             return oldNode;
         }
     }
@@ -98,15 +225,94 @@ public class ExtensibleHashTable {
         if (key == null) {
             return null;
         }
+        return search(key, Hash.sfold(key));
+    }
+
 
-        int index = findSlotForSearch(key);
+    /**
+     * Looks up a key whose sfold sum the caller has already computed. Never
+     * modifies the entries, only the Bloom filter counters. The key may be
+     * any character sequence, such as a view into a read buffer; it is
+     * compared by content and not kept.
+     *
+     * @param key
+     *            the key to look for, not null
+     * @param hash
+     *            Hash.sfold(key)
+     * @return the value associated with the key, or null
+     */
+    GraphNode search(CharSequence key, long hash) {
+        if (!mightContain(hash)) {
+            return null;
+        }
+
+        int index = findSlotForSearch(key, hash);
         if (table[index] == null || !table[index].isActive()) {
+            if (oldTable != null) {
+                int oldIndex = findActiveSlot(oldTable, oldReciprocal, key,
+                    hash);
+                if (oldIndex >= 0) {
+                    return oldTable[oldIndex].getNode();
+                }
+            }
+            countFalsePositive();
             return null;
         }
         return table[index].getNode();
     }
 
 
+    /**
+     * Returns the value of a key, first making it with the given function
+     * if the key is absent. A key that is present is found with a single
+     * probe sequence and nothing is allocated; for an absent key, the slot
+     * that probe ended on is filled directly unless a resize or migration
+     * is due, so the key is still only probed once. The key is compared by
+     * content, as in search(CharSequence, long).
+     *
+     * @param key
+     *            the key to look for, not null
+     * @param hash
+     *            Hash.sfold(key)
+     * @param create
+     *            given the key as a new String when it is absent, and
+     *            returns its value, not null
+     * @return the value the key has now
+     */
+    GraphNode computeIfAbsent(
+        CharSequence key,
+        long hash,
+        Function<String, GraphNode> create) {
+        int index = findSlotForInsert(key, hash);
+        HashEntry entry = table[index];
+        if (entry != null && entry.isActive()) {
+            return entry.getNode();
+        }
+        if (oldTable != null) {
+            int oldIndex = findActiveSlot(oldTable, oldReciprocal, key, hash);
+            if (oldIndex >= 0) {
+                return oldTable[oldIndex].getNode();
+            }
+        }
+
+        String name = key.toString();
+        GraphNode node = create.apply(name);
+        if (oldTable != null || (double)(size + tombstones + 1)
+            / table.length >= LOAD_FACTOR_THRESHOLD) {
+            // Migration or a resize would move the slot found above
+            insert(name, node, hash);
+            return node;
+        }
+        if (entry != null) {
+            tombstones--;
+        }
+        table[index] = new HashEntry(name, node, hash);
+        size++;
+        addToBloom(hash);
+        return node;
+    }
+
+
     /**
      * Removes the key-value pair associated with the specified key.
      *
@@ -119,17 +325,51 @@ public class ExtensibleHashTable {
         if (key == null) {
             return null;
         }
+        return remove(key, Hash.sfold(key));
+    }
+
+
+    /**
+     * Removes a key whose sfold sum the caller has already computed. The key
+     * is compared by content, as in search(CharSequence, long).
+     *
+     * @param key
+     *            the key to remove, not null
+     * @param hash
+     *            Hash.sfold(key)
+     * @return the value previously associated with the key, or null
+     */
+    GraphNode remove(CharSequence key, long hash) {
+        if (!mightContain(hash)) {
+            return null;
+        }
+        migrate(MIGRATION_STEP);
 
-        int index = findSlotForSearch(key);
+        int index = findSlotForSearch(key, hash);
         if (table[index] == null || !table[index].isActive()) {
+            if (oldTable != null) {
+                int oldIndex = findActiveSlot(oldTable, oldReciprocal, key,
+                    hash);
+                if (oldIndex >= 0) {
+                    // Left in place as a tombstone; the old array is
+                    // discarded once migration finishes
+                    oldTable[oldIndex].setActive(false);
+                    size--;
+                    return oldTable[oldIndex].getNode();
+                }
+            }
+            countFalsePositive();
             return null;
         }
 
         table[index].setActive(false);
         size--;
+        tombstones++;
         GraphNode removedNode = table[index].getNode();
 
-        rehashAfterRemoval(index);
+        if (tombstones >= TOMBSTONE_THRESHOLD * table.length) {
+            compact();
+        }
         return removedNode;
     }
 
@@ -161,25 +401,163 @@ public class ExtensibleHashTable {
      *            a label describing the type of contents being printed
      */
     public void printContents(String type) {
-        System.out.println("Total " + type + " nodes: " + size);
+        printContents(type, OutputSink.CONSOLE);
+    }
+
+
+    /**
+     * Prints the contents of the hash table to the given sink.
+     *
+     * @param type
+     *            a label describing the type of contents being printed
+     * @param out
+     *            where the lines go
+     */
+    public void printContents(String type, OutputSink out) {
+        migrate(Integer.MAX_VALUE);
+        out.println("Total " + type + " nodes: " + size);
         for (int i = 0; i < table.length; i++) {
             if (table[i] != null && table[i].isActive()) {
-                System.out.println(i + ": " + table[i].getKey());
+                out.println(i + ": " + table[i].getKey());
             }
         }
     }
 
 
     /**
-     * Returns a copy of the internal table for testing purposes.
+     * Returns a copy of the internal table for testing purposes and for
+     * saving snapshots. An incremental resize is finished first.
      *
      * @return a defensive copy of the internal hash table array
      */
     HashEntry[] getTable() {
+        migrate(Integer.MAX_VALUE);
         return Arrays.copyOf(table, table.length);
     }
 
 
+    /**
+     * Puts an entry straight into a slot, for loading a saved table into
+     * a new one of the same capacity. No probing is done: the saved slots,
+     * tombstones included, already form valid probe sequences.
+     *
+     * @param index
+     *            the slot the entry was saved from
+     * @param key
+     *            the key
+     * @param node
+     *            the value
+     * @throws IllegalStateException
+     *             if the slot is taken or the table would pass its load
+     *             factor
+     */
+    void restoreEntry(int index, String key, GraphNode node) {
+        HashEntry entry = new HashEntry(key, node, Hash.sfold(key));
+        restoreSlot(index, entry);
+        size++;
+        addToBloom(entry.getHash());
+    }
+
+
+    /**
+     * Puts a tombstone straight into a slot, for loading a saved table.
+     *
+     * @param index
+     *            the slot the tombstone was saved from
+     * @throws IllegalStateException
+     *             if the slot is taken or the table would pass its load
+     *             factor
+     */
+    void restoreTombstone(int index) {
+        HashEntry entry = new HashEntry("", null, 0);
+        entry.setActive(false);
+        restoreSlot(index, entry);
+        tombstones++;
+    }
+
+
+    /**
+     * Puts a Bloom filter in front of search and remove, built from the
+     * current keys, or rebuilds it with a new size. Absent keys are then
+     * usually rejected without probing the table.
+     *
+     * @param bitsPerKey
+     *            filter bits per entry the table can hold before resizing;
+     *            10 gives roughly a 1% false positive rate
+     * @throws IllegalArgumentException
+     *             if bitsPerKey is not positive
+     */
+    public void enableBloomFilter(int bitsPerKey) {
+        if (bitsPerKey <= 0) {
+            throw new IllegalArgumentException("Bits per key must be positive");
+        }
+        migrate(Integer.MAX_VALUE);
+        bloomBitsPerKey = bitsPerKey;
+        bloom = newBloom(table.length);
+        for (HashEntry entry : table) {
+            if (entry != null && entry.isActive()) {
+                bloom.add(entry.getHash());
+            }
+        }
+    }
+
+
+    /**
+     * Returns the number of searches and removes that the Bloom filter
+     * answered without probing the table.
+     *
+     * @return the number of rejected lookups
+     */
+    public long bloomRejections() {
+        return bloomRejections;
+    }
+
+
+    /**
+     * Returns the number of searches and removes that got past the Bloom
+     * filter but did not find their key.
+     *
+     * @return the number of false positives
+     */
+    public long bloomFalsePositives() {
+        return bloomFalsePositives;
+    }
+
+
+    /**
+     * Returns the fraction of lookups for absent keys that the Bloom filter
+     * failed to reject.
+     *
+     * @return the observed false positive rate, or 0 before any miss
+     */
+    public double bloomFalsePositiveRate() {
+        long misses = bloomRejections + bloomFalsePositives;
+        return misses == 0 ? 0 : (double)bloomFalsePositives / misses;
+    }
+
+
+    /**
+     * Returns the number of tombstones in the current array, for testing
+     * purposes.
+     *
+     * @return the number of removed entries not yet reclaimed
+     */
+    int tombstones() {
+        return tombstones;
+    }
+
+
+    /**
+     * Checks whether an incremental resize is still migrating entries, for
+     * testing purposes.
+     *
+     * @return true if the old array is still being drained
+     */
+    boolean isMigrating() {
+        return oldTable != null;
+    }
+
+
     /**
      * Determines if the table should be resized based on current load factor.
      *
@@ -233,26 +611,34 @@ public class ExtensibleHashTable {
 // }
 
     public int findSlotForInsert(String key) {
+        return findSlotForInsert(key, Hash.sfold(key));
+    }
+
+
+    /**
+     * Finds the slot for insertion of a key whose sfold sum is already known.
+     * Entries whose cached hash differs from the key's are skipped without
+     * comparing strings.
+     *
+     * @param key
+     *            the key to locate a slot for
+     * @param hash
+     *            Hash.sfold(key)
+     * @return the index of the slot for the key
+     * @throws IllegalStateException
+     *             if no empty slot is found after maximum attempts
+     */
+    private int findSlotForInsert(CharSequence key, long hash) {
         int tableLength = table.length;
-        int home = Hash.h(key, tableLength);
+        int index = Hash.reduce(hash, tableLength, reciprocal);
         int firstTombstone = -1;
 
-        for (int i = 0; i < tableLength; i++) {
-            
-            
-            int index = (home + i*i) % tableLength; // QUADRATIC probing
-                                                      // required!
-            
-////            System.out.println(tableLength);
-
-            if (index < 0) {
-                index += tableLength;
-            }
+        int step = 1;
 
+        for (int i = 0; i < tableLength; i++) {
             HashEntry entry = table[index];
 
             if (entry == null) {
-                System.out.println(index);
                 return (firstTombstone != -1) ? firstTombstone : index;
             }
             else if (!entry.isActive()) {
@@ -260,15 +646,21 @@ public class ExtensibleHashTable {
                     firstTombstone = index;
                 }
             }
-            else if (entry.getKey().equals(key)) {
-                
-                
-               // System.out.println(index);
+            else if (entry.getHash() == hash && entry.getKey().contentEquals(
+                key)) {
                 return index;
-           }
-            
-           // System.out.println(i);
-           // System.out.println(tableLength);
+            }
+
+            // QUADRATIC probing required! Step from home + i*i to
+            // home + (i+1)*(i+1) by adding the next odd number
+            index += step;
+            if (index >= tableLength) {
+                index -= tableLength;
+            }
+            step += 2;
+            if (step >= tableLength) {
+                step -= tableLength;
+            }
         }
 
         if (firstTombstone != -1) {
@@ -277,8 +669,6 @@ public class ExtensibleHashTable {
 
         throw new IllegalStateException("Table is full, cannot insert key: "
             + key);
-        
-        
     }
 
 
@@ -290,22 +680,44 @@ public class ExtensibleHashTable {
      * @return the index of the slot for the key
      */
     public int findSlotForSearch(String key) {
-        int home = Hash.h(key, table.length);
+        return findSlotForSearch(key, Hash.sfold(key));
+    }
 
-        for (int i = 0; i < table.length; i++) {
-            int index = (home + i * i) % table.length;
 
-            if (index < 0) {
-                index += table.length;
-            }
+    /**
+     * Finds the slot for a search of a key whose sfold sum is already known.
+     *
+     * @param key
+     *            the key to locate a slot for
+     * @param hash
+     *            Hash.sfold(key)
+     * @return the index of the slot for the key
+     */
+    private int findSlotForSearch(CharSequence key, long hash) {
+        int tableLength = table.length;
+        int home = Hash.reduce(hash, tableLength, reciprocal);
+        int index = home;
+        int step = 1;
 
+        for (int i = 0; i < tableLength; i++) {
             if (table[index] == null) {
                 return index; // empty spot, stop search
             }
 
-            if (table[index].isActive() && table[index].getKey().equals(key)) {
+            HashEntry entry = table[index];
+            if (entry.isActive() && entry.getHash() == hash && entry.getKey()
+                .contentEquals(key)) {
                 return index; // found active key
             }
+
+            index += step;
+            if (index >= tableLength) {
+                index -= tableLength;
+            }
+            step += 2;
+            if (step >= tableLength) {
+                step -= tableLength;
+            }
         }
 
         return home; // fallback (shouldn't happen but just in case)
@@ -313,18 +725,77 @@ public class ExtensibleHashTable {
 
 
     /**
-     * Doubles the size of the hash table (to next prime) and rehashes all
-     * active entries.
+     * Fills an empty slot of the current array for restoreEntry and
+     * restoreTombstone.
+     */
+    private void restoreSlot(int index, HashEntry entry) {
+        if (index < 0 || index >= table.length || table[index] != null) {
+            throw new IllegalStateException("Slot " + index
+                + " is out of range or already taken");
+        }
+        if ((double)(size + tombstones + 1)
+            / table.length >= LOAD_FACTOR_THRESHOLD) {
+            throw new IllegalStateException("Too many entries for capacity "
+                + table.length);
+        }
+        table[index] = entry;
+    }
+
+
+    /**
+     * Grows the hash table to the next prime on the ladder, about double
+     * its size, and rehashes all active entries.
      */
     private void resize() {
+        rebuild(Primes.after(table.length));
+    }
+
+
+    /**
+     * Drops every tombstone by rehashing the active entries into a fresh
+     * array of the same capacity.
+     */
+    private void compact() {
+        rebuild(table.length);
+    }
+
+
+    /**
+     * Moves the active entries into a new array of the given length, all at
+     * once or, in incremental resize mode, a few slots per operation.
+     * Tombstones are left behind.
+     *
+     * @param length
+     *            the length of the new array
+     */
+    private void rebuild(int length) {
+        migrate(Integer.MAX_VALUE);
+        tombstones = 0;
+        if (incrementalResize) {
+            oldTable = table;
+            oldReciprocal = reciprocal;
+            migrateIndex = 0;
+            table = new HashEntry[length];
+            reciprocal = Hash.reciprocal(length);
+            // The current filter still covers both arrays; the new one
+            // takes over once every entry has been migrated into it
+            pendingBloom = newBloom(length);
+            return;
+        }
+
         HashEntry[] oldTable = table;
-        table = new HashEntry[nextPrime(oldTable.length * 2)];
+        table = new HashEntry[length];
+        reciprocal = Hash.reciprocal(length);
+        bloom = newBloom(length);
         size = 0;
 
         for (HashEntry entry : oldTable) {
             if (entry != null && entry.isActive()) {
-                int index = findSlotForInsert(entry.getKey());
+                int index = findSlotForInsert(entry.getKey(), entry.getHash());
                 table[index] = entry;
+                if (bloom != null) {
+                    bloom.add(entry.getHash());
+                }
                 size++;
             }
         }
@@ -332,79 +803,137 @@ public class ExtensibleHashTable {
 
 
     /**
-     * Rehashes entries after removal to maintain probe sequence integrity.
+     * Moves up to the given number of old-array slots into the current
+     * array. Migrated slots are overwritten with MOVED so the old array can
+     * still be probed; the old array is dropped after its last slot.
      *
-     * @param removedIndex
-     *            the index where removal occurred
+     * @param slots
+     *            the maximum number of old-array slots to process
      */
-    public void rehashAfterRemoval(int removedIndex) {
-        int current = (removedIndex + 1) % table.length;
-        while (table[current] != null) {
-            HashEntry entry = table[current];
-            int home = Hash.h(entry.getKey(), table.length);
+    private void migrate(int slots) {
+        if (oldTable == null) {
+            return;
+        }
 
-            if (shouldRehash(home, removedIndex, current)) {
-                table[current] = null;
-                size--;
-                int newIndex = findSlotForInsert(entry.getKey());
-                table[newIndex] = entry;
-                size++;
+        int end = (int)Math.min(oldTable.length, (long)migrateIndex + slots);
+        for (; migrateIndex < end; migrateIndex++) {
+            HashEntry entry = oldTable[migrateIndex];
+            if (entry != null && entry.isActive()) {
+                int index = findSlotForInsert(entry.getKey(), entry.getHash());
+                if (table[index] != null) {
+                    tombstones--;
+                }
+                table[index] = entry;
+                oldTable[migrateIndex] = MOVED;
+                if (pendingBloom != null) {
+                    pendingBloom.add(entry.getHash());
+                }
+            }
+        }
+
+        if (migrateIndex == oldTable.length) {
+            oldTable = null;
+            if (pendingBloom != null) {
+                bloom = pendingBloom;
+                pendingBloom = null;
             }
-            current = (current + 1) % table.length;
         }
     }
 
 
     /**
-     * Determines if an entry should be rehashed after removal.
-     *
-     * @param home
-     *            the home position of the entry
-     * @param removedIndex
-     *            the index where removal occurred
-     * @param currentIndex
-     *            the current index being examined
-     * @return true if the entry should be rehashed, false otherwise
+     * Creates an empty Bloom filter for an array of the given length, or
+     * returns null if the filter is disabled.
      */
-    boolean shouldRehash(int home, int removedIndex, int currentIndex) {
-        return (currentIndex > home && (removedIndex >= home
-            && removedIndex < currentIndex)) || (currentIndex < home
-                && (removedIndex >= home || removedIndex < currentIndex));
+    private BloomFilter newBloom(int length) {
+        if (bloomBitsPerKey == 0) {
+            return null;
+        }
+        return new BloomFilter((int)(length * LOAD_FACTOR_THRESHOLD),
+            bloomBitsPerKey);
     }
 
 
     /**
-     * Returns the smallest prime number greater than or equal to n.
-     *
-     * @param n
-     *            the starting number
-     * @return the next prime number
+     * Records a newly inserted key in the Bloom filters, if enabled.
      */
-    private int nextPrime(int n) {
-        if (n <= 1)
-            return 2;
-        while (!isPrime(n)) {
-            n++;
+    private void addToBloom(long hash) {
+        if (bloom != null) {
+            bloom.add(hash);
+        }
+        if (pendingBloom != null) {
+            pendingBloom.add(hash);
         }
-        return n;
     }
 
 
     /**
-     * Checks if a number is prime.
-     *
-     * @param n
-     *            the number to check
-     * @return true if the number is prime, false otherwise
-     */
-    private boolean isPrime(int n) {
-        if (n <= 1)
-            return false;
-        if (n <= 3)
+     * Asks the Bloom filter, if enabled, whether a key might be present,
+     * counting the lookups it rejects.
+     */
+    private boolean mightContain(long hash) {
+        if (bloom == null || bloom.mightContain(hash)) {
             return true;
-        if (n % 2 == 0 || n % 3 == 0)
-            return false;
+        }
+        bloomRejections++;
+        return false;
+    }
+
+
+    /**
+     * Counts a lookup that got past the Bloom filter and missed.
+     */
+    private void countFalsePositive() {
+        if (bloom != null) {
+            bloomFalsePositives++;
+        }
+    }
+
+
+    /**
+     * Finds the slot of an active entry in the given array using quadratic
+     * probing.
+     *
+     * @param array
+     *            the array to probe
+     * @param arrayReciprocal
+     *            Hash.reciprocal of the array length
+     * @param key
+     *            the key to look for
+     * @param hash
+     *            Hash.sfold(key)
+     * @return the index of the active entry for the key, or -1 if none
+     */
+    private static int findActiveSlot(
+        HashEntry[] array,
+        long arrayReciprocal,
+        CharSequence key,
+        long hash) {
+        int length = array.length;
+        int index = Hash.reduce(hash, length, arrayReciprocal);
+        int step = 1;
+
+        for (int i = 0; i < length; i++) {
+            HashEntry entry = array[index];
+
+            if (entry == null) {
+                return -1;
+            }
+            if (entry.isActive() && entry.getHash() == hash && entry.getKey()
+                .contentEquals(key)) {
+                return index;
+            }
+
+            index += step;
+            if (index >= length) {
+                index -= length;
+            }
+            step += 2;
+            if (step >= length) {
+                step -= length;
+            }
+        }
 
-        return true;
+        return -1;
     }
 }
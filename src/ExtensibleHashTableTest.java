@@ -193,6 +193,85 @@ public class ExtensibleHashTableTest {
     }
 
 
+    /**
+     * Tests that entries moved by a resize keep their cached hash and land
+     * on a probe path starting at the home slot of that hash.
+     */
+    @Test
+    public void testResizeUsesCachedHash() {
+        for (int i = 0; i < 20; i++) {
+            table.insert("key" + i, new GraphNode("Artist" + i, true));
+        }
+        for (HashEntry entry : table.getTable()) {
+            if (entry != null) {
+                assertEquals("Cached hash should match the key", Hash.sfold(
+                    entry.getKey()), entry.getHash());
+                assertEquals("Entry should be reachable by search", entry
+                    .getNode(), table.search(entry.getKey()));
+            }
+        }
+    }
+
+
+    /**
+     * Tests that an incremental resize keeps every key reachable while the
+     * old array is still being migrated, and finishes migrating.
+     */
+    @Test
+    public void testIncrementalResize() {
+        ExtensibleHashTable inc = new ExtensibleHashTable(10, true);
+        boolean sawMigration = false;
+        for (int i = 0; i < 200; i++) {
+            inc.insert("key" + i, new GraphNode("Artist" + i, true));
+            sawMigration |= inc.isMigrating();
+            for (int j = 0; j <= i; j += 7) {
+                assertEquals("Key should be reachable during migration",
+                    "Artist" + j, inc.search("key" + j).getName());
+            }
+        }
+
+        assertTrue("Resizes should have migrated incrementally",
+            sawMigration);
+        assertEquals(200, inc.size());
+        assertTrue(inc.capacity() > 400);
+    }
+
+
+    /**
+     * Tests replacing and removing keys that are still in the old array, and
+     * removing a key after replacing it.
+     */
+    @Test
+    public void testIncrementalResizeReplaceAndRemove() {
+        ExtensibleHashTable inc = new ExtensibleHashTable(97, true);
+        for (int i = 0; i < 48; i++) {
+            inc.insert("key" + i, node1);
+        }
+        inc.insert("trigger", node1);
+        assertTrue("Insert past the threshold should start migrating", inc
+            .isMigrating());
+
+        assertEquals("Replace should return the old node", node1, inc.insert(
+            "key47", node2));
+        assertEquals(node2, inc.search("key47"));
+        assertEquals("Replacing should not change size", 49, inc.size());
+
+        assertEquals(node1, inc.remove("key46"));
+        assertNull(inc.search("key46"));
+        assertNull(inc.remove("key46"));
+
+        assertEquals(node1, inc.insert("key0", node3));
+        assertEquals(node3, inc.remove("key0"));
+        assertNull("Replaced then removed key must not reappear", inc.search(
+            "key0"));
+
+        inc.getTable();
+        assertFalse("Full scans should finish migrating", inc.isMigrating());
+        assertEquals(47, inc.size());
+        assertEquals(node2, inc.search("key47"));
+    }
+
+
     /**
      * Tests that tables maintain prime number capacities.
      */
@@ -290,21 +369,6 @@ public class ExtensibleHashTableTest {
     }
 
 
-    @Test
-    public void testShouldRehashEdgeCases() {
-        // Setup: Force a scenario where rehashing should occur
-        ExtensibleHashTable newTable = new ExtensibleHashTable(5);
-        newTable.insert("a", node1); // home slot = h("a",5)
-        newTable.insert("k", node2); // collides with "a", probes to next slot
-        newTable.remove("a"); // Creates a tombstone at home slot
-
-        // Verify rehashing logic
-        assertTrue("Should rehash due to tombstone in probe path", newTable
-            .shouldRehash(Hash.h("k", 5), Hash.h("a", 5),
-                /* currentIndex= */ (Hash.h("k", 5) + 1) % 5));
-    }
-
-
     @Test
     public void testProbingWraparound() {
         ExtensibleHashTable newTable1 = new ExtensibleHashTable(5);
@@ -591,4 +655,204 @@ public class ExtensibleHashTableTest {
         assertEquals("Size should be 2 after removal", 2, table.size());
     }
 
+
+    /**
+     * Tests that steady insert/remove churn reclaims tombstones in place
+     * instead of growing the table, in both resize modes.
+     */
+    @Test
+    public void testChurnCompactsWithoutGrowing() {
+        for (boolean incremental : new boolean[] { false, true }) {
+            ExtensibleHashTable churn = new ExtensibleHashTable(100,
+                incremental);
+            GraphNode node = new GraphNode("Node", true);
+            for (int i = 0; i < 20; i++) {
+                churn.insert("live" + i, node);
+            }
+            int capacity = churn.capacity();
+
+            for (int i = 0; i < 10000; i++) {
+                churn.insert("temp" + i, node);
+                assertEquals(node, churn.remove("temp" + i));
+                assertTrue("Tombstones should stay bounded", churn
+                    .tombstones() <= capacity / 4);
+            }
+
+            assertEquals("Churn should not grow the table", capacity, churn
+                .capacity());
+            assertEquals(20, churn.size());
+            for (int i = 0; i < 20; i++) {
+                assertEquals(node, churn.search("live" + i));
+            }
+            assertNull(churn.search("temp9999"));
+        }
+    }
+
+
+    /**
+     * Tests that the removal filling a quarter of the table with tombstones
+     * compacts it at the same capacity.
+     */
+    @Test
+    public void testRemoveCompactsAtThreshold() {
+        ExtensibleHashTable small = new ExtensibleHashTable(50);
+        GraphNode node = new GraphNode("Node", true);
+        int capacity = small.capacity();
+        int threshold = (int)Math.ceil(capacity * 0.25);
+        for (int i = 0; i < threshold + 1; i++) {
+            small.insert("key" + i, node);
+        }
+        for (int i = 0; i < threshold - 1; i++) {
+            small.remove("key" + i);
+        }
+        assertEquals(threshold - 1, small.tombstones());
+
+        small.remove("key" + (threshold - 1));
+        assertEquals("Compaction should drop tombstones", 0, small
+            .tombstones());
+        assertEquals("Compaction should keep the capacity", capacity, small
+            .capacity());
+        assertEquals(1, small.size());
+        assertEquals(node, small.search("key" + threshold));
+        assertNull(small.search("key0"));
+    }
+
+
+    /**
+     * Tests that the Bloom filter rejects absent keys, never hides present
+     * ones, and stays in sync through inserts, removes, resizes and
+     * compaction in both resize modes.
+     */
+    @Test
+    public void testBloomFilter() {
+        for (boolean incremental : new boolean[] { false, true }) {
+            ExtensibleHashTable filtered = new ExtensibleHashTable(10,
+                incremental);
+            GraphNode node = new GraphNode("Node", true);
+            filtered.insert("before", node);
+            filtered.enableBloomFilter(10);
+            assertEquals(node, filtered.search("before"));
+
+            for (int i = 0; i < 2000; i++) {
+                filtered.insert("key" + i, node);
+                assertEquals(node, filtered.search("key" + i));
+            }
+            for (int i = 0; i < 2000; i += 2) {
+                assertEquals(node, filtered.remove("key" + i));
+            }
+            for (int i = 0; i < 2000; i++) {
+                assertEquals(i % 2 == 0 ? null : node, filtered.search("key"
+                    + i));
+            }
+            assertEquals(node, filtered.search("before"));
+
+            // Removed keys stay in the filter until the next rebuild, so
+            // only count lookups of keys that were never inserted
+            long rejected = filtered.bloomRejections();
+            long passed = filtered.bloomFalsePositives();
+            for (int i = 0; i < 1000; i++) {
+                assertNull(filtered.search("missing" + i));
+                assertNull(filtered.remove("missing" + i));
+            }
+            rejected = filtered.bloomRejections() - rejected;
+            passed = filtered.bloomFalsePositives() - passed;
+            assertEquals(2000, rejected + passed);
+            assertTrue("Most misses should be rejected", rejected > 1800);
+        }
+    }
+
+
+    /**
+     * Tests that the Bloom filter counters stay at zero when it is off.
+     */
+    @Test
+    public void testBloomFilterDisabled() {
+        table.insert("key", node1);
+        assertNull(table.search("missing"));
+        assertEquals(0, table.bloomRejections());
+        assertEquals(0, table.bloomFalsePositives());
+        assertEquals(0, table.bloomFalsePositiveRate(), 0);
+    }
+
+
+    /**
+     * Tests the false positive rate reported by the counters.
+     */
+    @Test
+    public void testBloomFalsePositiveRate() {
+        table.enableBloomFilter(10);
+        for (int i = 0; i < 1000; i++) {
+            table.insert("key" + i, node1);
+        }
+        for (int i = 0; i < 1000; i++) {
+            table.search("missing" + i);
+        }
+        assertEquals(1000, table.bloomRejections() + table
+            .bloomFalsePositives());
+        assertEquals((double)table.bloomFalsePositives() / 1000, table
+            .bloomFalsePositiveRate(), 1e-9);
+        assertTrue(table.bloomFalsePositiveRate() < 0.05);
+    }
+
+
+    /**
+     * Tests that computeIfAbsent returns a present key's node without
+     * calling the function, and inserts an absent key's once, reusing a
+     * tombstone on its probe sequence.
+     */
+    @Test
+    public void testComputeIfAbsent() {
+        table.insert("a", node1);
+        table.insert("k", node2); // collides with "a"
+        int[] calls = { 0 };
+        StringBuilder view = new StringBuilder("k");
+        assertSame(node2, table.computeIfAbsent(view, Hash.sfold(view),
+            key -> {
+                calls[0]++;
+                return node3;
+            }));
+        assertEquals(0, calls[0]);
+
+        int slot = table.findSlotForSearch("a");
+        table.remove("a");
+        view.setLength(0);
+        view.append('a');
+        String[] made = { null };
+        assertSame(node3, table.computeIfAbsent(view, Hash.sfold(view),
+            key -> {
+                made[0] = key;
+                return node3;
+            }));
+        assertEquals("a", made[0]);
+        assertSame("The key kept should be the one passed to the function",
+            made[0], table.getTable()[slot].getKey());
+        assertEquals(0, table.tombstones());
+        assertEquals(2, table.size());
+        assertSame(node3, table.search("a"));
+    }
+
+
+    /**
+     * Tests computeIfAbsent across a resize and while an incremental resize
+     * is migrating.
+     */
+    @Test
+    public void testComputeIfAbsentResizes() {
+        for (boolean incremental : new boolean[] { false, true }) {
+            ExtensibleHashTable grown = new ExtensibleHashTable(10,
+                incremental);
+            grown.enableBloomFilter(8);
+            for (int round = 0; round < 2; round++) {
+                for (int i = 0; i < 200; i++) {
+                    String key = "key" + i;
+                    GraphNode node = grown.computeIfAbsent(key, Hash.sfold(
+                        key), name -> new GraphNode(name, true));
+                    assertEquals(key, node.getName());
+                    assertSame(node, grown.search(key));
+                }
+            }
+            assertEquals(200, grown.size());
+            assertTrue(grown.capacity() > 400);
+        }
+    }
 }
@@ -0,0 +1,354 @@
+/**
+ * A hash table with the same interface and probing as ExtensibleHashTable
+ * that stores its slots in three parallel arrays instead of HashEntry
+ * objects: the cached sfold hashes, the keys and the nodes. A probe reads
+ * the hash array first and only touches the key array when the hashes
+ * match, and replacing the value of an existing key allocates nothing.
+ *
+ * Slot state is encoded in the hash array: EMPTY (0) is a never-used slot,
+ * TOMBSTONE (-1) is a removed entry, and a live slot holds its key's sfold
+ * sum plus one. sfold sums are never negative, so the encodings never
+ * collide.
+ *
+ * Tombstones are reclaimed the same way as in ExtensibleHashTable: the live
+ * entries are rehashed into fresh arrays of the same capacity once
+ * tombstones fill a quarter of the slots.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class FlatHashTable {
+    /** Hash array value of a slot that has never held an entry */
+    static final long EMPTY = 0;
+
+    /** Hash array value of a slot whose entry was removed */
+    static final long TOMBSTONE = -1;
+
+    /** Slot states and cached hashes, see the class comment */
+    private long[] hashes;
+
+    /** Keys of live slots, null otherwise */
+    private String[] keys;
+
+    /** Values of live slots, null otherwise */
+    private GraphNode[] nodes;
+
+    /** Hash.reciprocal of the table length */
+    private long reciprocal;
+
+    /** The number of live entries in the table */
+    private int size;
+
+    /** The number of tombstones in the table */
+    private int tombstones;
+
+    /** The load factor threshold that triggers resizing (0.5 = 50%) */
+    private static final double LOAD_FACTOR_THRESHOLD = 0.5;
+
+    /** Fraction of the slots that may be tombstones before compacting */
+    private static final double TOMBSTONE_THRESHOLD = 0.25;
+
+    /**
+     * Constructs a new, empty hash table with the specified initial capacity.
+     *
+     * @param capacity
+     *            the initial capacity of the hash table
+     * @throws IllegalArgumentException
+     *             if the initial capacity is not positive
+     */
+    public FlatHashTable(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                "Initial capacity must be positive");
+        }
+        allocate(Primes.atLeast(capacity));
+    }
+
+
+    /**
+     * Inserts the specified key-value pair into the hash table. If the key
+     * already exists, replaces the existing value and returns the previous
+     * value.
+     *
+     * @param key
+     *            the key to be inserted
+     * @param node
+     *            the value to be associated with the key
+     * @return the previous value associated with the key, or null if the key
+     *         was not present
+     * @throws IllegalArgumentException
+     *             if either key or node is null
+     */
+    public GraphNode insert(String key, GraphNode node) {
+        if (key == null || node == null) {
+            throw new IllegalArgumentException(
+                "Neither key nor value can be null");
+        }
+
+        if ((double)(size + tombstones + 1)
+            / hashes.length >= LOAD_FACTOR_THRESHOLD) {
+            rebuild(Primes.after(hashes.length));
+        }
+
+        long hash = Hash.sfold(key);
+        int index = findSlotForInsert(key, hash);
+        if (hashes[index] > EMPTY) {
+            GraphNode oldNode = nodes[index];
+            nodes[index] = node;
+            return oldNode;
+        }
+
+        if (hashes[index] == TOMBSTONE) {
+            tombstones--;
+        }
+        hashes[index] = hash + 1;
+        keys[index] = key;
+        nodes[index] = node;
+        size++;
+        return null;
+    }
+
+
+    /**
+     * Returns the value associated with the specified key.
+     *
+     * @param key
+     *            the key whose associated value is to be returned
+     * @return the value associated with the key, or null if the key is not
+     *         present
+     */
+    public GraphNode search(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        int index = findSlotForSearch(key, Hash.sfold(key));
+        return index < 0 ? null : nodes[index];
+    }
+
+
+    /**
+     * Removes the key-value pair associated with the specified key. The slot
+     * becomes a tombstone so probe sequences through it stay intact.
+     *
+     * @param key
+     *            the key whose mapping is to be removed
+     * @return the value previously associated with the key, or null if the key
+     *         was not present
+     */
+    public GraphNode remove(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        int index = findSlotForSearch(key, Hash.sfold(key));
+        if (index < 0) {
+            return null;
+        }
+
+        GraphNode removedNode = nodes[index];
+        hashes[index] = TOMBSTONE;
+        keys[index] = null;
+        nodes[index] = null;
+        size--;
+        tombstones++;
+
+        if (tombstones >= TOMBSTONE_THRESHOLD * hashes.length) {
+            rebuild(hashes.length);
+        }
+        return removedNode;
+    }
+
+
+    /**
+     * Returns the number of live entries in the hash table.
+     *
+     * @return the number of live entries
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the current capacity of the hash table.
+     *
+     * @return the current table capacity
+     */
+    public int capacity() {
+        return hashes.length;
+    }
+
+
+    /**
+     * Prints the contents of the hash table for debugging purposes.
+     *
+     * @param type
+     *            a label describing the type of contents being printed
+     */
+    public void printContents(String type) {
+        printContents(type, OutputSink.CONSOLE);
+    }
+
+
+    /**
+     * Prints the contents of the hash table to the given sink.
+     *
+     * @param type
+     *            a label describing the type of contents being printed
+     * @param out
+     *            where the lines go
+     */
+    public void printContents(String type, OutputSink out) {
+        out.println("Total " + type + " nodes: " + size);
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] > EMPTY) {
+                out.println(i + ": " + keys[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Finds the appropriate slot for insertion using quadratic probing.
+     *
+     * @param key
+     *            the key to locate a slot for
+     * @return the index of the slot for the key
+     * @throws IllegalStateException
+     *             if no free slot is reachable
+     */
+    public int findSlotForInsert(String key) {
+        return findSlotForInsert(key, Hash.sfold(key));
+    }
+
+
+    /**
+     * Finds the slot holding a key using quadratic probing.
+     *
+     * @param key
+     *            the key to look for
+     * @return the index of the slot holding the key, or -1 if it is absent
+     */
+    public int findSlotForSearch(String key) {
+        return findSlotForSearch(key, Hash.sfold(key));
+    }
+
+
+    /**
+     * Returns the number of tombstones, for testing purposes.
+     *
+     * @return the number of removed slots not yet reclaimed
+     */
+    int tombstones() {
+        return tombstones;
+    }
+
+
+    /**
+     * Returns the slot holding the key, or else the first tombstone or empty
+     * slot on its probe sequence.
+     */
+    private int findSlotForInsert(String key, long hash) {
+        int slot = probe(key, hash);
+        if (slot >= 0) {
+            return slot;
+        }
+        slot = -1 - slot;
+        if (slot == hashes.length) {
+            throw new IllegalStateException(
+                "Table is full, cannot insert key: " + key);
+        }
+        return slot;
+    }
+
+
+    /**
+     * Returns the slot holding the key, or -1 if it is absent.
+     */
+    private int findSlotForSearch(String key, long hash) {
+        int slot = probe(key, hash);
+        return slot < 0 ? -1 : slot;
+    }
+
+
+    /**
+     * Walks the key's quadratic probe sequence up to its first empty slot.
+     *
+     * @return the slot holding the key if there is one, and otherwise -1
+     *         minus the slot an insert should take: the first tombstone on
+     *         the sequence, else the empty slot that ended it, else the
+     *         table length if the sequence held neither
+     */
+    private int probe(String key, long hash) {
+        int tableLength = hashes.length;
+        long stored = hash + 1;
+        int index = Hash.reduce(hash, tableLength, reciprocal);
+        int step = 1;
+        int free = tableLength;
+
+        for (int i = 0; i < tableLength; i++) {
+            long h = hashes[index];
+
+            if (h == EMPTY) {
+                return -1 - (free < tableLength ? free : index);
+            }
+            else if (h == TOMBSTONE) {
+                if (free == tableLength) {
+                    free = index;
+                }
+            }
+            else if (h == stored && keys[index].equals(key)) {
+                return index;
+            }
+
+            // Step from home + i*i to home + (i+1)*(i+1)
+            index += step;
+            if (index >= tableLength) {
+                index -= tableLength;
+            }
+            step += 2;
+            if (step >= tableLength) {
+                step -= tableLength;
+            }
+        }
+
+        return -1 - free;
+    }
+
+
+    /**
+     * Moves the live entries into new arrays of the given length using their
+     * cached hashes. Tombstones are dropped. Used both to grow the table and
+     * to compact it at the same capacity.
+     */
+    private void rebuild(int length) {
+        long[] oldHashes = hashes;
+        String[] oldKeys = keys;
+        GraphNode[] oldNodes = nodes;
+        allocate(length);
+
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] > EMPTY) {
+                int index = findSlotForInsert(oldKeys[i], oldHashes[i] - 1);
+                hashes[index] = oldHashes[i];
+                keys[index] = oldKeys[i];
+                nodes[index] = oldNodes[i];
+                size++;
+            }
+        }
+    }
+
+
+    /**
+     * Replaces the arrays with empty ones of the given length.
+     */
+    private void allocate(int length) {
+        hashes = new long[length];
+        keys = new String[length];
+        nodes = new GraphNode[length];
+        reciprocal = Hash.reciprocal(length);
+        size = 0;
+        tombstones = 0;
+    }
+}
@@ -0,0 +1,140 @@
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for FlatHashTable.
+ * Covers the shared hash table behaviour and the tombstone encoding of the
+ * parallel-array layout.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class FlatHashTableTest {
+    private FlatHashTable table;
+    private GraphNode node1;
+    private GraphNode node2;
+    private GraphNode node3;
+
+    /**
+     * Sets up test fixtures before each test method.
+     */
+    @Before
+    public void setUp() {
+        table = new FlatHashTable(10);
+        node1 = new GraphNode("Artist1", true);
+        node2 = new GraphNode("Artist2", true);
+        node3 = new GraphNode("Artist3", true);
+    }
+
+
+    /**
+     * Tests basic insertion, replacement and retrieval.
+     */
+    @Test
+    public void testInsertAndSearch() {
+        assertNull("Should return null for new key", table.insert("key1",
+            node1));
+        assertEquals("Should find inserted node", node1, table.search("key1"));
+        assertEquals("Should return old node", node1, table.insert("key1",
+            node2));
+        assertEquals("Should store new node", node2, table.search("key1"));
+        assertEquals("Replacing should not change size", 1, table.size());
+        assertNull("Should not find missing key", table.search("key2"));
+        assertNull("Should not find null key", table.search(null));
+    }
+
+
+    /**
+     * Tests that null keys and values are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertNull() {
+        table.insert("key1", null);
+    }
+
+
+    /**
+     * Tests that colliding keys probe to the same slots as
+     * ExtensibleHashTable.
+     */
+    @Test
+    public void testCollisionMatchesExtensibleHashTable() {
+        FlatHashTable flat = new FlatHashTable(5);
+        ExtensibleHashTable boxed = new ExtensibleHashTable(5);
+        flat.insert("a", node1);
+        boxed.insert("a", node1);
+
+        assertEquals("Colliding key should get the same slot", boxed
+            .findSlotForInsert("k"), flat.findSlotForInsert("k"));
+        flat.insert("k", node2);
+        assertEquals(node1, flat.search("a"));
+        assertEquals(node2, flat.search("k"));
+    }
+
+
+    /**
+     * Tests that removal leaves a tombstone that keeps later entries on the
+     * probe path reachable and is reused by the next insert.
+     */
+    @Test
+    public void testRemoveLeavesTombstone() {
+        table.insert("a", node1);
+        table.insert("k", node2); // collides with "a"
+        int slot = table.findSlotForSearch("a");
+
+        assertEquals("Should return removed node", node1, table.remove("a"));
+        assertEquals(1, table.tombstones());
+        assertEquals("Should still find collided node", node2, table.search(
+            "k"));
+        assertNull("Removed key should be gone", table.search("a"));
+        assertNull("Second remove should find nothing", table.remove("a"));
+
+        assertEquals("Insert should reuse the tombstone", slot, table
+            .findSlotForInsert("a"));
+        table.insert("a", node3);
+        assertEquals(0, table.tombstones());
+        assertEquals(2, table.size());
+    }
+
+
+    /**
+     * Tests that resizing keeps every entry and drops tombstones.
+     */
+    @Test
+    public void testResize() {
+        table.insert("gone", node1);
+        table.remove("gone");
+        for (int i = 0; i < 50; i++) {
+            table.insert("key" + i, new GraphNode("Artist" + i, true));
+        }
+
+        assertTrue("Table should have grown", table.capacity() > 100);
+        assertEquals(50, table.size());
+        assertEquals("Resize should drop tombstones", 0, table.tombstones());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("Artist" + i, table.search("key" + i).getName());
+        }
+    }
+
+
+    /**
+     * Tests that insert/remove churn compacts in place instead of growing
+     * the table.
+     */
+    @Test
+    public void testChurnCompactsWithoutGrowing() {
+        table.insert("live", node1);
+        int capacity = table.capacity();
+        for (int i = 0; i < 1000; i++) {
+            table.insert("temp" + i, node2);
+            assertEquals(node2, table.remove("temp" + i));
+        }
+
+        assertEquals("Churn should not grow the table", capacity, table
+            .capacity());
+        assertTrue(table.tombstones() <= capacity / 4);
+        assertEquals(1, table.size());
+        assertEquals(node1, table.search("live"));
+    }
+}
@@ -2,15 +2,66 @@ import java.util.*;
 
 /**
  * Represents a graph linking artists and songs using adjacency lists.
+ *
+ * Connected components are tracked as edges are added, with a union-find
+ * structure (union by size, path compression) kept in the nodes, so the
+ * component count and the largest component size are read without walking
+ * the graph. A histogram of set sizes keeps the largest size current.
+ *
+ * Union-find cannot split a set, so removeNode marks the removed node's set
+ * dirty and remembers the node's neighbors. A dirty set still contains
+ * every true component inside it, so edges can keep merging it. Before
+ * the components are next read, each dirty set is rebuilt by a
+ * breadth-first search from the remembered neighbors, which together reach
+ * every surviving node of the set. Only the sets touched by removals are
+ * walked. The rebuild also runs as soon as there are more seeds than
+ * nodes, so a workload that only removes keeps the pending work, and the
+ * removed nodes that the seeds and the dirty sets' parent links still
+ * reach, proportional to the graph.
+ *
+ * Every node's id is its position in the node list, so ids stay dense
+ * from 0 to nodeCount() - 1 and can index arrays and bitsets. removeNode
+ * moves the last node into the removed node's position and gives it that
+ * id, which makes removal O(1). The id freed is always the last one, and
+ * the next addNode takes it again.
+ *
+ * snapshot() returns an immutable GraphSnapshot in compressed sparse row
+ * form for read-heavy analytics. It is kept until the graph is next
+ * changed through addNode, addEdge or removeNode, so repeated reads
+ * between changes share one copy.
  */
 public class Graph {
     private final List<GraphNode> nodes;
 
+    /** Number of union-find sets, counting dirty sets as one each */
+    private int componentCount;
+
+    /** sizeCounts[s] is the number of sets of size s */
+    private int[] sizeCounts;
+
+    /** Largest s with a nonzero sizeCounts[s] */
+    private int largestComponent;
+
+    /** Current roots of the dirty sets, each listed once at its dirtyIndex */
+    private final List<GraphNode> dirtyRoots;
+
+    /** Neighbors of removed nodes that cleanup searches from, each once */
+    private final List<GraphNode> seeds;
+
+    /** visitMark value of the current traversal */
+    private int visitMark;
+
+    /** Snapshot of the current graph, or null once the graph has changed */
+    private GraphSnapshot snapshot;
+
     /**
      * Constructs an empty graph.
      */
     public Graph() {
         this.nodes = new ArrayList<>();
+        this.sizeCounts = new int[16];
+        this.dirtyRoots = new ArrayList<>();
+        this.seeds = new ArrayList<>();
     }
 
 
@@ -25,7 +76,11 @@ public class Graph {
      */
     public GraphNode addNode(String name, boolean isArtist) {
         GraphNode node = new GraphNode(name, isArtist);
+        node.id = nodes.size();
         nodes.add(node);
+        snapshot = null;
+        componentCount++;
+        countSize(1, 1);
         return node;
     }
 
@@ -39,8 +94,9 @@ public class Graph {
      *            the second node
      */
     public void addEdge(GraphNode node1, GraphNode node2) {
-        node1.addEdge(node2);
-        node2.addEdge(node1);
+        node1.addEdge(node2); // adds the reciprocal edge as well
+        union(node1, node2);
+        snapshot = null;
     }
 
 
@@ -48,62 +104,66 @@ public class Graph {
      * Prints basic graph statistics (node and edge counts).
      */
     public void printGraph() {
-        int edgeCount = nodes.stream().mapToInt(n -> n.getEdges().size()).sum()
-            / 2;
-        System.out.println("Total nodes: " + nodes.size());
-        System.out.println("Total edges: " + edgeCount);
+        printGraph(OutputSink.CONSOLE);
     }
 
 
     /**
-     * Analyzes and prints connected components information.
+     * Prints basic graph statistics to the given sink.
+     *
+     * @param out
+     *            where the lines go
      */
-    public void analyzeComponents() {
-        Set<GraphNode> visited = new HashSet<>();
-        Map<Integer, Integer> componentSizes = new HashMap<>();
-        int componentId = 0;
-
+    public void printGraph(OutputSink out) {
+        long degreeSum = 0;
         for (GraphNode node : nodes) {
-            if (!visited.contains(node)) {
-                int size = dfsComponentSize(node, visited, new HashSet<>());
-                componentSizes.put(componentId++, size);
-            }
+            degreeSum += node.degree();
         }
+        int edgeCount = (int)(degreeSum / 2);
+        out.println("Total nodes: " + nodes.size());
+        out.println("Total edges: " + edgeCount);
+    }
 
-        int numComponents = componentSizes.size();
-        int largestComponent = componentSizes.values().stream().max(
-            Integer::compare).orElse(0);
 
-        System.out.println("Number of connected components: " + numComponents);
-        System.out.println("Largest component size: " + largestComponent);
+    /**
+     * Analyzes and prints connected components information.
+     */
+    public void analyzeComponents() {
+        analyzeComponents(OutputSink.CONSOLE);
     }
 
 
     /**
-     * Helper method for DFS traversal to calculate component size.
-     * 
-     * @param node
-     *            the current node being visited
-     * @param visited
-     *            set of all visited nodes
-     * @param currentComponent
-     *            nodes in the current component
-     * @return size of the current component
-     */
-    private int dfsComponentSize(
-        GraphNode node,
-        Set<GraphNode> visited,
-        Set<GraphNode> currentComponent) {
-        visited.add(node);
-        currentComponent.add(node);
-
-        for (GraphNode neighbor : node.getEdges()) {
-            if (!visited.contains(neighbor)) {
-                dfsComponentSize(neighbor, visited, currentComponent);
-            }
-        }
+     * Prints connected components information to the given sink.
+     *
+     * @param out
+     *            where the lines go
+     */
+    public void analyzeComponents(OutputSink out) {
+        out.println("Number of connected components: " + componentCount());
+        out.println("Largest component size: " + largestComponentSize());
+    }
 
-        return currentComponent.size();
+
+    /**
+     * Returns the number of connected components.
+     *
+     * @return the component count, 0 for an empty graph
+     */
+    public int componentCount() {
+        cleanDirtyComponents();
+        return componentCount;
+    }
+
+
+    /**
+     * Returns the number of nodes in the largest connected component.
+     *
+     * @return the largest component size, 0 for an empty graph
+     */
+    public int largestComponentSize() {
+        cleanDirtyComponents();
+        return largestComponent;
     }
 
 
@@ -114,16 +174,105 @@ public class Graph {
      *            the node to remove
      */
     public void removeNode(GraphNode node) {
-        if (node == null || !nodes.contains(node)) {
+        if (node == null || node.id >= nodes.size() || nodes.get(
+            node.id) != node) {
             return;
         }
 
-        for (GraphNode neighbor : new ArrayList<>(node.getEdges())) {
+        GraphNode root = find(node);
+        if (node.degree() == 0 && root.dirtyIndex < 0) {
+            // A clean set whose node has no edges is just that node
+            componentCount--;
+            countSize(1, -1);
+        }
+        else {
+            markDirty(root);
+        }
+
+        // Removing the last edge moves nothing, so take them from the end
+        while (node.degree() > 0) {
+            GraphNode neighbor = node.neighborAt(node.degree() - 1);
+            if (!neighbor.seeded) {
+                neighbor.seeded = true;
+                seeds.add(neighbor);
+            }
             neighbor.removeEdge(node);
         }
 
-        node.getEdges().clear();
-        nodes.remove(node);
+        node.removed = true;
+        snapshot = null;
+        GraphNode last = nodes.remove(nodes.size() - 1);
+        if (last != node) {
+            last.id = node.id;
+            nodes.set(node.id, last);
+        }
+
+        // Each seed stands for at least one removed edge, which pays for
+        // the walk, and the dirty roots never outnumber the seeds
+        if (seeds.size() > nodes.size()) {
+            cleanDirtyComponents();
+        }
+    }
+
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return the node count, one more than the largest id
+     */
+    public int nodeCount() {
+        return nodes.size();
+    }
+
+
+    /**
+     * Returns the node with a given id.
+     *
+     * @param id
+     *            a node id from 0 to nodeCount() - 1
+     * @return the node whose getId() is id
+     * @throws IndexOutOfBoundsException
+     *             if no node has the id
+     */
+    public GraphNode getNode(int id) {
+        return nodes.get(id);
+    }
+
+
+    /**
+     * Gives a node its saved neighbors in bulk, for loading a saved graph,
+     * and merges its component with those of neighbors restored before it.
+     * Every node must have been added first, and each edge must be listed
+     * from both ends, so that it is merged once.
+     *
+     * @param node
+     *            a node of this graph
+     * @param neighbors
+     *            its neighbors, all nodes of this graph; the array is kept
+     */
+    void restoreNeighbors(GraphNode node, GraphNode[] neighbors) {
+        node.restoreNeighbors(neighbors);
+        for (GraphNode neighbor : neighbors) {
+            if (neighbor.id < node.id) {
+                union(node, neighbor);
+            }
+        }
+        snapshot = null;
+    }
+
+
+    /**
+     * Returns an immutable compressed sparse row copy of the graph, built
+     * on the first call after a change. Edges added or removed directly
+     * through GraphNode are not seen until the graph itself next changes.
+     *
+     * @return the snapshot of the current nodes and edges
+     */
+    public GraphSnapshot snapshot() {
+        if (snapshot == null) {
+            snapshot = new GraphSnapshot(this);
+        }
+        return snapshot;
     }
 
 
@@ -135,4 +284,158 @@ public class Graph {
     public List<GraphNode> getNodes() {
         return new ArrayList<>(nodes);
     }
+
+
+    /**
+     * Returns the number of seeds waiting for the next rebuild, for testing
+     * purposes.
+     *
+     * @return the number of listed seeds
+     */
+    int pendingSeeds() {
+        return seeds.size();
+    }
+
+
+    /**
+     * Finds the root of a node's set, pointing every node on the way
+     * directly at it.
+     */
+    private GraphNode find(GraphNode node) {
+        GraphNode root = node;
+        while (root.parent != root) {
+            root = root.parent;
+        }
+        while (node.parent != root) {
+            GraphNode next = node.parent;
+            node.parent = root;
+            node = next;
+        }
+        return root;
+    }
+
+
+    /**
+     * Merges the sets of two nodes, hanging the smaller under the larger.
+     * The merged set is dirty if either was.
+     */
+    private void union(GraphNode node1, GraphNode node2) {
+        GraphNode root1 = find(node1);
+        GraphNode root2 = find(node2);
+        if (root1 == root2) {
+            return;
+        }
+        if (root1.componentSize < root2.componentSize) {
+            GraphNode swap = root1;
+            root1 = root2;
+            root2 = swap;
+        }
+
+        // Count the merged size first so largestComponent never has to
+        // search down from a size that is only briefly missing
+        countSize(root1.componentSize + root2.componentSize, 1);
+        countSize(root1.componentSize, -1);
+        countSize(root2.componentSize, -1);
+        root2.parent = root1;
+        root1.componentSize += root2.componentSize;
+        componentCount--;
+        if (root2.dirtyIndex >= 0) {
+            // root1 now stands for the dirty set
+            unmarkDirty(root2);
+            markDirty(root1);
+        }
+    }
+
+
+    /**
+     * Marks a root's set for rebuilding.
+     */
+    private void markDirty(GraphNode root) {
+        if (root.dirtyIndex < 0) {
+            root.dirtyIndex = dirtyRoots.size();
+            dirtyRoots.add(root);
+        }
+    }
+
+
+    /**
+     * Takes a node off the dirty root list, moving the last root into its
+     * position.
+     */
+    private void unmarkDirty(GraphNode node) {
+        GraphNode last = dirtyRoots.remove(dirtyRoots.size() - 1);
+        if (last != node) {
+            last.dirtyIndex = node.dirtyIndex;
+            dirtyRoots.set(node.dirtyIndex, last);
+        }
+        node.dirtyIndex = -1;
+    }
+
+
+    /**
+     * Rebuilds every dirty set from the true edges. Each dirty set is
+     * dropped, then every surviving seed not yet reached starts a
+     * breadth-first search whose nodes become a new set rooted at the seed.
+     * This points every survivor at a live root, so no remaining node or
+     * list links to a removed node any more.
+     */
+    private void cleanDirtyComponents() {
+        if (dirtyRoots.isEmpty()) {
+            return;
+        }
+
+        for (GraphNode stale : dirtyRoots) {
+            countSize(stale.componentSize, -1);
+            componentCount--;
+            stale.dirtyIndex = -1;
+        }
+        dirtyRoots.clear();
+
+        int mark = ++visitMark;
+        ArrayDeque<GraphNode> queue = new ArrayDeque<>();
+        for (GraphNode seed : seeds) {
+            seed.seeded = false;
+            if (seed.removed || seed.visitMark == mark) {
+                continue;
+            }
+            seed.visitMark = mark;
+            queue.add(seed);
+            int size = 0;
+            while (!queue.isEmpty()) {
+                GraphNode node = queue.poll();
+                node.parent = seed;
+                size++;
+                for (int i = 0; i < node.degree(); i++) {
+                    GraphNode neighbor = node.neighborAt(i);
+                    if (neighbor.visitMark != mark) {
+                        neighbor.visitMark = mark;
+                        queue.add(neighbor);
+                    }
+                }
+            }
+            seed.componentSize = size;
+            countSize(size, 1);
+            componentCount++;
+        }
+        seeds.clear();
+    }
+
+
+    /**
+     * Adjusts the number of sets of a given size and keeps
+     * largestComponent up to date.
+     */
+    private void countSize(int size, int delta) {
+        if (size >= sizeCounts.length) {
+            sizeCounts = Arrays.copyOf(sizeCounts, Math.max(size + 1,
+                sizeCounts.length * 2));
+        }
+        sizeCounts[size] += delta;
+        if (delta > 0 && size > largestComponent) {
+            largestComponent = size;
+        }
+        while (largestComponent > 0 && sizeCounts[largestComponent] == 0) {
+            largestComponent--;
+        }
+    }
 }
@@ -1,14 +1,71 @@
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Represents a node in the graph that can be either an artist or a song.
  * Each node maintains a list of edges to connected nodes.
+ *
+ * The neighbors are kept in a dense array, so small nodes stay compact
+ * and are scanned linearly. Once a node's degree passes INDEX_THRESHOLD it
+ * also gets an open-addressed identity index from neighbor to array
+ * position, which makes the membership test, insert and remove O(1) for
+ * popular artists. Removal moves the last neighbor into the freed
+ * position, so the order of the neighbors is not preserved.
+ *
+ * The package-private fields are union-find state owned by the Graph the
+ * node was added to; a node created on its own leaves them unused.
  */
 public class GraphNode {
     private final String name;
     private final boolean isArtist;
-    private final List<GraphNode> edges;
+
+    /** Degree at which a node starts keeping an identity index */
+    static final int INDEX_THRESHOLD = 16;
+
+    /** Neighbors in positions 0 to degree - 1 */
+    private GraphNode[] edges;
+
+    /** Number of neighbors */
+    private int degree;
+
+    /**
+     * Identity index of the neighbors, or null below INDEX_THRESHOLD. Each
+     * slot holds a position in edges plus one; 0 marks an empty slot. The
+     * length is a power of two at least twice the degree.
+     */
+    private int[] index;
+
+    /** Read-only view returned by neighbors(), created on first use */
+    private List<GraphNode> view;
+
+    /** Union-find parent; a root is its own parent */
+    GraphNode parent;
+
+    /** Node count of the set this node is the root of */
+    int componentSize;
+
+    /**
+     * Position of a root in its graph's list of dirty roots, whose sets may
+     * have been split by a removal, or -1 if the node is not listed
+     */
+    int dirtyIndex;
+
+    /** Set while the node is listed as a seed for rebuilding dirty sets */
+    boolean seeded;
+
+    /** Set once the node is removed from its graph */
+    boolean removed;
+
+    /** Last graph traversal that visited this node */
+    int visitMark;
+
+    /** Position in the owning graph's node list, kept up to date by Graph */
+    int id;
 
     /**
      * Constructs a new GraphNode.
@@ -26,7 +83,10 @@ public class GraphNode {
         }
         this.name = name;
         this.isArtist = isArtist;
-        this.edges = new ArrayList<>();
+        this.edges = new GraphNode[4];
+        this.parent = this;
+        this.componentSize = 1;
+        this.dirtyIndex = -1;
     }
 
 
@@ -45,9 +105,9 @@ public class GraphNode {
         if (node == this) {
             throw new IllegalArgumentException("Cannot create self-edge");
         }
-        if (!edges.contains(node)) {
-            edges.add(node);
-            node.edges.add(this); // Add reciprocal edge
+        if (indexOf(node) < 0) {
+            append(node);
+            node.append(this); // Add reciprocal edge
         }
     }
 
@@ -59,8 +119,8 @@ public class GraphNode {
      *            the node to disconnect from
      */
     public void removeEdge(GraphNode node) {
-        edges.remove(node);
-        node.edges.remove(this);
+        removeAt(indexOf(node));
+        node.removeAt(node.indexOf(this));
     }
 
 
@@ -74,6 +134,17 @@ public class GraphNode {
     }
 
 
+    /**
+     * Gets the id the owning graph assigned to this node. Ids are dense and
+     * can change when another node is removed.
+     *
+     * @return the node's position in its graph, or 0 if not in a graph
+     */
+    public int getId() {
+        return id;
+    }
+
+
     /**
      * Checks if this node represents an artist.
      * 
@@ -90,6 +161,264 @@ public class GraphNode {
      * @return list of connected nodes
      */
     public List<GraphNode> getEdges() {
-        return new ArrayList<>(edges); // Return a defensive copy
+        List<GraphNode> copy = new ArrayList<>(degree); // defensive copy
+        for (int i = 0; i < degree; i++) {
+            copy.add(edges[i]);
+        }
+        return copy;
+    }
+
+
+    /**
+     * Gets the number of neighbors.
+     *
+     * @return the degree of this node
+     */
+    public int degree() {
+        return degree;
+    }
+
+
+    /**
+     * Gets a neighbor by position, for traversals that must not copy the
+     * edges. Positions change when edges are removed.
+     *
+     * @param i
+     *            a position from 0 to degree() - 1
+     * @return the neighbor at that position
+     * @throws IndexOutOfBoundsException
+     *             if i is not a valid position
+     */
+    public GraphNode neighborAt(int i) {
+        if (i < 0 || i >= degree) {
+            throw new IndexOutOfBoundsException("No neighbor at " + i);
+        }
+        return edges[i];
+    }
+
+
+    /**
+     * Gets a read-only view of the neighbors. The view is live: it reflects
+     * later edge changes and is not copied.
+     *
+     * @return an unmodifiable list backed by this node's edges
+     */
+    public List<GraphNode> neighbors() {
+        if (view == null) {
+            view = new NeighborView();
+        }
+        return view;
+    }
+
+
+    /**
+     * Passes every neighbor to an action, in position order, without
+     * allocating. The action must not add or remove edges of this node.
+     *
+     * @param action
+     *            called once per neighbor
+     */
+    public void forEachNeighbor(Consumer<? super GraphNode> action) {
+        for (int i = 0; i < degree; i++) {
+            action.accept(edges[i]);
+        }
+    }
+
+
+    /**
+     * Passes the graph id of every neighbor to an action, in position
+     * order, without allocating or boxing. The action must not add or
+     * remove edges of this node.
+     *
+     * @param action
+     *            called once per neighbor with its id
+     */
+    public void forEachNeighborId(IntConsumer action) {
+        for (int i = 0; i < degree; i++) {
+            action.accept(edges[i].id);
+        }
+    }
+
+
+    /**
+     * Finds the position of a neighbor.
+     */
+    private int indexOf(GraphNode node) {
+        if (index == null) {
+            for (int i = 0; i < degree; i++) {
+                if (edges[i] == node) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int mask = index.length - 1;
+        for (int slot = slotOf(node, mask);; slot = (slot + 1) & mask) {
+            int position = index[slot] - 1;
+            if (position < 0) {
+                return -1;
+            }
+            if (edges[position] == node) {
+                return position;
+            }
+        }
+    }
+
+
+    /**
+     * Replaces the neighbors with the given array, for loading a saved
+     * graph. The array is kept, not copied; it must not contain this node
+     * or any node twice, and the caller must restore the reciprocal edges.
+     *
+     * @param neighbors
+     *            the new neighbors, in order
+     */
+    void restoreNeighbors(GraphNode[] neighbors) {
+        degree = neighbors.length;
+        if (degree > 0) {
+            edges = neighbors;
+        }
+        index = null;
+        if (degree > INDEX_THRESHOLD) {
+            rebuildIndex(Integer.highestOneBit(degree) * 4);
+        }
+    }
+
+
+    /**
+     * Adds a neighbor known to be absent.
+     */
+    private void append(GraphNode node) {
+        if (degree == edges.length) {
+            edges = Arrays.copyOf(edges, degree * 2);
+        }
+        edges[degree++] = node;
+
+        if (index != null && degree * 2 > index.length) {
+            rebuildIndex(index.length * 2);
+        }
+        else if (index != null) {
+            indexPut(node, degree - 1);
+        }
+        else if (degree > INDEX_THRESHOLD) {
+            rebuildIndex(Integer.highestOneBit(degree) * 4);
+        }
+    }
+
+
+    /**
+     * Removes the neighbor at a position by moving the last neighbor into
+     * it. Does nothing for a negative position.
+     */
+    private void removeAt(int position) {
+        if (position < 0) {
+            return;
+        }
+        GraphNode last = edges[--degree];
+        if (index != null) {
+            indexRemove(edges[position]);
+            if (position != degree) {
+                indexMove(last, position);
+            }
+        }
+        edges[position] = last;
+        edges[degree] = null;
+
+        if (index != null && degree < INDEX_THRESHOLD / 2) {
+            index = null;
+        }
+    }
+
+
+    /**
+     * Starting slot of a node in an index with the given mask. Identity
+     * hash codes are spread by a multiplicative hash first.
+     */
+    private static int slotOf(GraphNode node, int mask) {
+        int h = System.identityHashCode(node) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+
+    /**
+     * Replaces the index with one of the given length over all neighbors.
+     */
+    private void rebuildIndex(int length) {
+        index = new int[length];
+        for (int i = 0; i < degree; i++) {
+            indexPut(edges[i], i);
+        }
+    }
+
+
+    /**
+     * Records a neighbor's position in the first free slot of its probe
+     * run.
+     */
+    private void indexPut(GraphNode node, int position) {
+        int mask = index.length - 1;
+        int slot = slotOf(node, mask);
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+
+    /**
+     * Points the slot of a neighbor at a new position.
+     */
+    private void indexMove(GraphNode node, int position) {
+        int mask = index.length - 1;
+        int slot = slotOf(node, mask);
+        while (edges[index[slot] - 1] != node) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+
+    /**
+     * Clears the slot of a neighbor and shifts later entries of the probe
+     * run back, so lookups never need tombstones.
+     */
+    private void indexRemove(GraphNode node) {
+        int mask = index.length - 1;
+        int slot = slotOf(node, mask);
+        while (edges[index[slot] - 1] != node) {
+            slot = (slot + 1) & mask;
+        }
+
+        int hole = slot;
+        for (int next = (hole + 1) & mask; index[next] != 0; next = (next + 1)
+            & mask) {
+            int home = slotOf(edges[index[next] - 1], mask);
+            // Move the entry back unless its home lies in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                index[hole] = index[next];
+                hole = next;
+            }
+        }
+        index[hole] = 0;
+    }
+
+
+    /**
+     * The list returned by neighbors().
+     */
+    private final class NeighborView extends AbstractList<GraphNode>
+        implements RandomAccess {
+
+        @Override
+        public GraphNode get(int i) {
+            return neighborAt(i);
+        }
+
+
+        @Override
+        public int size() {
+            return degree;
+        }
     }
 }
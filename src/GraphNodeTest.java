@@ -1,4 +1,10 @@
 import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -58,4 +64,80 @@ public class GraphNodeTest {
         assertFalse("Song should not have edge", song.getEdges().contains(
             artist));
     }
+
+
+    /**
+     * Tests that a node with many edges keeps them all, ignores duplicates
+     * and removes any of them, as its neighbors move between the array
+     * and the identity index.
+     */
+    @Test
+    public void testHighDegree() {
+        GraphNode[] songs = new GraphNode[1000];
+        for (int i = 0; i < songs.length; i++) {
+            songs[i] = new GraphNode("Song" + i, false);
+            artist.addEdge(songs[i]);
+            artist.addEdge(songs[i]);
+        }
+        assertEquals(songs.length, artist.degree());
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < songs.length; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(3));
+        for (int k = 0; k < songs.length - 5; k++) {
+            int removed = order.get(k);
+            artist.removeEdge(songs[removed]);
+            assertEquals(songs.length - k - 1, artist.degree());
+            assertEquals(0, songs[removed].degree());
+        }
+
+        Set<GraphNode> left = new HashSet<>(artist.getEdges());
+        assertEquals(5, left.size());
+        for (int k = songs.length - 5; k < songs.length; k++) {
+            assertTrue(left.contains(songs[order.get(k)]));
+            assertEquals(artist, songs[order.get(k)].neighborAt(0));
+        }
+        artist.removeEdge(song); // not a neighbor
+        assertEquals(5, artist.degree());
+    }
+
+
+    /**
+     * Tests the read-only neighbor view, positional access and
+     * forEachNeighbor.
+     */
+    @Test
+    public void testNeighborAccess() {
+        GraphNode other = new GraphNode("Other", false);
+        List<GraphNode> view = artist.neighbors();
+        assertTrue(view.isEmpty());
+        artist.addEdge(song);
+        artist.addEdge(other);
+
+        assertEquals("View should be live", 2, view.size());
+        assertEquals(song, artist.neighborAt(0));
+        assertEquals(other, view.get(1));
+        assertSame(view, artist.neighbors());
+
+        List<GraphNode> visited = new ArrayList<>();
+        artist.forEachNeighbor(visited::add);
+        assertEquals(view, visited);
+
+        try {
+            view.add(song);
+            fail("View should be read-only");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            artist.neighborAt(2);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
 }
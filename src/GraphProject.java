@@ -3,10 +3,30 @@
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Function;
 
 /**
  * Main for Graph project (CS3114/CS5040 Spring 2025 Project 4).
- * Usage: java GraphProject <init-hash-size> <command-file>
+ * Usage: java GraphProject [--mmap | --pipeline]
+ * [--output=console|buffered|count|null] [--load=<snapshot>]
+ * [--save=<snapshot>] [--wal=<log> [--wal-batch=<records>]
+ * [--wal-interval=<ms>]] <init-hash-size> <command-file>
+ *
+ * With --mmap the command file is mapped into memory and scanned as bytes
+ * by MappedCommandReader instead of being read line by line. With
+ * --pipeline, CommandPipeline parses lines on one thread while another
+ * executes them. --output picks the OutputSink for command output: console
+ * prints each line as it comes, buffered prints the same bytes in large
+ * blocks, count prints only the totals at the end and null prints nothing.
+ *
+ * --load restores the tables and graph from a ProjectSnapshot file before
+ * the commands run, and --save writes one after they have run. The save
+ * and load commands do the same in the middle of a command file. --wal
+ * keeps a CommandLog: commands already in it are replayed after --load,
+ * and every later insert and remove is logged before it is applied, in
+ * group commits of --wal-batch records or --wal-interval milliseconds.
  *
  * @author Yash Atal
  * @version 1.0
@@ -41,31 +61,45 @@ public class GraphProject {
     private ExtensibleHashTable songTable;
     private Graph graph;
 
+    /** Where output goes; NULL while a command log is being replayed */
+    private OutputSink out;
+
+    /** The write-ahead log of inserts and removes, or null for none */
+    private CommandLog log;
+
+    /** Holds the command being processed */
+    private final CommandParser parser = new CommandParser();
+
+    /** Adds the node of a new name to the graph, for computeIfAbsent */
+    private final Function<String, GraphNode> addArtist = name -> graph
+        .addNode(name, true);
+    private final Function<String, GraphNode> addSong = name -> graph.addNode(
+        name, false);
+
     public GraphProject(int initHashSize) {
+        this(initHashSize, OutputSink.CONSOLE);
+    }
+
+
+    /**
+     * Constructs a project that prints to the given sink.
+     *
+     * @param initHashSize
+     *            initial capacity of the artist and song tables
+     * @param out
+     *            where command output goes
+     */
+    public GraphProject(int initHashSize, OutputSink out) {
         artistTable = new ExtensibleHashTable(initHashSize);
         songTable = new ExtensibleHashTable(initHashSize);
         graph = new Graph();
+        this.out = out;
     }
 
 
     public void processCommand(String command) {
-        String[] parts = command.split(" ", 2);
-        String cmd = parts[0];
-        String args = parts.length > 1 ? parts[1] : "";
-
-        switch (cmd) {
-            case "insert":
-                processInsert(args);
-                break;
-            case "remove":
-                processRemove(args);
-                break;
-            case "print":
-                processPrint(args);
-                break;
-            default:
-                System.out.println("Unknown command: " + cmd);
-        }
+        parser.parse(command);
+        runParsed();
     }
 
 // public void processInsert(String args) {
@@ -101,134 +135,485 @@ public class GraphProject {
 
     public void processInsert(String args) {
         // 1. Add null check for input
-        if (args == null || args.trim().isEmpty()) {
-            System.out.println("Error: Input cannot be null or empty");
+        if (args == null) {
+            out.println("Error: Input cannot be null or empty");
             return;
         }
+        parser.parseInsert(args, 0);
+        runParsed();
+    }
 
-        // 2. Split and validate format
-        String[] parts = args.split("<SEP>");
-        if (parts.length != 2) {
-            System.out.println(
-                "Error: Invalid insert format. Use: Artist<SEP>Song");
-            return;
+
+    /**
+     * Runs the command in parser, or prints what is wrong with it.
+     */
+    private void runParsed() {
+        switch (parser.op) {
+            case INSERT:
+                insertPair(parser.first, parser.second);
+                break;
+            case REMOVE_ARTIST:
+                processRemove(true, parser.first);
+                break;
+            case REMOVE_SONG:
+                processRemove(false, parser.first);
+                break;
+            case PRINT_ARTIST:
+                artistTable.printContents("artist", out);
+                break;
+            case PRINT_SONG:
+                songTable.printContents("song", out);
+                break;
+            case PRINT_GRAPH:
+                graph.analyzeComponents(out);
+                break;
+            case SAVE:
+                processSave(parser.first.toString());
+                break;
+            case LOAD:
+                processLoad(parser.first.toString());
+                break;
+            case EMPTY_INSERT:
+                out.println("Error: Input cannot be null or empty");
+                break;
+            case BAD_INSERT:
+                out.println(
+                    "Error: Invalid insert format. Use: Artist<SEP>Song");
+                break;
+            case EMPTY_ARTIST:
+                out.println("Error: Artist name cannot be empty");
+                break;
+            case EMPTY_SONG:
+                out.println("Error: Song name cannot be empty");
+                break;
+            case BAD_REMOVE:
+                out.println("Invalid remove format");
+                break;
+            case BAD_REMOVE_TYPE:
+                out.println("Invalid remove type: " + parser.first);
+                break;
+            case BAD_PRINT:
+                out.println("Invalid print option: " + parser.first);
+                break;
+            case BAD_SAVE:
+                out.println("Invalid save format");
+                break;
+            case BAD_LOAD:
+                out.println("Invalid load format");
+                break;
+            default:
+                out.println("Unknown command: " + parser.first);
         }
+    }
 
-        // 3. Trim and validate artist/song names
-        String artist = parts[0].trim();
-        String song = parts[1].trim();
 
-        if (artist.isEmpty()) {
-            System.out.println("Error: Artist name cannot be empty");
-            return;
-        }
-        if (song.isEmpty()) {
-            System.out.println("Error: Song name cannot be empty");
-            return;
+    /**
+     * Inserts an artist and a song that have already been validated, and
+     * the edge between them. The names may be views into a read buffer: a
+     * String is only made for a name that is not in its table yet, and the
+     * message prints the names the nodes hold.
+     *
+     * @param artist
+     *            the trimmed, non-empty artist name
+     * @param song
+     *            the trimmed, non-empty song name
+     */
+    void insertPair(CharSequence artist, CharSequence song) {
+        insertPair(artist, Hash.sfold(artist), song, Hash.sfold(song));
+    }
+
+
+    /**
+     * Inserts a validated artist and song whose sfold sums the caller has
+     * already computed.
+     *
+     * @param artist
+     *            the trimmed, non-empty artist name
+     * @param artistHash
+     *            Hash.sfold(artist)
+     * @param song
+     *            the trimmed, non-empty song name
+     * @param songHash
+     *            Hash.sfold(song)
+     */
+    void insertPair(
+        CharSequence artist,
+        long artistHash,
+        CharSequence song,
+        long songHash) {
+        if (log != null) {
+            try {
+                log.appendInsert(artist, song);
+            }
+            catch (IOException e) {
+                out.println("Error writing command log: " + e.getMessage());
+                return;
+            }
         }
 
         try {
             // 4. Handle artist
-            GraphNode artistNode = artistTable.search(artist);
-            if (artistNode == null) {
-                artistNode = graph.addNode(artist, true);
-                artistTable.insert(artist, artistNode);
-            }
+            GraphNode artistNode = artistTable.computeIfAbsent(artist,
+                artistHash, addArtist);
 
             // 5. Handle song
-            GraphNode songNode = songTable.search(song);
-            if (songNode == null) {
-                songNode = graph.addNode(song, false);
-                songTable.insert(song, songNode);
-            }
+            GraphNode songNode = songTable.computeIfAbsent(song, songHash,
+                addSong);
 
             // 6. Add edge
             graph.addEdge(artistNode, songNode);
-            System.out.println("Successfully inserted " + artist + " and "
-                + song + " into the database");
+            out.println("Successfully inserted " + artistNode.getName()
+                + " and " + songNode.getName() + " into the database");
 
         }
         catch (Exception e) {
             // 7. Handle any unexpected errors
-            System.out.println("Error processing insert: " + e.getMessage());
+            out.println("Error processing insert: " + e.getMessage());
         }
     }
 
 
-    private void processRemove(String args) {
-        String[] parts = args.split(" ", 2);
-        if (parts.length != 2) {
-            System.out.println("Invalid remove format");
-            return;
+    private void processRemove(boolean artist, CharSequence name) {
+        if (log != null) {
+            try {
+                log.appendRemove(artist, name);
+            }
+            catch (IOException e) {
+                out.println("Error writing command log: " + e.getMessage());
+                return;
+            }
         }
+        removeEntry(artist, name);
+    }
 
-        String type = parts[0];
-        String name = parts[1];
 
-        if (type.equals("artist")) {
-            GraphNode node = artistTable.remove(name);
-            if (node != null) {
-                graph.removeNode(node);
-                System.out.println("Artist " + name + " removed");
+    /**
+     * Removes an artist or song and its edges, if present.
+     *
+     * @param artist
+     *            true to remove an artist, false for a song
+     * @param name
+     *            the name to remove
+     */
+    void removeEntry(boolean artist, CharSequence name) {
+        String label = artist ? "Artist " : "Song ";
+        long hash = Hash.sfold(name);
+        GraphNode node = artist
+            ? artistTable.remove(name, hash)
+            : songTable.remove(name, hash);
+        if (node != null) {
+            graph.removeNode(node);
+            out.println(label + name + " removed");
+        }
+        else {
+            out.println(label + name + " not found");
+        }
+    }
+
+
+    private void processSave(String args) {
+        try {
+            ProjectSnapshot.save(this, Paths.get(args));
+        }
+        catch (IOException e) {
+            out.println("Error saving snapshot: " + e.getMessage());
+            return;
+        }
+        out.println("Saved snapshot to " + args);
+        if (log != null) {
+            try {
+                log.checkpoint(args);
             }
-            else {
-                System.out.println("Artist " + name + " not found");
+            catch (IOException e) {
+                out.println("Error writing command log: " + e.getMessage());
             }
         }
-        else if (type.equals("song")) {
-            GraphNode node = songTable.remove(name);
-            if (node != null) {
-                graph.removeNode(node);
-                System.out.println("Song " + name + " removed");
+    }
+
+
+    private void processLoad(String args) {
+        try {
+            ProjectSnapshot.load(this, Paths.get(args));
+        }
+        catch (IOException e) {
+            out.println("Error loading snapshot: " + e.getMessage());
+            return;
+        }
+        out.println("Loaded snapshot from " + args);
+        if (log != null) {
+            try {
+                log.appendLoad(args);
             }
-            else {
-                System.out.println("Song " + name + " not found");
+            catch (IOException e) {
+                out.println("Error writing command log: " + e.getMessage());
             }
         }
-        else {
-            System.out.println("Invalid remove type: " + type);
+    }
+
+
+    /**
+     * Opens a write-ahead command log, replays the commands already in it
+     * on top of the current state without printing anything, and logs
+     * every later insert, remove, save and load to it. Each insert and
+     * remove is logged before it is applied; one that cannot be logged is
+     * not applied.
+     *
+     * @param file
+     *            the log file, created if missing
+     * @param batchSize
+     *            records committed to disk together
+     * @param syncIntervalMillis
+     *            longest a record waits for its batch, 0 for no limit
+     * @return the number of commands replayed
+     * @throws IOException
+     *             if the log cannot be opened or replayed
+     */
+    public int openLog(Path file, int batchSize, long syncIntervalMillis)
+        throws IOException {
+        closeLog();
+        OutputSink printing = out;
+        out = OutputSink.NULL;
+        try {
+            log = CommandLog.open(file, batchSize, syncIntervalMillis, this);
+        }
+        finally {
+            out = printing;
         }
+        return log.replayed();
     }
 
 
-    private void processPrint(String args) {
-        switch (args) {
-            case "artist":
-                artistTable.printContents("artist");
-                break;
-            case "song":
-                songTable.printContents("song");
-                break;
-            case "graph":
-                graph.analyzeComponents();
-                break;
-            default:
-                System.out.println("Invalid print option: " + args);
+    /**
+     * Returns the open command log.
+     *
+     * @return the log, or null if none is open
+     */
+    CommandLog log() {
+        return log;
+    }
+
+
+    /**
+     * Commits anything the command log holds and closes it.
+     *
+     * @throws IOException
+     *             if the final commit fails
+     */
+    public void closeLog() throws IOException {
+        if (log != null) {
+            CommandLog closing = log;
+            log = null;
+            closing.close();
         }
     }
 
 
+    /**
+     * Returns the artist table, for saving snapshots.
+     *
+     * @return the table of artist nodes
+     */
+    ExtensibleHashTable artistTable() {
+        return artistTable;
+    }
+
+
+    /**
+     * Returns the song table, for saving snapshots.
+     *
+     * @return the table of song nodes
+     */
+    ExtensibleHashTable songTable() {
+        return songTable;
+    }
+
+
+    /**
+     * Returns the graph, for saving snapshots.
+     *
+     * @return the artist-song graph
+     */
+    Graph graph() {
+        return graph;
+    }
+
+
+    /**
+     * Replaces the tables and graph with loaded ones.
+     *
+     * @param artists
+     *            the new artist table
+     * @param songs
+     *            the new song table
+     * @param loadedGraph
+     *            the graph whose nodes both tables refer to
+     */
+    void restore(
+        ExtensibleHashTable artists,
+        ExtensibleHashTable songs,
+        Graph loadedGraph) {
+        artistTable = artists;
+        songTable = songs;
+        graph = loadedGraph;
+    }
+
+
+    /**
+     * Prints any output the project's sink is still holding.
+     */
+    public void flush() {
+        out.flush();
+    }
+
+
     public static void main(String[] args) {
-        if (args.length != 2) {
-            System.out.println(
-                "Usage: java GraphProject <init-hash-size> <command-file>");
+        boolean mapped = false;
+        boolean pipelined = false;
+        String output = "console";
+        String loadFile = null;
+        String saveFile = null;
+        String walFile = null;
+        int walBatch = CommandLog.DEFAULT_BATCH_SIZE;
+        long walInterval = CommandLog.DEFAULT_SYNC_INTERVAL_MILLIS;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            String option = args[first++];
+            if (option.equals("--mmap")) {
+                mapped = true;
+            }
+            else if (option.equals("--pipeline")) {
+                pipelined = true;
+            }
+            else if (option.startsWith("--output=")) {
+                output = option.substring("--output=".length());
+            }
+            else if (option.startsWith("--load=")) {
+                loadFile = option.substring("--load=".length());
+            }
+            else if (option.startsWith("--save=")) {
+                saveFile = option.substring("--save=".length());
+            }
+            else if (option.startsWith("--wal=")) {
+                walFile = option.substring("--wal=".length());
+            }
+            else if (option.matches("--wal-batch=[1-9][0-9]{0,8}")) {
+                walBatch = Integer.parseInt(option.substring(
+                    "--wal-batch=".length()));
+            }
+            else if (option.matches("--wal-interval=[0-9]{1,9}")) {
+                walInterval = Long.parseLong(option.substring(
+                    "--wal-interval=".length()));
+            }
+            else {
+                first = -1;
+                break;
+            }
+        }
+
+        OutputSink out = first < 0 ? null : createSink(output);
+        if (out == null || args.length - first != 2 || mapped && pipelined) {
+            System.out.println("Usage: java GraphProject [--mmap | --pipeline] "
+                + "[--output=console|buffered|count|null] "
+                + "[--load=<snapshot>] [--save=<snapshot>] "
+                + "[--wal=<log> [--wal-batch=<records>] "
+                + "[--wal-interval=<ms>]] <init-hash-size> <command-file>");
             return;
         }
 
-        int initHashSize = Integer.parseInt(args[0]);
-        String commandFile = args[1];
+        int initHashSize = Integer.parseInt(args[first]);
+        String commandFile = args[first + 1];
 
-        GraphProject project = new GraphProject(initHashSize);
+        GraphProject project = new GraphProject(initHashSize, out);
 
-        try (BufferedReader br = new BufferedReader(new FileReader(
-            commandFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                project.processCommand(line.trim());
+        if (loadFile != null) {
+            try {
+                ProjectSnapshot.load(project, Paths.get(loadFile));
+                out.println("Loaded snapshot from " + loadFile);
+            }
+            catch (IOException e) {
+                out.println("Error loading snapshot: " + e.getMessage());
+                out.flush();
+                return;
+            }
+        }
+
+        if (walFile != null) {
+            try {
+                int replayed = project.openLog(Paths.get(walFile), walBatch,
+                    walInterval);
+                if (replayed > 0) {
+                    out.println("Replayed " + replayed
+                        + " logged commands from " + walFile);
+                }
+            }
+            catch (IOException e) {
+                out.println("Error opening command log: " + e.getMessage());
+                out.flush();
+                return;
+            }
+        }
+
+        try {
+            if (mapped) {
+                new MappedCommandReader(project).read(Paths.get(commandFile));
+            }
+            else if (pipelined) {
+                try (BufferedReader br = new BufferedReader(new FileReader(
+                    commandFile))) {
+                    new CommandPipeline(project).run(br);
+                }
+            }
+            else {
+                try (BufferedReader br = new BufferedReader(new FileReader(
+                    commandFile))) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        project.processCommand(line.trim());
+                    }
+                }
+            }
+            if (saveFile != null) {
+                project.processSave(saveFile);
             }
         }
         catch (IOException e) {
-            System.out.println("Error reading command file: " + e.getMessage());
+            out.println("Error reading command file: " + e.getMessage());
+        }
+        finally {
+            try {
+                project.closeLog();
+            }
+            catch (IOException e) {
+                out.println("Error writing command log: " + e.getMessage());
+            }
+            out.flush();
+        }
+
+        if (out instanceof CountingOutputSink) {
+            CountingOutputSink counter = (CountingOutputSink)out;
+            System.out.println("Output lines: " + counter.lines()
+                + ", characters: " + counter.chars());
+        }
+    }
+
+
+    /**
+     * Creates the sink named by the --output option.
+     *
+     * @return the sink, or null for an unknown name
+     */
+    private static OutputSink createSink(String name) {
+        switch (name) {
+            case "console":
+                return OutputSink.CONSOLE;
+            case "buffered":
+                return new BufferedOutputSink(System.out);
+            case "count":
+                return new CountingOutputSink();
+            case "null":
+                return OutputSink.NULL;
+            default:
+                return null;
         }
     }
 }
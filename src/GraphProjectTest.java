@@ -162,4 +162,75 @@ public class GraphProjectTest {
         // Verify all inserted (would need getter methods)
         // assertEquals(10, project.getArtistCount());
     }
+
+
+    /**
+     * Tests that inserts are validated exactly as splitting on the
+     * separator and trimming would, including the trailing empty fields
+     * split drops.
+     */
+    @Test
+    public void testInsertParsingMatchesSplit() {
+        String[] args = { "A<SEP>B", " A <SEP> B ", "A<SEP>B<SEP>",
+            "A<SEP>B<SEP><SEP>", "A<SEP>B<SEP>C", "A<SEP>B<SEP> ",
+            "A<SEP>B<SEP", "A<SEP><SEP>B", "A<SEP>", "A<SEP> ", "<SEP>B",
+            " <SEP>B", "<SEP>", "<SEP><SEP>", "AB", "", "  ", "A <SEP B",
+            "\tA\t<SEP>\tB\t" };
+        for (String arg : args) {
+            StringBuilder printed = new StringBuilder();
+            GraphProject fresh = new GraphProject(10, printed::append);
+            fresh.processCommand("insert " + arg);
+            assertEquals(arg, splitInsert(arg), printed.toString());
+        }
+
+        StringBuilder printed = new StringBuilder();
+        GraphProject fresh = new GraphProject(10, printed::append);
+        fresh.processInsert(null);
+        assertEquals("Error: Input cannot be null or empty", printed
+            .toString());
+    }
+
+
+    /**
+     * Tests that a repeated name maps to the node and key made the first
+     * time it was seen.
+     */
+    @Test
+    public void testRepeatedNamesShareNode() {
+        GraphProject quiet = new GraphProject(10, OutputSink.NULL);
+        quiet.processCommand("insert Artist<SEP>Song1");
+        GraphNode artist = quiet.artistTable().search("Artist");
+        for (int i = 2; i < 50; i++) {
+            quiet.processCommand("insert  Artist <SEP>Song" + i);
+        }
+        assertSame(artist, quiet.artistTable().search("Artist"));
+        assertEquals(1, quiet.artistTable().size());
+        assertEquals(49, quiet.songTable().size());
+        assertEquals(49, artist.degree());
+    }
+
+
+    /**
+     * Returns the message the insert of args printed when it was parsed
+     * with split and trim.
+     */
+    private static String splitInsert(String args) {
+        if (args.trim().isEmpty()) {
+            return "Error: Input cannot be null or empty";
+        }
+        String[] parts = args.split("<SEP>");
+        if (parts.length != 2) {
+            return "Error: Invalid insert format. Use: Artist<SEP>Song";
+        }
+        String artist = parts[0].trim();
+        String song = parts[1].trim();
+        if (artist.isEmpty()) {
+            return "Error: Artist name cannot be empty";
+        }
+        if (song.isEmpty()) {
+            return "Error: Song name cannot be empty";
+        }
+        return "Successfully inserted " + artist + " and " + song
+            + " into the database";
+    }
 }
@@ -0,0 +1,211 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable copy of a Graph in compressed sparse row form. Nodes are the
+ * graph's ids at the time of the snapshot, and the neighbors of node v are
+ * targets[offsets[v]] to targets[offsets[v + 1] - 1]. Every edge is listed
+ * from both ends.
+ *
+ * Traversals over the snapshot read two int arrays front to back instead
+ * of chasing a GraphNode and its edge array per visit, which suits
+ * analytics that read the graph many times between changes. Graph keeps
+ * the latest snapshot and only builds a new one after it has been
+ * modified.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public final class GraphSnapshot {
+    /** Start of each node's neighbors in targets; one entry per node + 1 */
+    private final int[] offsets;
+
+    /** Neighbor ids of all nodes, back to back */
+    private final int[] targets;
+
+    /** Bit v is set if node v is an artist */
+    private final long[] artists;
+
+    /** Component analysis, run on first use */
+    private ComponentScanner components;
+
+    /**
+     * Copies the current nodes and edges of a graph.
+     *
+     * @param graph
+     *            the graph to copy
+     */
+    GraphSnapshot(Graph graph) {
+        int n = graph.nodeCount();
+        offsets = new int[n + 1];
+        artists = new long[(n + 63) >>> 6];
+        for (int v = 0; v < n; v++) {
+            GraphNode node = graph.getNode(v);
+            offsets[v + 1] = offsets[v] + node.degree();
+            if (node.isArtist()) {
+                artists[v >>> 6] |= 1L << v;
+            }
+        }
+
+        targets = new int[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            GraphNode node = graph.getNode(v);
+            for (int i = 0; i < node.degree(); i++) {
+                targets[offsets[v] + i] = node.neighborAt(i).id;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the node count
+     */
+    public int nodeCount() {
+        return offsets.length - 1;
+    }
+
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return the edge count, each edge counted once
+     */
+    public int edgeCount() {
+        return targets.length / 2;
+    }
+
+
+    /**
+     * Returns the number of neighbors of a node.
+     *
+     * @param node
+     *            a node id
+     * @return the node's degree
+     */
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+
+    /**
+     * Checks whether a node is an artist.
+     *
+     * @param node
+     *            a node id
+     * @return true for an artist, false for a song
+     */
+    public boolean isArtist(int node) {
+        return (artists[node >>> 6] & (1L << node)) != 0;
+    }
+
+
+    /**
+     * Passes every neighbor id of a node to an action.
+     *
+     * @param node
+     *            a node id
+     * @param action
+     *            called once per neighbor
+     */
+    public void forEachNeighbor(int node, IntConsumer action) {
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+            action.accept(targets[e]);
+        }
+    }
+
+
+    /**
+     * Returns the number of connected components.
+     *
+     * @return the component count
+     */
+    public int componentCount() {
+        return components().componentCount();
+    }
+
+
+    /**
+     * Returns the size of the largest connected component.
+     *
+     * @return the node count of the largest component
+     */
+    public int largestComponentSize() {
+        return components().largestComponentSize();
+    }
+
+
+    /**
+     * Prints connected components information in the same form as
+     * Graph.analyzeComponents.
+     */
+    public void analyzeComponents() {
+        analyzeComponents(OutputSink.CONSOLE);
+    }
+
+
+    /**
+     * Prints connected components information to the given sink.
+     *
+     * @param out
+     *            where the lines go
+     */
+    public void analyzeComponents(OutputSink out) {
+        out.println("Number of connected components: " + componentCount());
+        out.println("Largest component size: " + largestComponentSize());
+    }
+
+
+    /**
+     * Computes the number of edges on a shortest path from one node to
+     * every other with a breadth-first search.
+     *
+     * @param source
+     *            the node id to start from
+     * @return the distance to each node, or -1 where it cannot be reached
+     */
+    public int[] distancesFrom(int source) {
+        int[] distance = new int[nodeCount()];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[nodeCount()];
+        distance[source] = 0;
+        queue[0] = source;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int w = targets[e];
+                if (distance[w] < 0) {
+                    distance[w] = distance[v] + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return distance;
+    }
+
+
+    /**
+     * Returns a scanner over this snapshot's arrays. The arrays are shared,
+     * not copied.
+     *
+     * @return a new scanner
+     */
+    public ComponentScanner scanner() {
+        return new ComponentScanner(offsets, targets);
+    }
+
+
+    /**
+     * Runs the component scan once and keeps the result; the snapshot
+     * never changes.
+     */
+    private ComponentScanner components() {
+        if (components == null) {
+            components = scanner();
+            components.scan();
+        }
+        return components;
+    }
+}
@@ -0,0 +1,119 @@
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for GraphSnapshot.
+ * Covers the row layout, reuse between changes and the traversals run on
+ * the snapshot.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class GraphSnapshotTest {
+    private Graph graph;
+    private GraphNode artist1;
+    private GraphNode artist2;
+    private GraphNode song1;
+    private GraphNode song2;
+    private GraphNode song3;
+
+    /**
+     * Sets up a graph with the chain song1 - artist1 - song2 - artist2 and
+     * a lone song3.
+     */
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        artist1 = graph.addNode("Artist1", true);
+        artist2 = graph.addNode("Artist2", true);
+        song1 = graph.addNode("Song1", false);
+        song2 = graph.addNode("Song2", false);
+        song3 = graph.addNode("Song3", false);
+        graph.addEdge(artist1, song1);
+        graph.addEdge(artist1, song2);
+        graph.addEdge(artist2, song2);
+    }
+
+
+    /**
+     * Tests that the snapshot holds the graph's nodes and edges by id.
+     */
+    @Test
+    public void testLayout() {
+        GraphSnapshot snapshot = graph.snapshot();
+        assertEquals(5, snapshot.nodeCount());
+        assertEquals(3, snapshot.edgeCount());
+        assertEquals(2, snapshot.degree(artist1.getId()));
+        assertEquals(0, snapshot.degree(song3.getId()));
+        assertTrue(snapshot.isArtist(artist2.getId()));
+        assertFalse(snapshot.isArtist(song2.getId()));
+
+        StringBuilder seen = new StringBuilder();
+        snapshot.forEachNeighbor(song2.getId(), id -> seen.append(graph
+            .getNode(id).getName()).append(' '));
+        assertEquals("Artist1 Artist2 ", seen.toString());
+    }
+
+
+    /**
+     * Tests that the snapshot is reused until the graph changes.
+     */
+    @Test
+    public void testRebuiltOnlyAfterChange() {
+        GraphSnapshot first = graph.snapshot();
+        assertSame(first, graph.snapshot());
+
+        graph.addEdge(artist2, song3);
+        GraphSnapshot second = graph.snapshot();
+        assertNotSame(first, second);
+        assertEquals(3, first.edgeCount());
+        assertEquals(4, second.edgeCount());
+
+        graph.removeNode(artist1);
+        assertEquals(4, graph.snapshot().nodeCount());
+        graph.addNode("Song4", false);
+        assertEquals(5, graph.snapshot().nodeCount());
+    }
+
+
+    /**
+     * Tests component analysis on the snapshot against the graph's own.
+     */
+    @Test
+    public void testComponents() {
+        GraphSnapshot snapshot = graph.snapshot();
+        assertEquals(2, snapshot.componentCount());
+        assertEquals(4, snapshot.largestComponentSize());
+
+        PrintStream console = System.out;
+        ByteArrayOutputStream fromGraph = new ByteArrayOutputStream();
+        ByteArrayOutputStream fromSnapshot = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(fromGraph));
+            graph.analyzeComponents();
+            System.setOut(new PrintStream(fromSnapshot));
+            snapshot.analyzeComponents();
+        }
+        finally {
+            System.setOut(console);
+        }
+        assertEquals(fromGraph.toString(), fromSnapshot.toString());
+    }
+
+
+    /**
+     * Tests breadth-first distances.
+     */
+    @Test
+    public void testDistances() {
+        int[] distance = graph.snapshot().distancesFrom(song1.getId());
+        assertEquals(0, distance[song1.getId()]);
+        assertEquals(1, distance[artist1.getId()]);
+        assertEquals(2, distance[song2.getId()]);
+        assertEquals(3, distance[artist2.getId()]);
+        assertEquals(-1, distance[song3.getId()]);
+    }
+}
@@ -3,9 +3,11 @@ import org.junit.Before;
 import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import static org.junit.Assert.*;
 import org.junit.Before;
@@ -246,4 +248,171 @@ public class GraphTest {
                 artist1));
         }
     }
+
+
+    /**
+     * Tests that component count and largest size follow added edges.
+     */
+    @Test
+    public void testComponentTracking() {
+        assertEquals(4, graph.componentCount());
+        assertEquals(1, graph.largestComponentSize());
+
+        graph.addEdge(artist1, song1);
+        graph.addEdge(artist1, song1);
+        assertEquals(3, graph.componentCount());
+        assertEquals(2, graph.largestComponentSize());
+
+        graph.addEdge(artist2, song2);
+        graph.addEdge(song1, artist2);
+        assertEquals(1, graph.componentCount());
+        assertEquals(4, graph.largestComponentSize());
+    }
+
+
+    /**
+     * Tests that removing a node in the middle of a component splits it,
+     * and that edges added before the split is computed are kept.
+     */
+    @Test
+    public void testComponentSplitAfterRemove() {
+        graph.addEdge(song1, artist1);
+        graph.addEdge(artist1, song2);
+        graph.removeNode(artist1);
+        GraphNode artist3 = graph.addNode("Artist3", true);
+        graph.addEdge(artist3, song2);
+
+        assertEquals("song1, artist2 and song2-artist3", 3, graph
+            .componentCount());
+        assertEquals(2, graph.largestComponentSize());
+
+        graph.removeNode(artist2);
+        assertEquals(2, graph.componentCount());
+        graph.removeNode(song2);
+        graph.removeNode(artist3);
+        graph.removeNode(song1);
+        assertEquals(0, graph.componentCount());
+        assertEquals(0, graph.largestComponentSize());
+    }
+
+
+    /**
+     * Tests the tracked components against a full search after a random mix
+     * of node additions, edges and removals.
+     */
+    @Test
+    public void testComponentTrackingMatchesSearch() {
+        Random random = new Random(7);
+        Graph randomGraph = new Graph();
+        List<GraphNode> live = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            int choice = random.nextInt(10);
+            if (choice < 3 || live.size() < 2) {
+                live.add(randomGraph.addNode("n" + step, step % 2 == 0));
+            }
+            else if (choice < 8) {
+                GraphNode a = live.get(random.nextInt(live.size()));
+                GraphNode b = live.get(random.nextInt(live.size()));
+                if (a != b) {
+                    randomGraph.addEdge(a, b);
+                }
+            }
+            else {
+                randomGraph.removeNode(live.remove(random.nextInt(live
+                    .size())));
+            }
+
+            if (step % 100 == 0) {
+                assertEquals(countComponents(randomGraph), randomGraph
+                    .componentCount());
+                assertEquals(largestComponent(randomGraph), randomGraph
+                    .largestComponentSize());
+            }
+        }
+    }
+
+
+    /**
+     * Tests that removals alone rebuild the dirty sets before the seeds
+     * outgrow the graph, and that the rebuild leaves no live node linked to
+     * a removed one.
+     */
+    @Test
+    public void testRemovalsWithoutReadsStayBounded() {
+        Random random = new Random(11);
+        Graph randomGraph = new Graph();
+        List<GraphNode> live = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            live.add(randomGraph.addNode("n" + i, i % 2 == 0));
+        }
+        for (int i = 0; i < 8000; i++) {
+            GraphNode a = live.get(random.nextInt(live.size()));
+            GraphNode b = live.get(random.nextInt(live.size()));
+            if (a != b) {
+                randomGraph.addEdge(a, b);
+            }
+        }
+
+        boolean rebuilt = false;
+        while (live.size() > 1) {
+            int before = randomGraph.pendingSeeds();
+            randomGraph.removeNode(live.remove(random.nextInt(live.size())));
+            int after = randomGraph.pendingSeeds();
+            assertTrue(after <= randomGraph.nodeCount());
+            if (after < before) {
+                rebuilt = true;
+                for (GraphNode node : live) {
+                    assertFalse(node.parent.removed);
+                }
+            }
+        }
+        assertTrue("Removals alone should trigger a rebuild", rebuilt);
+        assertEquals(countComponents(randomGraph), randomGraph
+            .componentCount());
+        assertEquals(largestComponent(randomGraph), randomGraph
+            .largestComponentSize());
+    }
+
+
+    /**
+     * Helper method to find the largest component size by search.
+     */
+    private int largestComponent(Graph newGraph) {
+        Set<GraphNode> visited = new HashSet<>();
+        int largest = 0;
+        for (GraphNode node : newGraph.getNodes()) {
+            if (!visited.contains(node)) {
+                int before = visited.size();
+                dfs(node, visited);
+                largest = Math.max(largest, visited.size() - before);
+            }
+        }
+        return largest;
+    }
+
+
+    /**
+     * Tests that ids stay dense through removals and that the freed id is
+     * reused.
+     */
+    @Test
+    public void testDenseIds() {
+        assertEquals(0, artist1.getId());
+        assertEquals(3, song2.getId());
+
+        graph.removeNode(artist2);
+        assertEquals(3, graph.nodeCount());
+        assertEquals("Last node should take the freed id", 1, song2.getId());
+        for (int id = 0; id < graph.nodeCount(); id++) {
+            assertEquals(id, graph.getNode(id).getId());
+        }
+
+        graph.removeNode(artist2);
+        graph.removeNode(new GraphNode("Stranger", true));
+        assertEquals(3, graph.nodeCount());
+
+        GraphNode artist3 = graph.addNode("Artist3", true);
+        assertEquals(3, artist3.getId());
+        assertEquals(artist3, graph.getNode(3));
+    }
 }
@@ -9,7 +9,7 @@ public class Hash {
 
     /**
      * Compute the hash function
-     * 
+     *
      * @param s
      *            The string that we are hashing
      * @param length
@@ -19,24 +19,104 @@ public class Hash {
      *         The hash function value (the home slot in the table for this key)
      */
     public static int h(String s, int length) {
-        int intLength = s.length() / 4;
-        long sum = 0;
-        for (int j = 0; j < intLength; j++) {
-            char[] c = s.substring(j * 4, (j * 4) + 4).toCharArray();
-            long mult = 1;
-            for (int k = 0; k < c.length; k++) {
-                sum += c[k] * mult;
-                mult *= 256;
-            }
-        }
+        return reduce(sfold(s), length);
+    }
+
+
+    /**
+     * Reduce a full-width sfold sum to a slot in a table of the given length
+     *
+     * @param hash
+     *            The value returned by sfold
+     * @param length
+     *            Length of the hash table
+     * @return
+     *         The home slot, the same value h() returns for the key
+     */
+    public static int reduce(long hash, int length) {
+        return (int)(Math.abs(hash) % length);
+    }
+
+
+    /**
+     * Compute the reciprocal of a table length for the division-free
+     * reduce(long, int, long)
+     *
+     * @param length
+     *            Length of the hash table, at least 2
+     * @return
+     *         floor((2^64 - 1) / length), to be cached with the table
+     */
+    public static long reciprocal(int length) {
+        return Long.divideUnsigned(-1L, length);
+    }
 
-        char[] c = s.substring(intLength * 4).toCharArray();
+
+    /**
+     * Reduce an sfold sum to a slot without a division: the quotient is
+     * estimated from the high half of the product with the cached
+     * reciprocal, which undershoots by at most one, and a single
+     * conditional subtraction corrects the remainder. Gives the same slot
+     * as reduce(long, int) for any sfold sum.
+     *
+     * @param hash
+     *            The value returned by sfold, which is never negative
+     * @param length
+     *            Length of the hash table, at least 2
+     * @param reciprocal
+     *            reciprocal(length)
+     * @return
+     *         The home slot, the same value h() returns for the key
+     */
+    public static int reduce(long hash, int length, long reciprocal) {
+        long remainder = hash - Math.multiplyHigh(hash, reciprocal) * length;
+        return (int)(remainder >= length ? remainder - length : remainder);
+    }
+
+
+    /**
+     * Scramble an sfold sum so that every bit of the result depends on every
+     * bit of the input (the MurmurHash3 64-bit finalizer). sfold sums of
+     * similar keys are numerically close, which is fine for a prime modulus
+     * but not for anything that takes bits or runs of slots from the hash.
+     *
+     * @param hash
+     *            The value returned by sfold
+     * @return
+     *         The mixed hash
+     */
+    public static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+
+    /**
+     * Compute the full-width sfold sum of a key. Each block of four
+     * characters is read as a little-endian base-256 number and the blocks
+     * are summed, exactly as h() does, but the characters are read in place
+     * so no substrings or char arrays are created.
+     *
+     * @param s
+     *            The characters that we are hashing
+     * @return
+     *         The sfold sum before it is reduced to a table length
+     */
+    public static long sfold(CharSequence s) {
+        int length = s.length();
+        long sum = 0;
         long mult = 1;
-        for (int k = 0; k < c.length; k++) {
-            sum += c[k] * mult;
+        for (int i = 0; i < length; i++) {
+            if ((i & 3) == 0) {
+                mult = 1;
+            }
+            sum += s.charAt(i) * mult;
             mult *= 256;
         }
-
-        return (int)(Math.abs(sum) % length);
+        return sum;
     }
 }
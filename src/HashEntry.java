@@ -5,6 +5,7 @@
 public class HashEntry {
     private final String key;
     private final GraphNode node;
+    private final long hash;
     private boolean isActive;
 
     /**
@@ -16,8 +17,24 @@ public class HashEntry {
      *            the associated GraphNode
      */
     public HashEntry(String key, GraphNode node) {
+        this(key, node, Hash.sfold(key));
+    }
+
+
+    /**
+     * Constructs a new HashEntry whose key has already been hashed.
+     * 
+     * @param key
+     *            the artist/song name
+     * @param node
+     *            the associated GraphNode
+     * @param hash
+     *            Hash.sfold(key)
+     */
+    public HashEntry(String key, GraphNode node, long hash) {
         this.key = key;
         this.node = node;
+        this.hash = hash;
         this.isActive = true;
     }
 
@@ -42,6 +59,17 @@ public class HashEntry {
     }
 
 
+    /**
+     * Gets the full-width hash of the key, so the entry can be moved to a
+     * table of any length without hashing the key again.
+     * 
+     * @return Hash.sfold of the key
+     */
+    public long getHash() {
+        return hash;
+    }
+
+
     /**
      * Checks if this entry is active.
      * 
@@ -80,4 +80,16 @@ public class HashEntryTest {
         entry.setActive(false);
         assertEquals("Key should remain unchanged", "key", entry.getKey());
     }
+
+
+    /**
+     * Tests that the entry caches the sfold sum of its key.
+     */
+    @Test
+    public void testCachedHash() {
+        assertEquals("Hash should be the sfold sum of the key", Hash.sfold(
+            "key"), entry.getHash());
+        HashEntry hashed = new HashEntry("key", node, 42);
+        assertEquals("Given hash should be kept", 42, hashed.getHash());
+    }
 }
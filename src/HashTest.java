@@ -30,4 +30,47 @@ public class HashTest extends TestCase {
         assertTrue(Hash.h("Long   Lonesome Blues", 10000) == 4159);
         assertTrue(Hash.h("long Lonesome Blues", 10000) == 4667);
     }
+
+
+    /**
+     * Check that long keys, non-ASCII keys and the empty key keep the same
+     * home slots as the original substring-based sfold
+     */
+    public void testSfoldLongKeys() {
+        assertEquals(7799, Hash.h("Blind Willie McTell", 10000));
+        assertEquals(951, Hash.h("Blind Willie McTell", 1009));
+        assertEquals(1653, Hash.h(
+            "Everybody Ought to Treat a Stranger Right", 10000));
+        assertEquals(710, Hash.h("Everybody Ought to Treat a Stranger Right",
+            1009));
+        assertEquals(4298, Hash.h("Caf\u00e9 del Mar \u2013 Energy 52",
+            10000));
+        assertEquals(0, Hash.h("", 10000));
+        assertEquals(Hash.h("The Rolling Stones", 10000), Hash.sfold(
+            new StringBuilder("The Rolling Stones")) % 10000);
+    }
+
+
+    /**
+     * Check that the division-free reduction gives the same slot as %
+     * for every table size on the ladder, including hashes right at and
+     * around multiples of the length
+     */
+    public void testReduceWithReciprocal() {
+        long[] hashes = { 0, 1, 97, 1873, 4635, Integer.MAX_VALUE,
+            0xFFFFFFFFL * 64, Long.MAX_VALUE - 1, Long.MAX_VALUE };
+        for (int length = 2; length < Primes.MAX_CAPACITY; length = Primes
+            .after(length)) {
+            long reciprocal = Hash.reciprocal(length);
+            for (long hash : hashes) {
+                for (long h : new long[] { hash, hash / length * length,
+                    hash / length * length - 1 }) {
+                    if (h >= 0) {
+                        assertEquals(Hash.reduce(h, length), Hash.reduce(h,
+                            length, reciprocal));
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Feeds a command file to a GraphProject by mapping it into memory instead
+ * of decoding it line by line through a BufferedReader.
+ *
+ * Line ends and the &lt;SEP&gt; delimiter are found by scanning the mapped
+ * bytes. A well-formed insert of ASCII names is handed to the project as
+ * two views into the mapping, so a String is only made for a name that is
+ * not yet in its table. Every other line, and any line with a byte outside
+ * ASCII, is decoded with the default charset and run through
+ * processCommand, so the output is the same as the line reader's.
+ *
+ * Files larger than the mapping window are mapped one window at a time;
+ * each window starts at the beginning of a line, or at the \n of a \r\n
+ * pair the previous window split.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public final class MappedCommandReader {
+    /** Bytes mapped at once; a single line must fit in a window */
+    static final int DEFAULT_WINDOW = 1 << 30;
+
+    private static final byte[] INSERT = "insert ".getBytes(
+        StandardCharsets.US_ASCII);
+
+    private static final byte[] SEP = "<SEP>".getBytes(
+        StandardCharsets.US_ASCII);
+
+    private final GraphProject project;
+    private final int window;
+    private final ByteSlice artist = new ByteSlice();
+    private final ByteSlice song = new ByteSlice();
+
+    /** Set when a window ended a line at a \r its \n may follow */
+    private boolean afterCr;
+
+    /**
+     * Constructs a reader that feeds the given project.
+     *
+     * @param project
+     *            the project that runs the commands
+     */
+    public MappedCommandReader(GraphProject project) {
+        this(project, DEFAULT_WINDOW);
+    }
+
+
+    /**
+     * Constructs a reader with a given mapping window, for testing.
+     *
+     * @param project
+     *            the project that runs the commands
+     * @param window
+     *            the most bytes mapped at once
+     */
+    MappedCommandReader(GraphProject project, int window) {
+        this.project = project;
+        this.window = window;
+    }
+
+
+    /**
+     * Runs every command in a file.
+     *
+     * @param file
+     *            the command file
+     * @throws IOException
+     *             if the file cannot be read, or has a line longer than
+     *             the mapping window
+     */
+    public void read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            afterCr = false;
+            while (position < size) {
+                int length = (int)Math.min(window, size - position);
+                boolean last = position + length == size;
+                MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = readLines(buffer, length, last);
+                if (consumed == 0) {
+                    throw new IOException("Line at byte " + position
+                        + " is longer than " + window + " bytes");
+                }
+                position += consumed;
+            }
+        }
+    }
+
+
+    /**
+     * Runs the complete lines in a mapped window. A line is complete once
+     * its terminator has been seen; the final line of the file needs none.
+     * A \r at the end of a window that is not the last leaves its line to
+     * the next window, unless the line started the window and so would not
+     * fit in the next one either. That line is run at once, and a \n that
+     * starts the next window is skipped.
+     *
+     * @return the number of bytes consumed, up to the first incomplete line
+     */
+    private int readLines(MappedByteBuffer buffer, int length, boolean last) {
+        int start = 0;
+        if (afterCr && length > 0 && buffer.get(0) == '\n') {
+            start = 1;
+        }
+        afterCr = false;
+        for (int i = start; i < length; i++) {
+            byte b = buffer.get(i);
+            if (b != '\n' && b != '\r') {
+                continue;
+            }
+            int next = i + 1;
+            if (b == '\r') {
+                if (next == length && !last) {
+                    if (start > 0) {
+                        // The matching \n may start the next window
+                        return start;
+                    }
+                    runLine(buffer, start, i);
+                    afterCr = true;
+                    return length;
+                }
+                if (next < length && buffer.get(next) == '\n') {
+                    next++;
+                }
+            }
+            runLine(buffer, start, i);
+            start = next;
+            i = next - 1;
+        }
+        if (last && start < length) {
+            runLine(buffer, start, length);
+            return length;
+        }
+        return start;
+    }
+
+
+    /**
+     * Runs one line, from start up to but not including end.
+     */
+    private void runLine(MappedByteBuffer buffer, int start, int end) {
+        boolean ascii = true;
+        for (int i = start; i < end && ascii; i++) {
+            ascii = buffer.get(i) >= 0;
+        }
+        if (!ascii) {
+            project.processCommand(new String(bytes(buffer, start, end),
+                Charset.defaultCharset()).trim());
+            return;
+        }
+
+        int from = skipSpace(buffer, start, end);
+        int to = trimEnd(buffer, from, end);
+        if (!insertPair(buffer, from, to)) {
+            project.processCommand(ascii(buffer, from, to));
+        }
+    }
+
+
+    /**
+     * Hands an insert with exactly one delimiter and two non-empty names to
+     * the project.
+     *
+     * @return false if the line is anything else
+     */
+    private boolean insertPair(MappedByteBuffer buffer, int from, int to) {
+        if (!matches(buffer, from, to, INSERT)) {
+            return false;
+        }
+        int args = from + INSERT.length;
+        int sep = indexOf(buffer, args, to, SEP);
+        if (sep < 0 || indexOf(buffer, sep + SEP.length, to, SEP) >= 0) {
+            return false;
+        }
+
+        int artistFrom = skipSpace(buffer, args, sep);
+        int artistTo = trimEnd(buffer, artistFrom, sep);
+        int songFrom = skipSpace(buffer, sep + SEP.length, to);
+        int songTo = trimEnd(buffer, songFrom, to);
+        if (artistFrom == artistTo || songFrom == songTo) {
+            return false;
+        }
+        artist.set(buffer, artistFrom, artistTo - artistFrom);
+        song.set(buffer, songFrom, songTo - songFrom);
+        project.insertPair(artist, song);
+        return true;
+    }
+
+
+    /**
+     * Skips the leading characters String.trim would remove.
+     */
+    private static int skipSpace(MappedByteBuffer buffer, int from, int to) {
+        while (from < to && buffer.get(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+
+    /**
+     * Drops the trailing characters String.trim would remove.
+     */
+    private static int trimEnd(MappedByteBuffer buffer, int from, int to) {
+        while (to > from && buffer.get(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+
+    /**
+     * Checks whether the bytes from position from start with a pattern.
+     */
+    private static boolean matches(
+        MappedByteBuffer buffer,
+        int from,
+        int to,
+        byte[] pattern) {
+        if (to - from < pattern.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (buffer.get(from + i) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Finds the first occurrence of a pattern between from and to.
+     *
+     * @return its position, or -1 if there is none
+     */
+    private static int indexOf(
+        MappedByteBuffer buffer,
+        int from,
+        int to,
+        byte[] pattern) {
+        for (int i = from; i <= to - pattern.length; i++) {
+            if (buffer.get(i) == pattern[0] && matches(buffer, i, to,
+                pattern)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Makes a String of ASCII bytes.
+     */
+    private static String ascii(MappedByteBuffer buffer, int from, int to) {
+        return new String(bytes(buffer, from, to), StandardCharsets.ISO_8859_1);
+    }
+
+
+    /**
+     * Copies the bytes from position from up to to, leaving the buffer's
+     * own position alone.
+     */
+    private static byte[] bytes(MappedByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        ByteBuffer view = buffer.duplicate();
+        view.position(from);
+        view.get(bytes);
+        return bytes;
+    }
+
+
+    /**
+     * A reusable view of ASCII bytes in a mapped window as characters.
+     */
+    private static final class ByteSlice implements CharSequence {
+        private MappedByteBuffer buffer;
+        private int offset;
+        private int length;
+
+        void set(MappedByteBuffer newBuffer, int newOffset, int newLength) {
+            buffer = newBuffer;
+            offset = newOffset;
+            length = newLength;
+        }
+
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+
+        @Override
+        public char charAt(int index) {
+            return (char)buffer.get(offset + index);
+        }
+
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+
+        @Override
+        public String toString() {
+            return ascii(buffer, offset, offset + length);
+        }
+    }
+}
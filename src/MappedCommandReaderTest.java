@@ -0,0 +1,225 @@
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for MappedCommandReader.
+ * Runs command files through the mapped reader and through GraphProject's
+ * line reader and checks that they print the same thing.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class MappedCommandReaderTest {
+    private Path file;
+
+    /**
+     * Creates the command file.
+     *
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("commands", ".txt");
+    }
+
+
+    /**
+     * Deletes the command file.
+     *
+     * @throws IOException
+     *             if the file cannot be deleted
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+
+    /**
+     * Tests ordinary commands, including removes and prints.
+     *
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Test
+    public void testCommands() throws IOException {
+        assertSameOutput("insert Artist1<SEP>Song1\n"
+            + "insert Artist1<SEP>Song2\n" + "insert Artist2<SEP>Song1\n"
+            + "print artist\n" + "remove song Song1\n" + "print graph\n"
+            + "remove artist Nobody\n" + "print song\n",
+            MappedCommandReader.DEFAULT_WINDOW);
+    }
+
+
+    /**
+     * Tests malformed and oddly spaced lines, which take the slow path.
+     *
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Test
+    public void testMalformedLines() throws IOException {
+        assertSameOutput("  insert   Artist1 <SEP>  Song1  \n" + "\n"
+            + "insert Artist1Song1\n" + "insert Artist1<SEP>\n"
+            + "insert <SEP>Song1\n" + "insert A<SEP>B<SEP>\n"
+            + "insert A<SEP>B<SEP>C\n" + "insert\tA<SEP>B\n" + "insert \n"
+            + "dance\n" + "remove\n" + "print nothing",
+            MappedCommandReader.DEFAULT_WINDOW);
+    }
+
+
+    /**
+     * Tests every kind of line end, and names outside ASCII.
+     *
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Test
+    public void testLineEndsAndCharset() throws IOException {
+        assertSameOutput("insert A<SEP>S1\r\ninsert B<SEP>S2\rinsert "
+            + "Bj\u00f6rk<SEP>J\u00f3ga\n\ninsert A<SEP>S2\r\n\r\nprint song",
+            MappedCommandReader.DEFAULT_WINDOW);
+    }
+
+
+    /**
+     * Tests windows much smaller than the file, so lines and \r\n pairs
+     * are split between mappings.
+     *
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Test
+    public void testSmallWindows() throws IOException {
+        StringBuilder commands = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            commands.append("insert Artist").append(i % 7).append("<SEP>Song")
+                .append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+            if (i % 50 == 0) {
+                commands.append("remove song Song").append(i / 2).append(
+                    "\r");
+            }
+        }
+        commands.append("print graph\r\n");
+        for (int window = 30; window < 40; window++) {
+            assertSameOutput(commands.toString(), window);
+        }
+    }
+
+
+    /**
+     * Tests a \r\n split between windows where the \r is the last byte of a
+     * window that starts with its line, so the line fills the whole window.
+     *
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Test
+    public void testCrLfOnWindowBoundary() throws IOException {
+        String line = "insert A<SEP>B\r";
+        assertSameOutput(line + "\ninsert C<SEP>D\r\nremove song B\r\n"
+            + "print graph\r\n", line.length());
+    }
+
+
+    /**
+     * Tests that a line longer than the window is reported.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Test
+    public void testLineLongerThanWindow() throws IOException {
+        Files.write(file, "insert Artist<SEP>Song\nprint graph\n".getBytes(
+            Charset.defaultCharset()));
+        try {
+            run(new MappedCommandReader(new GraphProject(10), 8));
+            fail("Expected an IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("longer than 8 bytes"));
+        }
+    }
+
+
+    /**
+     * Tests the --mmap flag of main.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Test
+    public void testMainFlag() throws IOException {
+        Files.write(file, "insert A<SEP>B\nprint artist\n".getBytes(Charset
+            .defaultCharset()));
+        String lines = capture(() -> GraphProject.main(new String[] { "10",
+            file.toString() }));
+        String mapped = capture(() -> GraphProject.main(new String[] {
+            "--mmap", "10", file.toString() }));
+        assertTrue(lines.contains("Successfully inserted A and B"));
+        assertEquals(lines, mapped);
+    }
+
+
+    /**
+     * Writes the commands as UTF-8, so names outside ASCII take more than
+     * one byte whatever the default charset, and checks that both readers
+     * print the same.
+     */
+    private void assertSameOutput(String commands, int window)
+        throws IOException {
+        Files.write(file, commands.getBytes(StandardCharsets.UTF_8));
+        String lines = capture(() -> GraphProject.main(new String[] { "10",
+            file.toString() }));
+        String mapped = run(new MappedCommandReader(new GraphProject(10),
+            window));
+        assertEquals(lines, mapped);
+    }
+
+
+    /**
+     * Runs the file through a mapped reader and returns what it printed.
+     */
+    private String run(MappedCommandReader reader) throws IOException {
+        IOException[] failure = new IOException[1];
+        String output = capture(() -> {
+            try {
+                reader.read(file);
+            }
+            catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return output;
+    }
+
+
+    /**
+     * Runs an action and returns what it printed.
+     */
+    private static String capture(Runnable action) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(out));
+            action.run();
+        }
+        finally {
+            System.setOut(console);
+        }
+        return out.toString();
+    }
+}
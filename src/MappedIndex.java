@@ -0,0 +1,503 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * A read-only artist and song catalog served straight from a memory-mapped
+ * file. Opening one maps the file and checks its header; nothing is
+ * deserialized, so startup takes the same time for any catalog size and
+ * the catalog lives outside the Java heap, in the page cache.
+ *
+ * The file is big-endian and holds, in order:
+ *
+ * <pre>
+ * int     MAGIC, int VERSION
+ * int     node count n, int edge slots e, int artist capacity a,
+ *         int song capacity s, int name byte count b, int 0
+ * long[]  artist bits, one per node id, (n + 63) / 64 words
+ * int[]   name offsets, n + 1 entries into the name bytes
+ * int[]   neighbor offsets, n + 1 entries into the neighbor ids
+ * int[]   neighbor ids, e entries; every edge is listed from both ends
+ * int[]   artist slots, a pairs: node id or -1 if empty, low half of
+ *         the key's sfold sum
+ * int[]   song slots, s pairs, the same
+ * byte[]  UTF-8 names of all nodes, back to back
+ * </pre>
+ *
+ * The slot arrays are open-addressed with the same home slot and quadratic
+ * probe sequence as ExtensibleHashTable, and are laid out afresh when the
+ * file is written, so they hold no tombstones. A lookup hashes the key,
+ * probes the slots and compares the key with the name bytes in place. The
+ * neighbor arrays are the compressed sparse row form of GraphSnapshot.
+ *
+ * Only the header and section sizes are checked when a file is opened, so
+ * that opening stays constant-time. An offset or id corrupted to point
+ * outside the file makes the call that reads it throw
+ * IndexOutOfBoundsException. The mapping is released when the index is
+ * garbage collected.
+ *
+ * An index is written to a temporary file that is then moved over the old
+ * one, so a crash leaves either the old or the new index, and an index
+ * that is already mapped keeps reading the file it was opened on.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public final class MappedIndex {
+    /** First four bytes of an index, "PJ4I" */
+    static final int MAGIC = 0x504A3449;
+
+    /** Format version written by write */
+    static final int VERSION = 1;
+
+    /** Bytes of header before the artist bits */
+    private static final int HEADER_SIZE = 32;
+
+    /** Marks an empty slot */
+    private static final int EMPTY = -1;
+
+    private final ByteBuffer buffer;
+    private final int nodeCount;
+    private final int edgeSlots;
+    private final int artistBits;
+    private final int nameOffsets;
+    private final int offsets;
+    private final int targets;
+    private final int names;
+    private final Table artists;
+    private final Table songs;
+
+    private MappedIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an index file");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported index version " + version);
+        }
+        nodeCount = buffer.getInt(8);
+        edgeSlots = buffer.getInt(12);
+        int artistCapacity = buffer.getInt(16);
+        int songCapacity = buffer.getInt(20);
+        int nameBytes = buffer.getInt(24);
+        if (nodeCount < 0 || edgeSlots < 0 || artistCapacity < 2
+            || songCapacity < 2 || nameBytes < 0) {
+            throw new IOException("Corrupt index header");
+        }
+
+        long[] layout = layout(nodeCount, edgeSlots, artistCapacity,
+            songCapacity, nameBytes);
+        if (layout[6] != buffer.capacity()) {
+            throw new IOException("Index is " + buffer.capacity()
+                + " bytes, header describes " + layout[6]);
+        }
+        artistBits = (int)layout[0];
+        nameOffsets = (int)layout[1];
+        offsets = (int)layout[2];
+        targets = (int)layout[3];
+        artists = new Table((int)layout[4], artistCapacity);
+        songs = new Table((int)layout[5], songCapacity);
+        names = (int)(layout[5] + 8L * songCapacity);
+    }
+
+
+    /**
+     * Writes a project's tables and graph to an index file, replacing it
+     * atomically.
+     *
+     * @param project
+     *            the project to write
+     * @param file
+     *            the index file
+     * @throws IOException
+     *             if the file cannot be written, or the index would be
+     *             larger than 2 GB
+     */
+    public static void write(GraphProject project, Path file)
+        throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try {
+            writeFile(project, temp);
+            Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+
+    /**
+     * Writes an index to a file, replacing it in place, and forces it to
+     * disk.
+     */
+    private static void writeFile(GraphProject project, Path file)
+        throws IOException {
+        Graph graph = project.graph();
+        int n = graph.nodeCount();
+        byte[][] nameBytes = new byte[n][];
+        long nameTotal = 0;
+        long edgeTotal = 0;
+        for (int v = 0; v < n; v++) {
+            GraphNode node = graph.getNode(v);
+            nameBytes[v] = node.getName().getBytes(StandardCharsets.UTF_8);
+            nameTotal += nameBytes[v].length;
+            edgeTotal += node.degree();
+        }
+        HashEntry[] artistSlots = project.artistTable().getTable();
+        HashEntry[] songSlots = project.songTable().getTable();
+        if (nameTotal > Integer.MAX_VALUE || edgeTotal > Integer.MAX_VALUE) {
+            throw new IOException("Index would be larger than 2 GB");
+        }
+        long[] layout = layout(n, (int)edgeTotal, artistSlots.length,
+            songSlots.length, (int)nameTotal);
+        if (layout[6] > Integer.MAX_VALUE) {
+            throw new IOException("Index would be larger than 2 GB");
+        }
+
+        try (FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE,
+                0, layout[6]);
+            out.putInt(MAGIC).putInt(VERSION).putInt(n).putInt((int)edgeTotal)
+                .putInt(artistSlots.length).putInt(songSlots.length).putInt(
+                    (int)nameTotal).putInt(0);
+
+            long[] bits = new long[(n + 63) >>> 6];
+            for (int v = 0; v < n; v++) {
+                if (graph.getNode(v).isArtist()) {
+                    bits[v >>> 6] |= 1L << v;
+                }
+            }
+            for (long word : bits) {
+                out.putLong(word);
+            }
+            int position = 0;
+            for (int v = 0; v < n; v++) {
+                out.putInt(position);
+                position += nameBytes[v].length;
+            }
+            out.putInt(position);
+            position = 0;
+            for (int v = 0; v < n; v++) {
+                out.putInt(position);
+                position += graph.getNode(v).degree();
+            }
+            out.putInt(position);
+            for (int v = 0; v < n; v++) {
+                GraphNode node = graph.getNode(v);
+                for (int i = 0; i < node.degree(); i++) {
+                    out.putInt(node.neighborAt(i).id);
+                }
+            }
+
+            writeSlots(artistSlots, out);
+            writeSlots(songSlots, out);
+            for (byte[] name : nameBytes) {
+                out.put(name);
+            }
+            out.force();
+        }
+    }
+
+
+    /**
+     * Maps an index file.
+     *
+     * @param file
+     *            the index file
+     * @return the index
+     * @throws IOException
+     *             if the file cannot be mapped or its header does not match
+     *             its size
+     */
+    public static MappedIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Not an index file");
+            }
+            return new MappedIndex(channel.map(FileChannel.MapMode.READ_ONLY,
+                0, size));
+        }
+    }
+
+
+    /**
+     * Returns the artist table.
+     *
+     * @return the table of artist names
+     */
+    public Table artists() {
+        return artists;
+    }
+
+
+    /**
+     * Returns the song table.
+     *
+     * @return the table of song names
+     */
+    public Table songs() {
+        return songs;
+    }
+
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the node count
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return the edge count, each edge counted once
+     */
+    public int edgeCount() {
+        return edgeSlots / 2;
+    }
+
+
+    /**
+     * Decodes a node's name.
+     *
+     * @param node
+     *            a node id
+     * @return the artist or song name
+     */
+    public String name(int node) {
+        int from = nameStart(node);
+        byte[] bytes = new byte[nameStart(node + 1) - from];
+        ByteBuffer view = buffer.duplicate();
+        view.position(names + from);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Returns whether a node is an artist.
+     *
+     * @param node
+     *            a node id
+     * @return true for an artist, false for a song
+     */
+    public boolean isArtist(int node) {
+        long word = buffer.getLong(artistBits + 8 * (node >>> 6));
+        return (word & (1L << node)) != 0;
+    }
+
+
+    /**
+     * Returns the number of neighbors of a node.
+     *
+     * @param node
+     *            a node id
+     * @return the node's degree
+     */
+    public int degree(int node) {
+        return offset(node + 1) - offset(node);
+    }
+
+
+    /**
+     * Passes every neighbor id of a node to an action.
+     *
+     * @param node
+     *            a node id
+     * @param action
+     *            called once per neighbor
+     */
+    public void forEachNeighbor(int node, IntConsumer action) {
+        int end = offset(node + 1);
+        for (int e = offset(node); e < end; e++) {
+            action.accept(buffer.getInt(targets + 4 * e));
+        }
+    }
+
+
+    /**
+     * Lays out the sections of an index.
+     *
+     * @return the start of the artist bits, name offsets, neighbor
+     *         offsets, neighbor ids, artist slots and song slots, then the
+     *         file size
+     */
+    private static long[] layout(
+        int nodeCount,
+        int edgeSlots,
+        int artistCapacity,
+        int songCapacity,
+        int nameBytes) {
+        long[] starts = new long[7];
+        starts[0] = HEADER_SIZE;
+        starts[1] = starts[0] + 8L * ((nodeCount + 63L) >>> 6);
+        starts[2] = starts[1] + 4L * (nodeCount + 1L);
+        starts[3] = starts[2] + 4L * (nodeCount + 1L);
+        starts[4] = starts[3] + 4L * edgeSlots;
+        starts[5] = starts[4] + 8L * artistCapacity;
+        starts[6] = starts[5] + 8L * songCapacity + nameBytes;
+        return starts;
+    }
+
+
+    /**
+     * Lays the live entries of a table out in fresh slots of the same
+     * capacity and writes them.
+     */
+    private static void writeSlots(HashEntry[] entries, ByteBuffer out) {
+        int length = entries.length;
+        long reciprocal = Hash.reciprocal(length);
+        int[] slots = new int[2 * length];
+        for (int i = 0; i < length; i++) {
+            slots[2 * i] = EMPTY;
+        }
+        for (HashEntry entry : entries) {
+            if (entry == null || !entry.isActive()) {
+                continue;
+            }
+            int index = Hash.reduce(entry.getHash(), length, reciprocal);
+            int step = 1;
+            while (slots[2 * index] != EMPTY) {
+                index += step;
+                if (index >= length) {
+                    index -= length;
+                }
+                step += 2;
+                if (step >= length) {
+                    step -= length;
+                }
+            }
+            slots[2 * index] = entry.getNode().id;
+            slots[2 * index + 1] = (int)entry.getHash();
+        }
+        for (int slot : slots) {
+            out.putInt(slot);
+        }
+    }
+
+
+    private int nameStart(int node) {
+        return buffer.getInt(nameOffsets + 4 * node);
+    }
+
+
+    private int offset(int node) {
+        return buffer.getInt(offsets + 4 * node);
+    }
+
+
+    /**
+     * Compares a key with a node's name bytes without decoding them.
+     */
+    private boolean nameEquals(int node, CharSequence key) {
+        int from = names + nameStart(node);
+        int length = names + nameStart(node + 1) - from;
+        int keyLength = key.length();
+        int i = 0;
+        for (; i < keyLength && i < length; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                return nameEquals(from, length, key.toString().getBytes(
+                    StandardCharsets.UTF_8));
+            }
+            if (buffer.get(from + i) != c) {
+                return false;
+            }
+        }
+        return i == keyLength && i == length;
+    }
+
+
+    private boolean nameEquals(int from, int length, byte[] key) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(from + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * The artist or song slot array of an index.
+     */
+    public final class Table {
+        private final int start;
+        private final int capacity;
+        private final long reciprocal;
+
+        private Table(int start, int capacity) {
+            this.start = start;
+            this.capacity = capacity;
+            this.reciprocal = Hash.reciprocal(capacity);
+        }
+
+
+        /**
+         * Looks up a name. Matches ExtensibleHashTable.search, except that
+         * the value is a node id of the index.
+         *
+         * @param key
+         *            the name to look for
+         * @return the node id of the name, or -1 if it is not present
+         */
+        public int search(CharSequence key) {
+            if (key == null) {
+                return EMPTY;
+            }
+            long hash = Hash.sfold(key);
+            int index = Hash.reduce(hash, capacity, reciprocal);
+            int step = 1;
+            for (int i = 0; i < capacity; i++) {
+                int slot = start + 8 * index;
+                int node = buffer.getInt(slot);
+                if (node == EMPTY) {
+                    return EMPTY;
+                }
+                if (buffer.getInt(slot + 4) == (int)hash && nameEquals(node,
+                    key)) {
+                    return node;
+                }
+                index += step;
+                if (index >= capacity) {
+                    index -= capacity;
+                }
+                step += 2;
+                if (step >= capacity) {
+                    step -= capacity;
+                }
+            }
+            return EMPTY;
+        }
+
+
+        /**
+         * Returns the number of slots.
+         *
+         * @return the capacity of the table that was written
+         */
+        public int capacity() {
+            return capacity;
+        }
+    }
+}
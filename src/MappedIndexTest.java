@@ -0,0 +1,208 @@
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for MappedIndex.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class MappedIndexTest {
+    private Path file;
+
+    /**
+     * Creates the index file.
+     *
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("index", ".bin");
+    }
+
+
+    /**
+     * Deletes the index file.
+     *
+     * @throws IOException
+     *             if the file cannot be deleted
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+
+    /**
+     * Tests that every lookup and neighbor list matches the project the
+     * index was written from, after removes have left tombstones.
+     *
+     * @throws IOException
+     *             if the index cannot be written or mapped
+     */
+    @Test
+    public void testMatchesProject() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        Random random = new Random(3);
+        for (int i = 0; i < 3000; i++) {
+            int artist = random.nextInt(60);
+            int song = random.nextInt(400);
+            switch (random.nextInt(8)) {
+                case 0:
+                    project.processCommand("remove artist Artist" + artist);
+                    break;
+                case 1:
+                    project.processCommand("remove song Song" + song);
+                    break;
+                default:
+                    project.processCommand("insert Artist" + artist
+                        + "<SEP>Song" + song);
+            }
+        }
+        project.processCommand("insert Bj\u00f6rk<SEP>J\u00f3ga");
+        assertTrue(project.artistTable().tombstones() > 0);
+
+        MappedIndex.write(project, file);
+        MappedIndex index = MappedIndex.open(file);
+        Graph graph = project.graph();
+        assertEquals(graph.nodeCount(), index.nodeCount());
+        assertEquals(project.artistTable().capacity(), index.artists()
+            .capacity());
+        int edges = 0;
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            GraphNode node = graph.getNode(v);
+            String name = node.getName();
+            assertEquals(name, index.name(v));
+            assertEquals(node.isArtist(), index.isArtist(v));
+            MappedIndex.Table own = node.isArtist()
+                ? index.artists()
+                : index.songs();
+            MappedIndex.Table other = node.isArtist()
+                ? index.songs()
+                : index.artists();
+            assertEquals(v, own.search(name));
+            assertEquals(v, own.search(new StringBuilder(name)));
+            assertEquals(-1, other.search(name));
+
+            int[] expected = new int[node.degree()];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = node.neighborAt(i).id;
+            }
+            int[] actual = new int[index.degree(v)];
+            int[] next = { 0 };
+            index.forEachNeighbor(v, w -> actual[next[0]++] = w);
+            assertArrayEquals(expected, actual);
+            edges += expected.length;
+        }
+        assertEquals(edges / 2, index.edgeCount());
+
+        for (int i = 0; i < 60; i++) {
+            if (project.artistTable().search("Artist" + i) == null) {
+                assertEquals(-1, index.artists().search("Artist" + i));
+            }
+        }
+        assertEquals(-1, index.artists().search("Bj\u00f6r"));
+        assertEquals(-1, index.artists().search("Bj\u00f6rkk"));
+        assertEquals(-1, index.songs().search(""));
+        assertEquals(-1, index.songs().search(null));
+    }
+
+
+    /**
+     * Tests an index of an empty project.
+     *
+     * @throws IOException
+     *             if the index cannot be written or mapped
+     */
+    @Test
+    public void testEmpty() throws IOException {
+        MappedIndex.write(new GraphProject(10, OutputSink.NULL), file);
+        MappedIndex index = MappedIndex.open(file);
+        assertEquals(0, index.nodeCount());
+        assertEquals(0, index.edgeCount());
+        assertEquals(-1, index.artists().search("A"));
+    }
+
+
+    /**
+     * Tests that rewriting an index leaves one that is already open
+     * reading the old contents, and leaves no temporary file behind.
+     *
+     * @throws IOException
+     *             if the index cannot be written or mapped
+     */
+    @Test
+    public void testRewriteWhileOpen() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.processCommand("insert A<SEP>B");
+        MappedIndex.write(project, file);
+        MappedIndex old = MappedIndex.open(file);
+
+        GraphProject other = new GraphProject(10, OutputSink.NULL);
+        other.processCommand("insert C<SEP>D");
+        MappedIndex.write(other, file);
+        MappedIndex fresh = MappedIndex.open(file);
+
+        assertEquals(0, old.artists().search("A"));
+        assertEquals(-1, old.artists().search("C"));
+        assertEquals("B", old.name(1));
+        assertEquals(0, fresh.artists().search("C"));
+        assertEquals(-1, fresh.artists().search("A"));
+        assertEquals("D", fresh.name(1));
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName()
+            + ".tmp")));
+    }
+
+
+    /**
+     * Tests that files that are not whole indexes are rejected.
+     *
+     * @throws IOException
+     *             if the files cannot be written
+     */
+    @Test
+    public void testRejectsBadFiles() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.processCommand("insert A<SEP>B");
+        MappedIndex.write(project, file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertRejected("Index is " + (bytes.length - 1)
+            + " bytes, header describes " + bytes.length);
+
+        byte[] version = bytes.clone();
+        ByteBuffer.wrap(version).putInt(4, MappedIndex.VERSION + 1);
+        Files.write(file, version);
+        assertRejected("Unsupported index version " + (MappedIndex.VERSION
+            + 1));
+
+        byte[] header = bytes.clone();
+        ByteBuffer.wrap(header).putInt(8, -1);
+        Files.write(file, header);
+        assertRejected("Corrupt index header");
+
+        Files.write(file, new byte[] { 1, 2, 3 });
+        assertRejected("Not an index file");
+    }
+
+
+    private void assertRejected(String message) {
+        try {
+            MappedIndex.open(file);
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
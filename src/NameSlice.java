@@ -0,0 +1,55 @@
+/**
+ * A reusable view of part of a String as a character sequence, so that a
+ * name can be taken out of a command line, hashed and looked up without
+ * copying it. A view is only valid until it is set again, and must not be
+ * kept; toString makes the copy that is kept.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+final class NameSlice implements CharSequence {
+    private String text;
+    private int offset;
+    private int length;
+
+    /**
+     * Points the view at text from position from up to but not including
+     * position to.
+     *
+     * @param newText
+     *            the text to view
+     * @param from
+     *            the first character
+     * @param to
+     *            the end of the view
+     */
+    void set(String newText, int from, int to) {
+        text = newText;
+        offset = from;
+        length = to - from;
+    }
+
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+
+    @Override
+    public char charAt(int index) {
+        return text.charAt(offset + index);
+    }
+
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.substring(offset + start, offset + end);
+    }
+
+
+    @Override
+    public String toString() {
+        return text.substring(offset, offset + length);
+    }
+}
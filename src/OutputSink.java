@@ -0,0 +1,37 @@
+/**
+ * Where GraphProject and the structures it prints from send their output,
+ * one line at a time.
+ *
+ * CONSOLE prints each line straight to the current System.out, as the
+ * project always has. BufferedOutputSink collects lines and writes them to
+ * a stream in large blocks, CountingOutputSink only counts what would have
+ * been printed, and NULL discards everything; the last two take printing
+ * out of benchmark runs.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public interface OutputSink {
+    /** Prints every line to System.out as it arrives */
+    OutputSink CONSOLE = line -> System.out.println(line);
+
+    /** Discards every line */
+    OutputSink NULL = line -> {
+    };
+
+    /**
+     * Outputs one line. The sink adds the line separator.
+     *
+     * @param line
+     *            the text of the line
+     */
+    void println(String line);
+
+
+    /**
+     * Writes out any lines the sink is holding. Sinks that hold nothing
+     * need not override this.
+     */
+    default void flush() {
+    }
+}
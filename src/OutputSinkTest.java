@@ -0,0 +1,201 @@
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Test class for the OutputSink implementations.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class OutputSinkTest {
+    private static final String COMMANDS = "insert Artist1<SEP>Song1\n"
+        + "insert Artist1<SEP>Song2\n" + "insert Artist2<SEP>Song1\n"
+        + "insert Bj\u00f6rk<SEP>J\u00f3ga\n" + "insert broken\n"
+        + "remove song Song1\n" + "print artist\n" + "print song\n"
+        + "print graph\n";
+
+    /**
+     * Tests that the buffered sink writes the same bytes as println.
+     */
+    @Test
+    public void testBufferedMatchesPrintln() {
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+        PrintStream directStream = new PrintStream(direct);
+        OutputSink sink = new BufferedOutputSink(new PrintStream(buffered),
+            16, 0);
+        String[] lines = { "one", "", "J\u00f3ga", "a longer line than the "
+            + "capacity of the buffer", "last" };
+        for (String line : lines) {
+            directStream.println(line);
+            sink.println(line);
+        }
+        sink.flush();
+        assertArrayEquals(direct.toByteArray(), buffered.toByteArray());
+    }
+
+
+    /**
+     * Tests when the buffered sink prints its lines.
+     */
+    @Test
+    public void testBufferedFlushBehavior() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream stream = new PrintStream(bytes);
+        OutputSink sink = new BufferedOutputSink(stream, 1000, 3);
+        sink.println("a");
+        sink.println("b");
+        assertEquals(0, bytes.size());
+        sink.println("c");
+        assertEquals("a\nb\nc\n".replace("\n", System.lineSeparator()),
+            bytes.toString());
+
+        bytes.reset();
+        sink = new BufferedOutputSink(stream, 4, 0);
+        sink.println("ab");
+        assertEquals(0, bytes.size());
+        sink.println("cd");
+        assertTrue(bytes.size() > 0);
+        sink.flush();
+        assertEquals("ab\ncd\n".replace("\n", System.lineSeparator()), bytes
+            .toString());
+    }
+
+
+    /**
+     * Tests that bad buffer settings are rejected.
+     */
+    @Test
+    public void testBufferedInvalidSettings() {
+        PrintStream stream = new PrintStream(new ByteArrayOutputStream());
+        try {
+            new BufferedOutputSink(stream, 0, 0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new BufferedOutputSink(stream, 10, -1);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+
+    /**
+     * Tests that the counting sink counts what a project would print.
+     */
+    @Test
+    public void testCounting() {
+        CountingOutputSink counter = new CountingOutputSink();
+        GraphProject project = new GraphProject(10, counter);
+        project.processCommand("insert A<SEP>B");
+        project.processCommand("print artist");
+        project.processCommand("print graph");
+        assertEquals(5, counter.lines());
+        String printed = "Successfully inserted A and B into the database"
+            + "Total artist nodes: 1" + "12: A"
+            + "Number of connected components: 1" + "Largest component size: 2";
+        assertEquals(printed.length(), counter.chars());
+
+        OutputSink.NULL.println("ignored");
+        OutputSink.NULL.flush();
+    }
+
+
+    /**
+     * Tests that the other tables and the graph print to a given sink
+     * rather than to System.out.
+     */
+    @Test
+    public void testStructuresPrintToSink() {
+        GraphNode node = new GraphNode("A", true);
+        FlatHashTable flat = new FlatHashTable(10);
+        flat.insert("A", node);
+        RobinHoodHashTable robinHood = new RobinHoodHashTable(10);
+        robinHood.insert("A", node);
+        ArenaHashTable arena = new ArenaHashTable(10);
+        arena.insert("A", node);
+        Graph graph = new Graph();
+        graph.addEdge(graph.addNode("A", true), graph.addNode("B", false));
+
+        List<String> lines = new ArrayList<>();
+        flat.printContents("flat", lines::add);
+        robinHood.printContents("robin", lines::add);
+        arena.printContents("arena", lines::add);
+        graph.printGraph(lines::add);
+        graph.snapshot().analyzeComponents(lines::add);
+        assertEquals(Arrays.asList("Total flat nodes: 1", "10: A",
+            "Total robin nodes: 1", RobinHoodHashTable.home(Hash.sfold("A"),
+                robinHood.capacity()) + ": A", "Total arena nodes: 1",
+            "10: A", "Total nodes: 2", "Total edges: 1",
+            "Number of connected components: 1", "Largest component size: 2"),
+            lines);
+    }
+
+
+    /**
+     * Tests that main prints the same bytes with every output option that
+     * prints lines, and only totals with the counting sink.
+     *
+     * @throws IOException
+     *             if the command file cannot be written
+     */
+    @Test
+    public void testMainOutputOptions() throws IOException {
+        Path file = Files.createTempFile("commands", ".txt");
+        try {
+            Files.write(file, COMMANDS.getBytes(StandardCharsets.UTF_8));
+            byte[] console = runMain("10", file.toString());
+            assertTrue(console.length > 0);
+            assertArrayEquals(console, runMain("--output=console", "10", file
+                .toString()));
+            assertArrayEquals(console, runMain("--output=buffered", "10", file
+                .toString()));
+            assertArrayEquals(console, runMain("--mmap", "--output=buffered",
+                "10", file.toString()));
+            assertArrayEquals(console, runMain("--pipeline",
+                "--output=buffered", "10", file.toString()));
+            assertTrue(new String(runMain("--mmap", "--pipeline", "10", file
+                .toString())).startsWith("Usage"));
+            assertEquals(0, runMain("--output=null", "10", file
+                .toString()).length);
+            assertTrue(new String(runMain("--output=count", "10", file
+                .toString())).startsWith("Output lines: 15, characters: "));
+            assertTrue(new String(runMain("--output=loud", "10", file
+                .toString())).startsWith("Usage"));
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+
+    /**
+     * Runs main and returns the bytes it printed.
+     */
+    private static byte[] runMain(String... args) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(bytes));
+            GraphProject.main(args);
+        }
+        finally {
+            System.setOut(console);
+        }
+        return bytes.toByteArray();
+    }
+}
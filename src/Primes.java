@@ -0,0 +1,68 @@
+/**
+ * The prime capacities the hash tables are sized to. In a table of prime
+ * length p the first (p + 1) / 2 quadratic probes from any slot are
+ * distinct, so an insert below 50% load always finds a free slot. With a
+ * composite length the sequence can cycle through a few slots and report
+ * the table as full long before that. Rather than search for primes at
+ * runtime, the tables take their sizes from a precomputed ladder of primes
+ * that roughly doubles at each step.
+ *
+ * The ladder stops below 2^30 so that twice a capacity still fits in an
+ * int, which the incremental probe stepping relies on.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public final class Primes {
+    /** Prime capacities, each roughly twice the one before */
+    private static final int[] LADDER = { 2, 5, 11, 23, 47, 97, 197, 397, 797,
+        1597, 3203, 6421, 12853, 25717, 51437, 102877, 205759, 411527,
+        823117, 1646237, 3292489, 6584983, 13169977, 26339969, 52679969,
+        105359939, 210719881, 421439783, 842879579 };
+
+    /** The largest capacity a table can grow to */
+    static final int MAX_CAPACITY = LADDER[LADDER.length - 1];
+
+    /**
+     * Not instantiable.
+     */
+    private Primes() {
+    }
+
+
+    /**
+     * Returns the smallest capacity on the ladder that is at least n.
+     *
+     * @param n
+     *            the requested capacity
+     * @return a prime capacity of at least n
+     * @throws IllegalStateException
+     *             if n is larger than the largest capacity
+     */
+    public static int atLeast(int n) {
+        for (int prime : LADDER) {
+            if (prime >= n) {
+                return prime;
+            }
+        }
+        throw new IllegalStateException("No table capacity of at least " + n);
+    }
+
+
+    /**
+     * Returns the capacity to grow to from the given one: the next step up
+     * the ladder.
+     *
+     * @param capacity
+     *            the current capacity
+     * @return the smallest capacity larger than the current one
+     * @throws IllegalStateException
+     *             if the table is already at the largest capacity
+     */
+    public static int after(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Table is at maximum capacity");
+        }
+        return atLeast(capacity + 1);
+    }
+}
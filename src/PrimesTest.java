@@ -0,0 +1,71 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Test class for Primes.
+ * Covers the sizing rules and checks that every capacity on the ladder is
+ * actually prime.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class PrimesTest {
+
+    /**
+     * Tests that requested capacities round up to the ladder.
+     */
+    @Test
+    public void testAtLeast() {
+        assertEquals(2, Primes.atLeast(1));
+        assertEquals(5, Primes.atLeast(4));
+        assertEquals(11, Primes.atLeast(10));
+        assertEquals(11, Primes.atLeast(11));
+        assertEquals(197, Primes.atLeast(100));
+    }
+
+
+    /**
+     * Tests that each step roughly doubles the capacity and that the ladder
+     * ends with an exception rather than overflowing.
+     */
+    @Test
+    public void testAfter() {
+        assertEquals(23, Primes.after(11));
+        for (int capacity = 2; capacity < Primes.MAX_CAPACITY;) {
+            int next = Primes.after(capacity);
+            assertTrue(next >= 2 * capacity && next <= 2 * capacity + 100);
+            capacity = next;
+        }
+        assertTrue("Twice the largest capacity should fit in an int",
+            Primes.MAX_CAPACITY < Integer.MAX_VALUE / 2);
+    }
+
+
+    /**
+     * Tests that a table at the largest capacity cannot grow.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testAfterLargest() {
+        Primes.after(Primes.MAX_CAPACITY);
+    }
+
+
+    /**
+     * Tests that every capacity on the ladder is prime, which the old
+     * runtime check did not guarantee (25 and 35 passed it).
+     */
+    @Test
+    public void testLadderIsPrime() {
+        int capacity = 2;
+        while (true) {
+            for (int d = 2; (long)d * d <= capacity; d++) {
+                assertTrue(capacity + " is divisible by " + d,
+                    capacity % d != 0);
+            }
+            if (capacity == Primes.MAX_CAPACITY) {
+                break;
+            }
+            capacity = Primes.after(capacity);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Saves the artist table, song table and graph of a GraphProject to a
+ * binary file and loads them back, so a restart does not have to replay
+ * every insert.
+ *
+ * The file is big-endian and holds, in order:
+ *
+ * <pre>
+ * int     MAGIC, int VERSION
+ * int     node count
+ * nodes   per node id: byte artist flag, int name length, UTF-8 name
+ * edges   per node id: int degree, then the neighbor ids in order
+ * tables  artist table, then song table: int capacity, int slot count,
+ *         then per used slot: int slot index, int node id or -1 for a
+ *         tombstone
+ * </pre>
+ *
+ * The node names are the string pool: a table entry's key is its node's
+ * name, so it is stored once and referred to by id. Loading creates each
+ * node once, gives it its whole neighbor array in one step and puts every
+ * table entry straight into its saved slot, with no probing. Slots and
+ * tombstones are kept exactly, so probe sequences, the order of print
+ * artist and print song, and later inserts behave as they would have
+ * without the restart. Connected components are rebuilt from the edges.
+ *
+ * load checks everything the restored structures rely on: counts must fit
+ * in the rest of the file, every edge must be listed once from each end
+ * and never from a node to itself, and each table must list only nodes of
+ * its kind, each at most once.
+ *
+ * save writes a temporary file next to the snapshot, forces it to disk and
+ * renames it over the snapshot, so the file a command log's LOAD record
+ * names is always either the old snapshot or the new one, never a partly
+ * written mix.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public final class ProjectSnapshot {
+    /** First four bytes of a snapshot, "PJ4S" */
+    static final int MAGIC = 0x504A3453;
+
+    /** Format version written by save */
+    static final int VERSION = 1;
+
+    /** Size of the write buffer and initial size of the read buffer */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private ProjectSnapshot() {
+    }
+
+
+    /**
+     * Writes a project's tables and graph to a file, replacing it
+     * atomically.
+     *
+     * @param project
+     *            the project to save
+     * @param file
+     *            the snapshot file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public static void save(GraphProject project, Path file)
+        throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try {
+            write(project, temp);
+            Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+
+    /**
+     * Writes a snapshot to a file, replacing it in place, and forces it to
+     * disk.
+     */
+    private static void write(GraphProject project, Path file)
+        throws IOException {
+        Graph graph = project.graph();
+        try (Output out = new Output(FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING))) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+
+            int nodeCount = graph.nodeCount();
+            out.putInt(nodeCount);
+            for (int v = 0; v < nodeCount; v++) {
+                GraphNode node = graph.getNode(v);
+                byte[] name = node.getName().getBytes(StandardCharsets.UTF_8);
+                out.ensure(5);
+                out.buffer.put((byte)(node.isArtist() ? 1 : 0));
+                out.buffer.putInt(name.length);
+                out.putBytes(name);
+            }
+            for (int v = 0; v < nodeCount; v++) {
+                GraphNode node = graph.getNode(v);
+                out.putInt(node.degree());
+                for (int i = 0; i < node.degree(); i++) {
+                    out.putInt(node.neighborAt(i).id);
+                }
+            }
+
+            saveTable(project.artistTable(), out);
+            saveTable(project.songTable(), out);
+        }
+    }
+
+
+    /**
+     * Replaces a project's tables and graph with those saved in a file.
+     * The project is left unchanged if the file cannot be read.
+     *
+     * @param project
+     *            the project to restore
+     * @param file
+     *            the snapshot file
+     * @throws IOException
+     *             if the file cannot be read or is not a valid snapshot
+     */
+    public static void load(GraphProject project, Path file)
+        throws IOException {
+        try (Input in = new Input(FileChannel.open(file,
+            StandardOpenOption.READ))) {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version "
+                    + version);
+            }
+
+            // A node takes at least a flag, a name length, a one-byte name
+            // and a degree
+            int nodeCount = in.getCount(10);
+            Graph graph = new Graph();
+            GraphNode[] nodes = new GraphNode[nodeCount];
+            for (int v = 0; v < nodeCount; v++) {
+                in.ensure(5);
+                boolean isArtist = in.buffer.get() != 0;
+                String name = in.getString(in.getCount(1));
+                nodes[v] = graph.addNode(name, isArtist);
+            }
+            int[][] edges = new int[nodeCount][];
+            for (int v = 0; v < nodeCount; v++) {
+                edges[v] = new int[in.getCount(4)];
+                for (int i = 0; i < edges[v].length; i++) {
+                    edges[v][i] = in.getIndex(nodeCount);
+                }
+            }
+            checkEdges(edges);
+            for (int v = 0; v < nodeCount; v++) {
+                GraphNode[] neighbors = new GraphNode[edges[v].length];
+                for (int i = 0; i < neighbors.length; i++) {
+                    neighbors[i] = nodes[edges[v][i]];
+                }
+                edges[v] = null;
+                graph.restoreNeighbors(nodes[v], neighbors);
+            }
+
+            ExtensibleHashTable artists = loadTable(in, nodes, true);
+            ExtensibleHashTable songs = loadTable(in, nodes, false);
+            project.restore(artists, songs, graph);
+        }
+        catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("Corrupt snapshot: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Checks that no node lists itself or a neighbor twice, and that every
+     * edge is listed from both ends, as Graph.restoreNeighbors requires.
+     * The nodes listing each node are gathered first, in one array indexed
+     * by offsets; each node's own list must then hold exactly those.
+     */
+    private static void checkEdges(int[][] edges) throws IOException {
+        int nodeCount = edges.length;
+        int[] start = new int[nodeCount + 1];
+        for (int[] list : edges) {
+            for (int w : list) {
+                start[w + 1]++;
+            }
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] listedBy = new int[start[nodeCount]];
+        int[] next = Arrays.copyOf(start, nodeCount);
+        for (int v = 0; v < nodeCount; v++) {
+            for (int w : edges[v]) {
+                listedBy[next[w]++] = v;
+            }
+        }
+
+        // mark[w] == v + 1 once node v's list has named w
+        int[] mark = new int[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            for (int w : edges[v]) {
+                if (w == v) {
+                    throw new IOException("Node " + v + " lists itself");
+                }
+                if (mark[w] == v + 1) {
+                    throw new IOException("Node " + v + " lists node " + w
+                        + " twice");
+                }
+                mark[w] = v + 1;
+            }
+            boolean symmetric = start[v + 1] - start[v] == edges[v].length;
+            for (int i = start[v]; i < start[v + 1] && symmetric; i++) {
+                symmetric = mark[listedBy[i]] == v + 1;
+            }
+            if (!symmetric) {
+                throw new IOException("Edges of node " + v
+                    + " are not listed from both ends");
+            }
+        }
+    }
+
+
+    /**
+     * Writes the capacity and used slots of a table.
+     */
+    private static void saveTable(ExtensibleHashTable table, Output out)
+        throws IOException {
+        HashEntry[] slots = table.getTable();
+        int used = 0;
+        for (HashEntry entry : slots) {
+            if (entry != null) {
+                used++;
+            }
+        }
+        out.putInt(slots.length);
+        out.putInt(used);
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) {
+                out.putInt(i);
+                out.putInt(slots[i].isActive()
+                    ? slots[i].getNode().id
+                    : -1);
+            }
+        }
+    }
+
+
+    /**
+     * Reads a table written by saveTable, checking that it lists only
+     * artists or only songs, each at most once.
+     */
+    private static ExtensibleHashTable loadTable(
+        Input in,
+        GraphNode[] nodes,
+        boolean artists)
+        throws IOException {
+        String kind = artists ? "artist" : "song";
+        String member = artists ? "an artist" : "a song";
+        int capacity = in.getCount();
+        ExtensibleHashTable table = new ExtensibleHashTable(capacity);
+        if (table.capacity() != capacity) {
+            throw new IOException("Invalid table capacity " + capacity);
+        }
+        int used = in.getCount(8);
+        boolean[] listed = new boolean[nodes.length];
+        for (int i = 0; i < used; i++) {
+            int slot = in.getInt();
+            int id = in.getInt();
+            if (id == -1) {
+                table.restoreTombstone(slot);
+            }
+            else if (id >= 0 && id < nodes.length) {
+                if (nodes[id].isArtist() != artists) {
+                    throw new IOException("Node " + id + " in the " + kind
+                        + " table is not " + member);
+                }
+                if (listed[id]) {
+                    throw new IOException("Node " + id + " is in the " + kind
+                        + " table twice");
+                }
+                listed[id] = true;
+                table.restoreEntry(slot, nodes[id].getName(), nodes[id]);
+            }
+            else {
+                throw new IOException("Invalid node id " + id);
+            }
+        }
+        return table;
+    }
+
+
+    /**
+     * Buffered writes to a channel.
+     */
+    private static final class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+
+        /**
+         * Makes room for the given number of bytes, at most BUFFER_SIZE.
+         */
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+
+        void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length
+                    - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+
+        /**
+         * Writes the rest of the file and forces it to disk, so that it is
+         * whole before save renames it into place.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+                channel.force(false);
+            }
+            finally {
+                channel.close();
+            }
+        }
+    }
+
+
+    /**
+     * Buffered reads from a channel, with checks against a truncated or
+     * corrupt file.
+     */
+    private static final class Input implements AutoCloseable {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+
+        /**
+         * Reads until the given number of bytes are buffered.
+         */
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            if (bytes > buffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(bytes);
+                larger.put(buffer);
+                buffer = larger;
+            }
+            else {
+                buffer.compact();
+            }
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Snapshot is truncated");
+                }
+            }
+            buffer.flip();
+        }
+
+
+        int getInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+
+        /**
+         * Reads a count or length, which cannot be negative.
+         */
+        int getCount() throws IOException {
+            int count = getInt();
+            if (count < 0) {
+                throw new IOException("Negative count " + count);
+            }
+            return count;
+        }
+
+
+        /**
+         * Reads a count of items that each take at least the given number
+         * of bytes. A count the rest of the file cannot hold fails as a
+         * truncated file would, before anything is allocated for it.
+         */
+        int getCount(int bytesEach) throws IOException {
+            int count = getCount();
+            long remaining = buffer.remaining() + channel.size() - channel
+                .position();
+            if ((long)count * bytesEach > remaining) {
+                throw new EOFException("Snapshot is truncated");
+            }
+            return count;
+        }
+
+
+        /**
+         * Reads an index that must be below the given bound.
+         */
+        int getIndex(int bound) throws IOException {
+            int index = getInt();
+            if (index < 0 || index >= bound) {
+                throw new IOException("Invalid node id " + index);
+            }
+            return index;
+        }
+
+
+        String getString(int length) throws IOException {
+            ensure(length);
+            String value = new String(buffer.array(), buffer.position(),
+                length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
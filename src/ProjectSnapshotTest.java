@@ -0,0 +1,412 @@
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for ProjectSnapshot and the save and load commands.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class ProjectSnapshotTest {
+    private Path file;
+
+    /**
+     * Creates the snapshot file.
+     *
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("snapshot", ".bin");
+    }
+
+
+    /**
+     * Deletes the snapshot file.
+     *
+     * @throws IOException
+     *             if the file cannot be deleted
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+
+    /**
+     * Tests that a loaded project prints and behaves exactly like the one
+     * that was saved, tombstones and all.
+     *
+     * @throws IOException
+     *             if the snapshot cannot be written or read
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(7);
+        String[] before = commands(random, 3000);
+        String[] after = commands(random, 1000);
+
+        CountingOutputSink ignored = new CountingOutputSink();
+        GraphProject saved = new GraphProject(10, ignored);
+        run(saved, before);
+        ProjectSnapshot.save(saved, file);
+        assertTrue(saved.artistTable().tombstones() > 0);
+
+        GraphProject loaded = new GraphProject(10, ignored);
+        loaded.processCommand("insert Stale<SEP>State");
+        ProjectSnapshot.load(loaded, file);
+
+        assertEquals(saved.graph().nodeCount(), loaded.graph().nodeCount());
+        assertEquals(saved.artistTable().tombstones(), loaded.artistTable()
+            .tombstones());
+        assertEquals(saved.songTable().size(), loaded.songTable().size());
+        for (int v = 0; v < saved.graph().nodeCount(); v++) {
+            GraphNode original = saved.graph().getNode(v);
+            GraphNode copy = loaded.graph().getNode(v);
+            assertEquals(original.getName(), copy.getName());
+            assertEquals(original.isArtist(), copy.isArtist());
+            assertEquals(original.getEdges().size(), copy.getEdges().size());
+            for (int i = 0; i < original.degree(); i++) {
+                assertEquals(original.neighborAt(i).getId(), copy.neighborAt(i)
+                    .getId());
+            }
+        }
+
+        String[] prints = { "print artist", "print song", "print graph" };
+        assertEquals(output(saved, prints), output(loaded, prints));
+        assertEquals(output(saved, after), output(loaded, after));
+        assertEquals(output(saved, prints), output(loaded, prints));
+    }
+
+
+    /**
+     * Tests a star graph, whose hub keeps an identity index.
+     *
+     * @throws IOException
+     *             if the snapshot cannot be written or read
+     */
+    @Test
+    public void testHighDegree() throws IOException {
+        GraphProject saved = new GraphProject(10, OutputSink.NULL);
+        for (int i = 0; i < 100; i++) {
+            saved.processCommand("insert Hub<SEP>Song" + i);
+        }
+        ProjectSnapshot.save(saved, file);
+        GraphProject loaded = new GraphProject(10, OutputSink.NULL);
+        ProjectSnapshot.load(loaded, file);
+
+        String[] commands = { "remove song Song50", "insert Hub<SEP>Song3",
+            "insert Other<SEP>Song7", "print graph", "remove artist Hub",
+            "print graph" };
+        assertEquals(output(saved, commands), output(loaded, commands));
+    }
+
+
+    /**
+     * Tests that save replaces the snapshot by renaming a finished file
+     * over it, so a save that fails leaves the old snapshot whole.
+     *
+     * @throws IOException
+     *             if the snapshot cannot be written or read
+     */
+    @Test
+    public void testSaveReplacesAtomically() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.processCommand("insert A<SEP>B");
+        ProjectSnapshot.save(project, file);
+        byte[] good = Files.readAllBytes(file);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        assertFalse(Files.exists(temp));
+
+        project.processCommand("insert C<SEP>D");
+        Files.createDirectory(temp);
+        try {
+            ProjectSnapshot.save(project, file);
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            // expected
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+        assertArrayEquals(good, Files.readAllBytes(file));
+
+        ProjectSnapshot.save(project, file);
+        GraphProject loaded = new GraphProject(10, OutputSink.NULL);
+        ProjectSnapshot.load(loaded, file);
+        assertNotNull(loaded.songTable().search("D"));
+    }
+
+
+    /**
+     * Tests that bad files are rejected and leave the project as it was.
+     *
+     * @throws IOException
+     *             if the test files cannot be written
+     */
+    @Test
+    public void testInvalidFiles() throws IOException {
+        GraphProject project = new GraphProject(10, OutputSink.NULL);
+        project.processCommand("insert A<SEP>B");
+        ProjectSnapshot.save(project, file);
+        byte[] good = Files.readAllBytes(file);
+        GraphProject target = new GraphProject(10, OutputSink.NULL);
+
+        Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        assertLoadFails(target, "Not a snapshot file");
+
+        byte[] version = good.clone();
+        version[7] = 9;
+        Files.write(file, version);
+        assertLoadFails(target, "Unsupported snapshot version 9");
+
+        Files.write(file, Arrays.copyOf(good, good.length - 3));
+        try {
+            ProjectSnapshot.load(target, file);
+            fail("Expected EOFException");
+        }
+        catch (EOFException e) {
+            assertEquals("Snapshot is truncated", e.getMessage());
+        }
+
+        byte[] slot = good.clone();
+        // The last int is the song entry's node id
+        slot[slot.length - 1] = 42;
+        Files.write(file, slot);
+        assertLoadFails(target, "Invalid node id 42");
+
+        byte[] count = good.clone();
+        // The node count follows the magic number and version
+        count[8] = 0x7f;
+        Files.write(file, count);
+        assertLoadFails(target, "Snapshot is truncated");
+
+        assertEquals(0, target.graph().nodeCount());
+    }
+
+
+    /**
+     * Tests that edges and table entries that break what the restored
+     * graph and tables rely on are rejected.
+     *
+     * @throws IOException
+     *             if the test files cannot be written
+     */
+    @Test
+    public void testInconsistentFiles() throws IOException {
+        GraphProject target = new GraphProject(10, OutputSink.NULL);
+        int[][] edge = { { 1 }, { 0 } };
+        writeSnapshot(edge, new int[] { 0 }, new int[] { 1 });
+        ProjectSnapshot.load(target, file);
+        assertEquals(2, target.graph().largestComponentSize());
+
+        target = new GraphProject(10, OutputSink.NULL);
+        writeSnapshot(new int[][] { { 0 }, {} }, new int[] { 0 }, new int[] {
+            1 });
+        assertLoadFails(target, "Node 0 lists itself");
+        writeSnapshot(new int[][] { { 1, 1 }, { 0 } }, new int[] { 0 },
+            new int[] { 1 });
+        assertLoadFails(target, "Node 0 lists node 1 twice");
+        writeSnapshot(new int[][] { { 1 }, {} }, new int[] { 0 }, new int[] {
+            1 });
+        assertLoadFails(target, "Edges of node 0 are not listed from both");
+        writeSnapshot(new int[][] { {}, { 0 } }, new int[] { 0 }, new int[] {
+            1 });
+        assertLoadFails(target, "Edges of node 0 are not listed from both");
+
+        writeSnapshot(edge, new int[] { 1 }, new int[] { 1 });
+        assertLoadFails(target, "Node 1 in the artist table is not an artist");
+        writeSnapshot(edge, new int[] { 0 }, new int[] { 0 });
+        assertLoadFails(target, "Node 0 in the song table is not a song");
+        writeSnapshot(edge, new int[] { 0, 0 }, new int[] { 1 });
+        assertLoadFails(target, "Node 0 is in the artist table twice");
+
+        assertEquals(0, target.graph().nodeCount());
+    }
+
+
+    /**
+     * Tests the save and load commands.
+     */
+    @Test
+    public void testCommands() {
+        CountingOutputSink counter = new CountingOutputSink();
+        GraphProject project = new GraphProject(10, counter);
+        project.processCommand("insert A<SEP>B");
+        String saved = output(project, new String[] { "save " + file,
+            "remove artist A", "load " + file, "print artist", "save",
+            "load", "load " + file + ".missing" });
+        assertTrue(saved.startsWith("Saved snapshot to " + file + "\n"
+            + "Artist A removed\n" + "Loaded snapshot from " + file + "\n"
+            + "Total artist nodes: 1\n"));
+        assertTrue(saved.contains("Invalid save format\n"
+            + "Invalid load format\n" + "Error loading snapshot: "));
+    }
+
+
+    /**
+     * Tests the --save and --load options of main.
+     *
+     * @throws IOException
+     *             if the command files cannot be written
+     */
+    @Test
+    public void testMainOptions() throws IOException {
+        Path first = Files.createTempFile("first", ".txt");
+        Path second = Files.createTempFile("second", ".txt");
+        Path whole = Files.createTempFile("whole", ".txt");
+        try {
+            Files.write(first, "insert A<SEP>B\ninsert C<SEP>B\n".getBytes());
+            Files.write(second, "insert A<SEP>D\nprint graph\n".getBytes());
+            Files.write(whole, ("insert A<SEP>B\ninsert C<SEP>B\n"
+                + "insert A<SEP>D\nprint graph\n").getBytes());
+
+            String replay = captureMain("10", whole.toString());
+            String saving = captureMain("--save=" + file, "10", first
+                .toString());
+            String restarted = captureMain("--load=" + file, "10", second
+                .toString());
+            assertTrue(saving.endsWith("Saved snapshot to " + file
+                + System.lineSeparator()));
+            assertEquals(replay, saving.substring(0, saving.lastIndexOf(
+                "Saved")) + restarted.substring(restarted.indexOf(
+                    System.lineSeparator()) + System.lineSeparator()
+                        .length()));
+        }
+        finally {
+            Files.delete(first);
+            Files.delete(second);
+            Files.delete(whole);
+        }
+    }
+
+
+    /**
+     * Writes a snapshot of artist A as node 0 and song B as node 1, with
+     * the given neighbor lists and tables whose slots from 1 on hold the
+     * given node ids.
+     */
+    private void writeSnapshot(int[][] edges, int[] artists, int[] songs)
+        throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(ProjectSnapshot.MAGIC);
+        out.writeInt(ProjectSnapshot.VERSION);
+        out.writeInt(2);
+        out.writeByte(1);
+        out.writeInt(1);
+        out.writeByte('A');
+        out.writeByte(0);
+        out.writeInt(1);
+        out.writeByte('B');
+        for (int[] list : edges) {
+            out.writeInt(list.length);
+            for (int id : list) {
+                out.writeInt(id);
+            }
+        }
+        int capacity = new ExtensibleHashTable(10).capacity();
+        for (int[] table : new int[][] { artists, songs }) {
+            out.writeInt(capacity);
+            out.writeInt(table.length);
+            for (int i = 0; i < table.length; i++) {
+                out.writeInt(i + 1);
+                out.writeInt(table[i]);
+            }
+        }
+        Files.write(file, bytes.toByteArray());
+    }
+
+
+    /**
+     * Checks that loading fails with an IOException whose message starts
+     * as expected.
+     */
+    private void assertLoadFails(GraphProject project, String message) {
+        try {
+            ProjectSnapshot.load(project, file);
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        }
+    }
+
+
+    /**
+     * Generates random inserts and removes over a small set of names.
+     */
+    private static String[] commands(Random random, int count) {
+        String[] commands = new String[count];
+        for (int i = 0; i < count; i++) {
+            int artist = random.nextInt(60);
+            int song = random.nextInt(400);
+            switch (random.nextInt(8)) {
+                case 0:
+                    commands[i] = "remove artist Artist" + artist;
+                    break;
+                case 1:
+                    commands[i] = "remove song Song" + song;
+                    break;
+                default:
+                    commands[i] = "insert Artist" + artist + "<SEP>Song"
+                        + song;
+            }
+        }
+        return commands;
+    }
+
+
+    private static void run(GraphProject project, String[] commands) {
+        for (String command : commands) {
+            project.processCommand(command);
+        }
+    }
+
+
+    /**
+     * Runs commands on a copy of the project's setup that prints to a
+     * buffer, and returns what they printed with \n line ends.
+     */
+    private static String output(GraphProject project, String[] commands) {
+        StringBuilder printed = new StringBuilder();
+        GraphProject printing = new GraphProject(10, line -> printed.append(
+            line).append('\n'));
+        printing.restore(project.artistTable(), project.songTable(), project
+            .graph());
+        run(printing, commands);
+        project.restore(printing.artistTable(), printing.songTable(),
+            printing.graph());
+        return printed.toString();
+    }
+
+
+    /**
+     * Runs main and returns what it printed.
+     */
+    private static String captureMain(String... args) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(bytes));
+            GraphProject.main(args);
+        }
+        finally {
+            System.setOut(console);
+        }
+        return bytes.toString();
+    }
+}
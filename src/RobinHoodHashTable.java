@@ -0,0 +1,368 @@
+/**
+ * An open-addressing hash table with the same interface as
+ * ExtensibleHashTable that uses Robin Hood linear probing.
+ *
+ * Every slot records its displacement, the distance from the entry's home
+ * slot. An insert that reaches an entry closer to its home than the new one
+ * takes that slot and carries the displaced entry on. This keeps the
+ * variance of probe lengths low, so the table can run at a much higher load
+ * factor. A lookup can stop as soon as it passes a slot with a smaller
+ * displacement than its own distance, because the key would have taken that
+ * slot. Misses therefore end early instead of running to an empty slot.
+ * Removal shifts the following run back one slot, so there are no
+ * tombstones.
+ *
+ * Linear probing turns runs of nearby home slots into long clusters, and
+ * sfold sums of similar names are numerically close. The cached sfold sum
+ * is therefore mixed before it is reduced to a home slot.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class RobinHoodHashTable {
+    /** Load factor used by the single-argument constructor */
+    static final double DEFAULT_LOAD_FACTOR = 0.85;
+
+    /** Cached Hash.sfold of each slot's key */
+    private long[] hashes;
+
+    /** Keys, null in empty slots */
+    private String[] keys;
+
+    /** Values, null in empty slots */
+    private GraphNode[] nodes;
+
+    /** Displacement of each slot plus one; 0 marks an empty slot */
+    private int[] probes;
+
+    /** Hash.reciprocal of the table length */
+    private long reciprocal;
+
+    /** The number of entries in the table */
+    private int size;
+
+    /** The load factor that triggers resizing */
+    private final double maxLoadFactor;
+
+    /**
+     * Constructs a new, empty table with the default load factor.
+     *
+     * @param capacity
+     *            the initial capacity of the hash table
+     * @throws IllegalArgumentException
+     *             if the initial capacity is not positive
+     */
+    public RobinHoodHashTable(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+
+    /**
+     * Constructs a new, empty table.
+     *
+     * @param capacity
+     *            the initial capacity of the hash table
+     * @param maxLoadFactor
+     *            the fraction of slots that may be filled before resizing
+     * @throws IllegalArgumentException
+     *             if the initial capacity is not positive or the load factor
+     *             is not between 0 and 1
+     */
+    public RobinHoodHashTable(int capacity, double maxLoadFactor) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                "Initial capacity must be positive");
+        }
+        if (!(maxLoadFactor > 0 && maxLoadFactor < 1)) {
+            throw new IllegalArgumentException(
+                "Load factor must be between 0 and 1");
+        }
+        this.maxLoadFactor = maxLoadFactor;
+        allocate(Primes.atLeast(capacity));
+    }
+
+
+    /**
+     * Inserts the specified key-value pair into the hash table. If the key
+     * already exists, replaces the existing value and returns the previous
+     * value.
+     *
+     * @param key
+     *            the key to be inserted
+     * @param node
+     *            the value to be associated with the key
+     * @return the previous value associated with the key, or null if the key
+     *         was not present
+     * @throws IllegalArgumentException
+     *             if either key or node is null
+     */
+    public GraphNode insert(String key, GraphNode node) {
+        if (key == null || node == null) {
+            throw new IllegalArgumentException(
+                "Neither key nor value can be null");
+        }
+
+        long hash = Hash.sfold(key);
+        int index = find(key, hash);
+        if (index >= 0) {
+            GraphNode oldNode = nodes[index];
+            nodes[index] = node;
+            return oldNode;
+        }
+
+        if (size + 1 > maxLoadFactor * hashes.length) {
+            resize();
+        }
+        place(key, node, hash);
+        size++;
+        return null;
+    }
+
+
+    /**
+     * Returns the value associated with the specified key.
+     *
+     * @param key
+     *            the key whose associated value is to be returned
+     * @return the value associated with the key, or null if the key is not
+     *         present
+     */
+    public GraphNode search(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        int index = find(key, Hash.sfold(key));
+        return index < 0 ? null : nodes[index];
+    }
+
+
+    /**
+     * Removes the key-value pair associated with the specified key, shifting
+     * the entries after it back towards their home slots.
+     *
+     * @param key
+     *            the key whose mapping is to be removed
+     * @return the value previously associated with the key, or null if the key
+     *         was not present
+     */
+    public GraphNode remove(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        int index = find(key, Hash.sfold(key));
+        if (index < 0) {
+            return null;
+        }
+
+        GraphNode removedNode = nodes[index];
+        int length = hashes.length;
+        int next = next(index, length);
+        while (probes[next] > 1) {
+            hashes[index] = hashes[next];
+            keys[index] = keys[next];
+            nodes[index] = nodes[next];
+            probes[index] = probes[next] - 1;
+            index = next;
+            next = next(next, length);
+        }
+        keys[index] = null;
+        nodes[index] = null;
+        probes[index] = 0;
+        size--;
+        return removedNode;
+    }
+
+
+    /**
+     * Returns the number of entries in the hash table.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the current capacity of the hash table.
+     *
+     * @return the current table capacity
+     */
+    public int capacity() {
+        return hashes.length;
+    }
+
+
+    /**
+     * Prints the contents of the hash table for debugging purposes.
+     *
+     * @param type
+     *            a label describing the type of contents being printed
+     */
+    public void printContents(String type) {
+        printContents(type, OutputSink.CONSOLE);
+    }
+
+
+    /**
+     * Prints the contents of the hash table to the given sink.
+     *
+     * @param type
+     *            a label describing the type of contents being printed
+     * @param out
+     *            where the lines go
+     */
+    public void printContents(String type, OutputSink out) {
+        out.println("Total " + type + " nodes: " + size);
+        for (int i = 0; i < hashes.length; i++) {
+            if (probes[i] != 0) {
+                out.println(i + ": " + keys[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the largest displacement of any entry, for testing purposes.
+     *
+     * @return the longest distance from an entry to its home slot
+     */
+    int maxDisplacement() {
+        int max = 0;
+        for (int probe : probes) {
+            max = Math.max(max, probe - 1);
+        }
+        return max;
+    }
+
+
+    /**
+     * Finds the slot holding a key.
+     *
+     * @param key
+     *            the key to look for
+     * @param hash
+     *            Hash.sfold(key)
+     * @return the slot index, or -1 if the key is absent
+     */
+    private int find(String key, long hash) {
+        int length = hashes.length;
+        int index = home(hash, length, reciprocal);
+        for (int distance = 1;; distance++) {
+            int probe = probes[index];
+            if (probe < distance) {
+                // Empty, or an entry richer than this key would be: the key
+                // would have displaced it, so it is not in the table
+                return -1;
+            }
+            if (holds(index, key, hash)) {
+                return index;
+            }
+            index = next(index, length);
+        }
+    }
+
+
+    /**
+     * Places a key that is known to be absent, displacing entries that are
+     * closer to their home slot than the one being carried.
+     */
+    private void place(String key, GraphNode node, long hash) {
+        int length = hashes.length;
+        int index = home(hash, length, reciprocal);
+        int distance = 1;
+        while (true) {
+            int probe = probes[index];
+            if (probe == 0) {
+                hashes[index] = hash;
+                keys[index] = key;
+                nodes[index] = node;
+                probes[index] = distance;
+                return;
+            }
+            if (probe < distance) {
+                long swapHash = hashes[index];
+                String swapKey = keys[index];
+                GraphNode swapNode = nodes[index];
+                hashes[index] = hash;
+                keys[index] = key;
+                nodes[index] = node;
+                probes[index] = distance;
+                hash = swapHash;
+                key = swapKey;
+                node = swapNode;
+                distance = probe;
+            }
+            index = next(index, length);
+            distance++;
+        }
+    }
+
+
+    /**
+     * Checks whether an occupied slot holds the key, comparing the cached
+     * hashes before the strings.
+     */
+    private boolean holds(int index, String key, long hash) {
+        return hashes[index] == hash && keys[index].equals(key);
+    }
+
+
+    /**
+     * Returns the slot after index, wrapping to the start of the table.
+     */
+    private static int next(int index, int length) {
+        return index + 1 == length ? 0 : index + 1;
+    }
+
+
+    /**
+     * Mixes an sfold sum with Hash.mix and reduces it to a slot.
+     */
+    static int home(long hash, int length) {
+        return home(hash, length, Hash.reciprocal(length));
+    }
+
+
+    /**
+     * Mixes an sfold sum and reduces it to a slot with a cached reciprocal
+     * of the length.
+     */
+    private static int home(long hash, int length, long lengthReciprocal) {
+        return Hash.reduce(Hash.mix(hash) >>> 1, length, lengthReciprocal);
+    }
+
+
+    /**
+     * Grows the table to the next prime on the ladder and re-places every
+     * entry using its cached hash.
+     */
+    private void resize() {
+        long[] oldHashes = hashes;
+        String[] oldKeys = keys;
+        GraphNode[] oldNodes = nodes;
+        int[] oldProbes = probes;
+        allocate(Primes.after(oldHashes.length));
+
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldProbes[i] != 0) {
+                place(oldKeys[i], oldNodes[i], oldHashes[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Replaces the arrays with empty ones of the given length. The entry
+     * count is left alone because resizing keeps every entry.
+     */
+    private void allocate(int length) {
+        hashes = new long[length];
+        keys = new String[length];
+        nodes = new GraphNode[length];
+        probes = new int[length];
+        reciprocal = Hash.reciprocal(length);
+    }
+}
@@ -0,0 +1,111 @@
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for RobinHoodHashTable.
+ * Covers the shared hash table behaviour, backward-shift removal and
+ * displacement at high load.
+ *
+ * @author Yash Atal
+ * @version 1.0
+ */
+public class RobinHoodHashTableTest {
+    private RobinHoodHashTable table;
+    private GraphNode node1;
+    private GraphNode node2;
+    private GraphNode node3;
+
+    /**
+     * Sets up test fixtures before each test method.
+     */
+    @Before
+    public void setUp() {
+        table = new RobinHoodHashTable(10);
+        node1 = new GraphNode("Artist1", true);
+        node2 = new GraphNode("Artist2", true);
+        node3 = new GraphNode("Artist3", true);
+    }
+
+
+    /**
+     * Tests insertion, replacement and retrieval.
+     */
+    @Test
+    public void testInsertAndSearch() {
+        assertNull(table.insert("key1", node1));
+        assertEquals(node1, table.search("key1"));
+        assertEquals(node1, table.insert("key1", node2));
+        assertEquals(node2, table.search("key1"));
+        assertEquals(1, table.size());
+        assertNull(table.search("key2"));
+        assertNull(table.search(null));
+    }
+
+
+    /**
+     * Tests that invalid arguments are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLoadFactor() {
+        new RobinHoodHashTable(10, 1.0);
+    }
+
+
+    /**
+     * Tests that removing the head of a collision run shifts the rest of the
+     * run back so it stays reachable.
+     */
+    @Test
+    public void testRemoveShiftsRunBack() {
+        String[] run = new String[3];
+        int found = 0;
+        int target = RobinHoodHashTable.home(Hash.sfold("k0"), table
+            .capacity());
+        for (int i = 0; found < run.length; i++) {
+            String key = "k" + i;
+            if (RobinHoodHashTable.home(Hash.sfold(key), table
+                .capacity()) == target) {
+                run[found++] = key;
+            }
+        }
+        table.insert(run[0], node1);
+        table.insert(run[1], node2);
+        table.insert(run[2], node3);
+
+        assertEquals(2, table.maxDisplacement());
+        assertEquals(node1, table.remove(run[0]));
+        assertEquals(1, table.maxDisplacement());
+        assertEquals(node2, table.search(run[1]));
+        assertEquals(node3, table.search(run[2]));
+        assertNull(table.search(run[0]));
+        assertNull(table.remove(run[0]));
+        assertEquals(2, table.size());
+    }
+
+
+    /**
+     * Tests that a table filled to its load factor keeps every key and stays
+     * within its capacity, and that emptying it works.
+     */
+    @Test
+    public void testHighLoad() {
+        RobinHoodHashTable dense = new RobinHoodHashTable(10, 0.9);
+        for (int i = 0; i < 1000; i++) {
+            dense.insert("key" + i, new GraphNode("Artist" + i, true));
+        }
+
+        assertEquals(1000, dense.size());
+        assertTrue("Table should run above 50% load", dense.size() > dense
+            .capacity() / 2);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("Artist" + i, dense.search("key" + i).getName());
+            assertNull(dense.search("missing" + i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(dense.remove("key" + i));
+        }
+        assertEquals(0, dense.size());
+        assertEquals(0, dense.maxDisplacement());
+    }
+}